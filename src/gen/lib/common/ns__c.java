@@ -507,6 +507,7 @@ try {
     if (zz.N_nodes <= 1)
 	return 0;
     while (tight_tree(zz) < zz.N_nodes) {
+	zz.checkpoint();
 	e = null;
 	for (n = GD_nlist(zz.G_ns); n!=null; n = ND_next(n)) {
 	    for (i = 0; (f = (ST_Agedge_s) ND_out(n).list.get_(i))!=null; i++) {
@@ -899,6 +900,7 @@ try {
 	return 1;
     }
     while ((e = leave_edge(zz))!=null) {
+	zz.checkpoint();
 	f = enter_edge(zz, e);
 	update(zz, e, f);
 	iter++;
@@ -476,6 +476,7 @@ UNSUPPORTED("46btiag50nczzur103eqhjcup"); // 	goto finish;
 	sd.RightBound += MINW;
 	
 	for (j = 0; j < GD_rank(g).get__(i).n; j++) {
+	    zz.checkpoint();
 	    n = GD_rank(g).get__(i).v.get_(j);
 		/* if n is the label of a flat edge, copy its position to
 		 * the label.
@@ -551,6 +552,7 @@ UNSUPPORTED("46btiag50nczzur103eqhjcup"); // 	goto finish;
     
     for (i = 0; i < n_edges;) {
  	boolean havePorts;
+	zz.checkpoint();
 	ind = i;
 	le0 = getmainedge((e0 = edges.get_(i++)));
 	if (ED_tail_port(e0).defined || ED_head_port(e0).defined) {
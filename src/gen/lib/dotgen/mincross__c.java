@@ -563,6 +563,7 @@ try {
     for (r = GD_minrank(g); r <= GD_maxrank(g); r++)
 	GD_rank(g).get__(r).candidate= true;
     do {
+	zz.checkpoint();
 	delta = 0;
 	for (r = GD_minrank(g); r <= GD_maxrank(g); r++) {
 	    if (GD_rank(g).get__(r).candidate) {
@@ -622,6 +623,7 @@ try {
 		break;
 	    if (cur_cross == 0)
 		break;
+	    zz.checkpoint();
 	    mincross_step(zz, g, iter);
 	    if ((cur_cross = ncross(zz, g)) <= best_cross) {
 		save_best(g);
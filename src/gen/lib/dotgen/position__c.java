@@ -640,16 +640,19 @@ try {
 	return;			/* ignore empty graph */
     mark_lowclusters(zz, g);	/* we could remove from splines.c now */
     set_ycoords(zz, g);
+    zz.checkpoint();
     if (zz.Concentrate)
 	dot_concentrate(g);
     expand_leaves(g);
     if (flat_edges(zz, g))
 	set_ycoords(zz, g);
     create_aux_edges(zz, g);
+    zz.checkpoint();
     if (rank(zz, g, 2, nsiter2(zz, g))!=0) { /* LR balance == 2 */
 	connectGraph (g);
 	//assert(rank(g, 2, nsiter2(g)) == 0);
     }
+    zz.checkpoint();
     set_xcoords(g);
     set_aspect(g, asp);
     remove_aux_edges(g);	/* must come after set_aspect since we now
@@ -170,6 +170,7 @@ try {
 	}
     }
     for (n = agfstnode(zz, g); n!=null; n = agnxtnode(zz, g, n)) {
+	zz.checkpoint();
 	for (e = agfstout(zz, g, n); e!=null; e = agnxtout(zz, g, e)) {
 	    f = ED_to_virt(e);
 	    /* Null out any other references to f to make sure we don't 
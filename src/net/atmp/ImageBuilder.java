@@ -41,6 +41,8 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 
@@ -67,6 +69,7 @@ import net.sourceforge.plantuml.klimt.color.HColorSimple;
 import net.sourceforge.plantuml.klimt.color.HColors;
 import net.sourceforge.plantuml.klimt.drawing.LimitFinder;
 import net.sourceforge.plantuml.klimt.drawing.UGraphic;
+import net.sourceforge.plantuml.klimt.drawing.UGraphicRecorder;
 import net.sourceforge.plantuml.klimt.drawing.debug.UGraphicDebug;
 import net.sourceforge.plantuml.klimt.drawing.eps.EpsStrategy;
 import net.sourceforge.plantuml.klimt.drawing.eps.UGraphicEps;
@@ -105,6 +108,7 @@ public class ImageBuilder {
 	private HColor backcolor = getDefaultHBackColor();
 
 	private XDimension2D dimension;
+	private UGraphicRecorder recorder;
 	private final FileFormatOption fileFormatOption;
 	private UDrawable udrawable;
 	private ClockwiseTopRightBottomLeft margin = ClockwiseTopRightBottomLeft.none();
@@ -115,6 +119,7 @@ public class ImageBuilder {
 	private int status = 0;
 	private TitledDiagram titledDiagram;
 	private boolean randomPixel;
+	private boolean drawTwice;
 	private String warningOrError;
 
 	public static ImageBuilder imageBuilder(FileFormatOption fileFormatOption) {
@@ -180,6 +185,13 @@ public class ImageBuilder {
 		return this;
 	}
 
+	// For drawables which complete their layout while being drawn: the drawing
+	// done to compute the dimension cannot be recorded and replayed.
+	public ImageBuilder drawTwice() {
+		this.drawTwice = true;
+		return this;
+	}
+
 	public ImageBuilder seed(long seed) {
 		this.seed = seed;
 		return this;
@@ -252,8 +264,13 @@ public class ImageBuilder {
 		if (randomPixel)
 			drawRandomPoint(ug);
 
-		ug = handwritten(ug.apply(new UTranslate(margin.getLeft(), margin.getTop())));
-		udrawable.drawU(ug);
+		if (recorder != null) {
+			ug = handwritten(ug);
+			recorder.replay(ug);
+		} else {
+			ug = handwritten(ug.apply(new UTranslate(margin.getLeft(), margin.getTop())));
+			udrawable.drawU(ug);
+		}
 		ug.flushUg();
 		ug.writeToStream(os, metadata, 96);
 		os.flush();
@@ -299,14 +316,40 @@ public class ImageBuilder {
 
 	private XDimension2D getFinalDimension() {
 		if (dimension == null) {
-			final LimitFinder limitFinder = LimitFinder.create(stringBounder, true);
-			udrawable.drawU(limitFinder);
-			dimension = new XDimension2D(limitFinder.getMaxX() + 1 + margin.getLeft() + margin.getRight(),
-					limitFinder.getMaxY() + 1 + margin.getTop() + margin.getBottom());
+			if (isRecordable()) {
+				recorder = UGraphicRecorder.create(stringBounder, backcolor, fileFormatOption.getColorMapper(),
+						new UTranslate(margin.getLeft(), margin.getTop()), getBackEndProperties());
+				udrawable.drawU(recorder);
+				dimension = new XDimension2D(recorder.getMaxX() + 1 + margin.getLeft() + margin.getRight(),
+						recorder.getMaxY() + 1 + margin.getTop() + margin.getBottom());
+			} else {
+				final LimitFinder limitFinder = LimitFinder.create(stringBounder, true);
+				udrawable.drawU(limitFinder);
+				dimension = new XDimension2D(limitFinder.getMaxX() + 1 + margin.getLeft() + margin.getRight(),
+						limitFinder.getMaxY() + 1 + margin.getTop() + margin.getBottom());
+			}
 		}
 		return dimension;
 	}
 
+	// The drawing done to compute the dimension is recorded and replayed, instead
+	// of being done twice. Only the main back ends are concerned: the other ones
+	// may draw text blocks by themselves (see AtomText).
+	private boolean isRecordable() {
+		if (drawTwice)
+			return false;
+
+		final FileFormat format = fileFormatOption.getFileFormat();
+		return format == FileFormat.PNG || format == FileFormat.SVG;
+	}
+
+	private List<String> getBackEndProperties() {
+		if (fileFormatOption.getFileFormat() == FileFormat.SVG)
+			return Collections.singletonList("SVG");
+
+		return Collections.emptyList();
+	}
+
 	private UGraphic handwritten(UGraphic ug) {
 		if (skinParam != null && skinParam.handwritten())
 			return new UGraphicHandwritten(ug);
@@ -359,6 +402,7 @@ public class ImageBuilder {
 		option = option.withColorMapper(fileFormatOption.getColorMapper());
 		option = option.withLinkTarget(getSvgLinkTarget());
 		option = option.withFont(pragma.getValue("svgfont"));
+		option = option.withStreaming(fileFormatOption.isSvgStreaming());
 
 		if ("true".equalsIgnoreCase(pragma.getValue("svginteractive")))
 			option = option.withInteractive();
@@ -391,6 +435,7 @@ public class ImageBuilder {
 				scaleFactor, format);
 
 		ug.setBufferedImage(builder.getBufferedImage());
+		ug.setPngCompression(fileFormatOption.getPngCompression());
 		final BufferedImage im = ug.getBufferedImage();
 		if (this.backcolor instanceof HColorGradient)
 			ug.apply(this.backcolor.bg())
@@ -50,7 +50,9 @@ public class PixelImage implements MutableImage {
 	private final BufferedImage bufferedImageScale1;
 	private final double scale;
 	private final AffineTransformType type;
-	private BufferedImage cache = null;
+	// Volatile, as the scaled image may be shared between threads (see
+	// SpriteImageCache)
+	private volatile BufferedImage cache = null;
 
 	public PixelImage(BufferedImage bufferedImage, AffineTransformType type) {
 		this(bufferedImage, type, 1);
@@ -72,16 +74,20 @@ public class PixelImage implements MutableImage {
 		if (scale == 1)
 			return bufferedImageScale1;
 
-		if (cache == null) {
+		BufferedImage result = cache;
+		if (result == null) {
 			final int w = (int) Math.round(bufferedImageScale1.getWidth() * scale);
 			final int h = (int) Math.round(bufferedImageScale1.getHeight() * scale);
 			final BufferedImage after = new BufferedImage(w, h, bufferedImageScale1.getType());
 			final AffineTransform at = new AffineTransform();
 			at.scale(scale, scale);
 			final AffineTransformOp scaleOp = new AffineTransformOp(at, type.toLegacyInt());
-			this.cache = scaleOp.filter(bufferedImageScale1, after);
+			// Two threads may scale the same image, which is harmless: the field is
+			// only written once the image is complete
+			result = scaleOp.filter(bufferedImageScale1, after);
+			this.cache = result;
 		}
-		return cache;
+		return result;
 	}
 
 	@Override
@@ -36,14 +36,21 @@
 package net.sourceforge.plantuml;
 
 import static net.atmp.ImageBuilder.imageBuilder;
+import static net.atmp.ImageBuilder.plainImageBuilder;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import net.atmp.ImageBuilder;
 import net.sourceforge.plantuml.abel.DisplayPositioned;
 import net.sourceforge.plantuml.abel.DisplayPositionned;
+import net.sourceforge.plantuml.api.CancellationToken;
+import net.sourceforge.plantuml.api.ImageDataSimple;
+import net.sourceforge.plantuml.api.RenderCancelledException;
 import net.sourceforge.plantuml.command.Command;
 import net.sourceforge.plantuml.command.CommandExecutionResult;
 import net.sourceforge.plantuml.command.ProtectedCommand;
@@ -59,11 +66,16 @@ import net.sourceforge.plantuml.klimt.font.FontConfiguration;
 import net.sourceforge.plantuml.klimt.font.UFont;
 import net.sourceforge.plantuml.klimt.geom.HorizontalAlignment;
 import net.sourceforge.plantuml.klimt.geom.VerticalAlignment;
+import net.sourceforge.plantuml.klimt.shape.CachedDimension;
+import net.sourceforge.plantuml.klimt.shape.GraphicStrings;
 import net.sourceforge.plantuml.klimt.shape.UText;
+import net.sourceforge.plantuml.klimt.sprite.SpriteImageCache;
+import net.sourceforge.plantuml.security.SecurityUtils;
 import net.sourceforge.plantuml.stats.StatsUtilsIncrement;
 import net.sourceforge.plantuml.style.ClockwiseTopRightBottomLeft;
 import net.sourceforge.plantuml.text.BackSlash;
 import net.sourceforge.plantuml.utils.BlocLines;
+import net.sourceforge.plantuml.utils.Log;
 import net.sourceforge.plantuml.version.License;
 import net.sourceforge.plantuml.version.Version;
 
@@ -196,6 +208,7 @@ public abstract class AbstractPSystem implements Diagram {
 	final public ImageData exportDiagram(OutputStream os, int index, FileFormatOption fileFormatOption)
 			throws IOException {
 		final long now = System.currentTimeMillis();
+		final CancellationToken.Scope budget = installBudget(fileFormatOption);
 		try {
 //			if (this instanceof TitledDiagram) {
 //				final TitledDiagram titledDiagram = (TitledDiagram) this;
@@ -205,16 +218,55 @@ public abstract class AbstractPSystem implements Diagram {
 //				}
 //			}
 			return exportDiagramNow(os, index, fileFormatOption);
+		} catch (RenderCancelledException e) {
+			Log.info("Rendering cancelled: " + e.getMessage());
+			exportDiagramCancelled(os, e, fileFormatOption);
+			return ImageDataSimple.error(e);
 		} finally {
+			if (budget != null)
+				budget.close();
 			// ::comment when __CORE__
 			if (OptionFlags.getInstance().isEnableStats())
 				StatsUtilsIncrement.onceMoreGenerate(System.currentTimeMillis() - now, getClass(),
 						fileFormatOption.getFileFormat());
 
+			if (OptionFlags.getInstance().isVerbose()) {
+				Log.info("Font metrics cache: " + FileFormat.getMetricsCache().getStatistics());
+				Log.info("Text block dimensions: " + CachedDimension.getStatistics());
+				Log.info("Sprite images: " + SpriteImageCache.getStatistics());
+			}
+
 			// ::done
 		}
 	}
 
+	private void exportDiagramCancelled(OutputStream os, RenderCancelledException exception,
+			FileFormatOption fileFormat) throws IOException {
+		final List<String> strings = new ArrayList<>();
+		strings.add("Rendering of this diagram has been cancelled:");
+		strings.add(exception.getMessage());
+
+		// ::comment when __CORE__
+		if (fileFormat.getFileFormat() == FileFormat.ATXT || fileFormat.getFileFormat() == FileFormat.UTXT) {
+			final PrintWriter pw = SecurityUtils.createPrintWriter(os);
+			for (String s : strings)
+				pw.println(s);
+			pw.flush();
+			return;
+		}
+		// ::done
+
+		plainImageBuilder(GraphicStrings.createBlackOnWhite(strings), fileFormat).metadata(getMetadata()).seed(seed())
+				.write(os);
+	}
+
+	private static CancellationToken.Scope installBudget(FileFormatOption fileFormatOption) {
+		if (fileFormatOption.getTimeBudget() <= 0 && fileFormatOption.getMemoryBudget() <= 0)
+			return null;
+		return CancellationToken.create(fileFormatOption.getTimeBudget(), fileFormatOption.getMemoryBudget())
+				.install();
+	}
+
 	final public void setScale(Scale scale) {
 		this.scale = scale;
 	}
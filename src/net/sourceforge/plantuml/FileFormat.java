@@ -36,10 +36,8 @@
 package net.sourceforge.plantuml;
 
 import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 
@@ -47,6 +45,7 @@ import net.sourceforge.plantuml.braille.BrailleCharFactory;
 import net.sourceforge.plantuml.braille.UGraphicBraille;
 import net.sourceforge.plantuml.klimt.drawing.debug.StringBounderDebug;
 import net.sourceforge.plantuml.klimt.drawing.svg.SvgGraphics;
+import net.sourceforge.plantuml.klimt.font.FontMetricsCache;
 import net.sourceforge.plantuml.klimt.font.StringBounder;
 import net.sourceforge.plantuml.klimt.font.StringBounderRaw;
 import net.sourceforge.plantuml.klimt.font.UFont;
@@ -131,6 +130,14 @@ public enum FileFormat {
 		gg.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
 	}
 
+	// Measures through the (immutable) FontRenderContext of gg, so that render
+	// threads do not share gg itself
+	final static private FontMetricsCache metricsCache = new FontMetricsCache(gg.getFontRenderContext());
+
+	public static FontMetricsCache getMetricsCache() {
+		return metricsCache;
+	}
+
 	public StringBounder getDefaultStringBounder() {
 		return getDefaultStringBounder(TikzFontDistortion.getDefault(), SvgCharSizeHack.NO_HACK);
 	}
@@ -154,7 +161,7 @@ public enum FileFormat {
 	}
 
 	private StringBounder getSvgStringBounder(final SvgCharSizeHack charSizeHack) {
-		return new StringBounderRaw(FileFormat.gg.getFontRenderContext()) {
+		return new StringBounderRaw(metricsCache) {
 			public String toString() {
 				return "FileFormat::getSvgStringBounder";
 			}
@@ -172,7 +179,7 @@ public enum FileFormat {
 	}
 
 	private StringBounder getNormalStringBounder() {
-		return new StringBounderRaw(FileFormat.gg.getFontRenderContext()) {
+		return new StringBounderRaw(metricsCache) {
 			public String toString() {
 				return "FileFormat::getNormalStringBounder";
 			}
@@ -190,9 +197,7 @@ public enum FileFormat {
 
 	static private XDimension2D getJavaDimension(UFont font, String text) {
 		final Font javaFont = font.getUnderlayingFont(UFontContext.G2D);
-		final FontMetrics fm = gg.getFontMetrics(javaFont);
-		final Rectangle2D rect = fm.getStringBounds(text, gg);
-		return new XDimension2D(rect.getWidth(), rect.getHeight());
+		return metricsCache.getDimension(javaFont, text);
 	}
 
 	// ::comment when __CORE__
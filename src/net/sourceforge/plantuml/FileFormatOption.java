@@ -63,6 +63,10 @@ public final class FileFormatOption implements Serializable {
 	private final String preserveAspectRatio;
 	private final String watermark;
 	private final ColorMapper colorMapper;
+	private final boolean svgStreaming;
+	private final int pngCompression;
+	private final long timeBudget;
+	private final long memoryBudget;
 
 	public double getScaleCoef() {
 		return scale;
@@ -70,17 +74,18 @@ public final class FileFormatOption implements Serializable {
 
 	public FileFormatOption(FileFormat fileFormat) {
 		this(fileFormat, true, false, null, false, null, TikzFontDistortion.getDefault(), 1.0, null, null,
-				ColorMapper.IDENTITY);
+				ColorMapper.IDENTITY, false, -1, 0, 0);
 	}
 
 	public FileFormatOption(FileFormat fileFormat, boolean withMetadata) {
 		this(fileFormat, withMetadata, false, null, false, null, TikzFontDistortion.getDefault(), 1.0, null, null,
-				ColorMapper.IDENTITY);
+				ColorMapper.IDENTITY, false, -1, 0, 0);
 	}
 
 	private FileFormatOption(FileFormat fileFormat, boolean withMetadata, boolean useRedForError, String svgLinkTarget,
 			boolean debugsvek, String hoverColor, TikzFontDistortion tikzFontDistortion, double scale,
-			String preserveAspectRatio, String watermark, ColorMapper colorMapper) {
+			String preserveAspectRatio, String watermark, ColorMapper colorMapper, boolean svgStreaming,
+			int pngCompression, long timeBudget, long memoryBudget) {
 		this.hoverColor = hoverColor;
 		this.watermark = watermark;
 		this.fileFormat = fileFormat;
@@ -92,6 +97,10 @@ public final class FileFormatOption implements Serializable {
 		this.scale = scale;
 		this.preserveAspectRatio = preserveAspectRatio;
 		this.colorMapper = colorMapper;
+		this.svgStreaming = svgStreaming;
+		this.pngCompression = pngCompression;
+		this.timeBudget = timeBudget;
+		this.memoryBudget = memoryBudget;
 	}
 
 	public StringBounder getDefaultStringBounder(SvgCharSizeHack charSizeHack) {
@@ -112,42 +121,89 @@ public final class FileFormatOption implements Serializable {
 
 	public FileFormatOption withUseRedForError() {
 		return new FileFormatOption(fileFormat, withMetadata, true, svgLinkTarget, debugsvek, hoverColor,
-				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper);
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
 	}
 
 	public FileFormatOption withTikzFontDistortion(TikzFontDistortion tikzFontDistortion) {
 		return new FileFormatOption(fileFormat, withMetadata, true, svgLinkTarget, debugsvek, hoverColor,
-				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper);
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
 	}
 
 	public FileFormatOption withSvgLinkTarget(String svgLinkTarget) {
 		return new FileFormatOption(fileFormat, withMetadata, useRedForError, svgLinkTarget, debugsvek, hoverColor,
-				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper);
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
 	}
 
 	public FileFormatOption withPreserveAspectRatio(String preserveAspectRatio) {
 		return new FileFormatOption(fileFormat, withMetadata, useRedForError, svgLinkTarget, debugsvek, hoverColor,
-				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper);
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
 	}
 
 	public FileFormatOption withHoverColor(String hoverColor) {
 		return new FileFormatOption(fileFormat, withMetadata, useRedForError, svgLinkTarget, debugsvek, hoverColor,
-				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper);
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
 	}
 
 	public FileFormatOption withScale(double scale) {
 		return new FileFormatOption(fileFormat, withMetadata, useRedForError, svgLinkTarget, debugsvek, hoverColor,
-				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper);
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
 	}
 
 	public FileFormatOption withWartermark(String watermark) {
 		return new FileFormatOption(fileFormat, withMetadata, useRedForError, svgLinkTarget, debugsvek, hoverColor,
-				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper);
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
 	}
 
 	public FileFormatOption withColorMapper(ColorMapper colorMapper) {
 		return new FileFormatOption(fileFormat, withMetadata, useRedForError, svgLinkTarget, debugsvek, hoverColor,
-				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper);
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
+	}
+
+	/**
+	 * Write SVG directly to the output stream instead of building a DOM first.
+	 * The result is the same, but it needs far less memory on large diagrams.
+	 */
+	public FileFormatOption withSvgStreaming(boolean svgStreaming) {
+		return new FileFormatOption(fileFormat, withMetadata, useRedForError, svgLinkTarget, debugsvek, hoverColor,
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
+	}
+
+	/**
+	 * Compression level of PNG images, from 0 (fastest) to 9 (smallest), or -1
+	 * for the default level.
+	 */
+	public FileFormatOption withPngCompression(int pngCompression) {
+		return new FileFormatOption(fileFormat, withMetadata, useRedForError, svgLinkTarget, debugsvek, hoverColor,
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
+	}
+
+	/**
+	 * Maximum duration of the rendering in milliseconds, or 0 for no limit.
+	 * Layouts that go over it are stopped and an error image is produced.
+	 */
+	public FileFormatOption withTimeBudget(long timeBudget) {
+		return new FileFormatOption(fileFormat, withMetadata, useRedForError, svgLinkTarget, debugsvek, hoverColor,
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
+	}
+
+	/**
+	 * Maximum number of bytes allocated by the rendering, or 0 for no limit.
+	 */
+	public FileFormatOption withMemoryBudget(long memoryBudget) {
+		return new FileFormatOption(fileFormat, withMetadata, useRedForError, svgLinkTarget, debugsvek, hoverColor,
+				tikzFontDistortion, scale, preserveAspectRatio, watermark, colorMapper, svgStreaming, pngCompression,
+				timeBudget, memoryBudget);
 	}
 
 	@Override
@@ -198,4 +254,20 @@ public final class FileFormatOption implements Serializable {
 		return colorMapper;
 	}
 
+	public final boolean isSvgStreaming() {
+		return svgStreaming;
+	}
+
+	public final int getPngCompression() {
+		return pngCompression;
+	}
+
+	public final long getTimeBudget() {
+		return timeBudget;
+	}
+
+	public final long getMemoryBudget() {
+		return memoryBudget;
+	}
+
 }
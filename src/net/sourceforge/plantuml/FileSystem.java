@@ -36,6 +36,7 @@
 package net.sourceforge.plantuml;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 
 import net.sourceforge.plantuml.security.SFile;
 import net.sourceforge.plantuml.security.SecurityUtils;
@@ -129,4 +130,24 @@ public class FileSystem {
 		setCurrentDir(new SFile("."));
 	}
 
+	/**
+	 * Wraps a task so that it sees the current directory of the calling thread,
+	 * whatever thread runs it. The directory of the running thread is restored
+	 * afterwards.
+	 */
+	public <T> Callable<T> withCurrentDir(final Callable<T> task) {
+		final String dir = currentDir.get();
+		return new Callable<T>() {
+			public T call() throws Exception {
+				final String previous = currentDir.get();
+				currentDir.set(dir);
+				try {
+					return task.call();
+				} finally {
+					currentDir.set(previous);
+				}
+			}
+		};
+	}
+
 }
@@ -74,6 +74,8 @@ public class Option {
 	private String pipeDelimitor;
 	private boolean pipeMap = false;
 	private boolean pipeNoStdErr = false;
+	private int pipeThreads = 0;
+	private boolean pipeFramed = false;
 	private boolean syntax = false;
 	private boolean checkOnly = false;
 	// ::done
@@ -94,9 +96,17 @@ public class Option {
 	private String picowebBindAddress = null;
 	private int picowebPort = -1;
 	private boolean picowebEnableStop = false;
+	private int picowebThreads = 0;
+	private int picowebQueue = -1;
+	private boolean picowebVirtualThreads = false;
+	private int picowebCacheMB = -1;
+	private File picowebCacheDir = null;
 	private int stdrpt = 0;
 	private boolean hideMetadata = false;
+	private boolean svgStreaming = false;
+	private int pngCompression = -1;
 	private boolean checkMetadata = false;
+	private File cacheDir = null;
 	private String filename;
 	// ::done
 	private int imageIndex = 0;
@@ -319,6 +329,20 @@ public class Option {
 			} else if (s.equalsIgnoreCase("-pipenostderr")) {
 				pipeNoStdErr = true;
 
+			} else if (s.equalsIgnoreCase("-pipethreads")) {
+				i++;
+				if (i == arg.length)
+					continue;
+
+				final String nb = arg[i];
+				if ("auto".equalsIgnoreCase(nb))
+					this.pipeThreads = defaultNbThreads();
+				else if (nb.matches("\\d+"))
+					this.pipeThreads = Integer.parseInt(nb);
+
+			} else if (s.equalsIgnoreCase("-pipeframed")) {
+				pipeFramed = true;
+
 			} else if (s.equalsIgnoreCase("-syntax")) {
 				syntax = true;
 				OptionFlags.getInstance().setQuiet(true);
@@ -444,6 +468,17 @@ public class Option {
 			} else if (s.equalsIgnoreCase("-nometadata")) {
 				hideMetadata = true;
 
+			} else if (s.equalsIgnoreCase("-svgstreaming")) {
+				svgStreaming = true;
+
+			} else if (s.equalsIgnoreCase("-pngcompression")) {
+				i++;
+				if (i == arg.length)
+					continue;
+
+				if (arg[i].matches("\\d"))
+					pngCompression = Integer.parseInt(arg[i]);
+
 			} else if (s.equalsIgnoreCase("-preproc")) {
 				preprocessorOutput = OptionPreprocOutputMode.NORMAL;
 				setFileFormatOption(new FileFormatOption(FileFormat.PREPROC));
@@ -455,6 +490,13 @@ public class Option {
 			} else if (s.equalsIgnoreCase("-checkmetadata")) {
 				checkMetadata = true;
 
+			} else if (s.equalsIgnoreCase("-cachedir")) {
+				i++;
+				if (i == arg.length)
+					continue;
+
+				cacheDir = new File(StringUtils.eventuallyRemoveStartingAndEndingDoubleQuote(arg[i]));
+
 			} else if (s.equalsIgnoreCase("-stdrpt:1")) {
 				stdrpt = 1;
 
@@ -480,6 +522,43 @@ public class Option {
 				else
 					this.ftpPort = Integer.parseInt(s.substring(x + 1));
 
+			} else if (s.equalsIgnoreCase("-picowebthreads")) {
+				i++;
+				if (i == arg.length)
+					continue;
+
+				final String nb = arg[i];
+				if (nb.matches("\\d+") && Integer.parseInt(nb) > 0)
+					this.picowebThreads = Integer.parseInt(nb);
+
+			} else if (s.equalsIgnoreCase("-picowebqueue")) {
+				i++;
+				if (i == arg.length)
+					continue;
+
+				final String nb = arg[i];
+				if (nb.matches("\\d+"))
+					this.picowebQueue = Integer.parseInt(nb);
+
+			} else if (s.equalsIgnoreCase("-picowebvirtualthreads")) {
+				this.picowebVirtualThreads = true;
+
+			} else if (s.equalsIgnoreCase("-picowebcache")) {
+				i++;
+				if (i == arg.length)
+					continue;
+
+				final String nb = arg[i];
+				if (nb.matches("\\d+"))
+					this.picowebCacheMB = Integer.parseInt(nb);
+
+			} else if (s.equalsIgnoreCase("-picowebcachedir")) {
+				i++;
+				if (i == arg.length)
+					continue;
+
+				this.picowebCacheDir = new File(StringUtils.eventuallyRemoveStartingAndEndingDoubleQuote(arg[i]));
+
 			} else if (StringUtils.goLowerCase(s).startsWith("-picoweb")) {
 				final String[] parts = s.split(":");
 				this.picowebPort = parts.length > 1 ? Integer.parseInt(parts[1]) : 8080;
@@ -525,6 +604,26 @@ public class Option {
 	public boolean getPicowebEnableStop() {
 		return picowebEnableStop;
 	}
+
+	public int getPicowebThreads() {
+		return picowebThreads;
+	}
+
+	public int getPicowebQueue() {
+		return picowebQueue;
+	}
+
+	public boolean isPicowebVirtualThreads() {
+		return picowebVirtualThreads;
+	}
+
+	public int getPicowebCacheMB() {
+		return picowebCacheMB;
+	}
+
+	public File getPicowebCacheDir() {
+		return picowebCacheDir;
+	}
 	// ::done
 
 	private void addInConfig(BufferedReader br) throws IOException {
@@ -696,7 +795,14 @@ public class Option {
 		if (hideMetadata)
 			fileFormatOption.hideMetadata();
 
-		return fileFormatOption;
+		FileFormatOption result = fileFormatOption;
+		if (svgStreaming)
+			result = result.withSvgStreaming(true);
+
+		if (pngCompression != -1)
+			result = result.withPngCompression(pngCompression);
+
+		return result;
 	}
 	// ::done
 
@@ -783,10 +889,30 @@ public class Option {
 		return pipeNoStdErr;
 	}
 
+	public final int getPipeThreads() {
+		return pipeThreads;
+	}
+
+	public final void setPipeThreads(int nb) {
+		this.pipeThreads = nb;
+	}
+
+	public final boolean isPipeFramed() {
+		return pipeFramed;
+	}
+
+	public final void setPipeFramed(boolean pipeFramed) {
+		this.pipeFramed = pipeFramed;
+	}
+
 	public final boolean isCheckMetadata() {
 		return checkMetadata;
 	}
 
+	public final File getCacheDir() {
+		return cacheDir;
+	}
+
 	public final void setFilename(String filename) {
 		this.filename = filename;
 	}
@@ -88,6 +88,7 @@ public class OptionPrint {
 		final char separator = SFile.separatorChar;
 		System.out.println("where options include:");
 		System.out.println("    -author[s]\t\tTo print information about PlantUML authors");
+		System.out.println("    -cachedir \"dir\"\tTo reuse the images generated by previous runs, cached in a directory");
 		System.out.println("    -checkmetadata\t\tSkip PNG files that don't need to be regenerated");
 		System.out.println("    -checkonly\t\tTo check the syntax of files without generating images");
 		System.out.println("    -charset xxx\tTo use a specific charset (default is " + charset + ")");
@@ -126,7 +127,15 @@ public class OptionPrint {
 		System.out.println("    -Ppragma1=value\tTo set pragma as if '!pragma pragma1 value' were used");
 		System.out.println("    -p[ipe]\t\tTo use stdin for PlantUML source and stdout for PNG/SVG/EPS generation");
 		System.out.println("    -picoweb\t\tTo start internal HTTP Server. See https://plantuml.com/picoweb");
+		System.out.println("    -picowebthreads N\tTo use (N) worker threads for the HTTP Server");
+		System.out.println("    -picowebqueue N\tTo answer 503 when (N) connections are already waiting");
+		System.out.println("    -picowebvirtualthreads\tTo use virtual threads for the HTTP Server (Java 21+)");
+		System.out.println("    -picowebcache N\tTo keep up to (N) MB of rendered images in the HTTP Server (0 to disable)");
+		System.out.println("    -picowebcachedir \"dir\"\tTo spill images evicted from the HTTP Server cache to a directory");
+		System.out.println("    -pipeframed\t\tTo prefix the output of each diagram with its length (4 bytes, big-endian) with pipe option");
 		System.out.println("    -pipeimageindex N\tTo generate the Nth image with pipe option");
+		System.out.println("    -pipethreads N\tTo render (N) diagrams in parallel with pipe option, keeping the input order");
+		System.out.println("    -pngcompression N\tTo set the compression of PNG images, from 0 (fastest) to 9 (smallest)");
 		System.out.println("    -preproc\t\tTo output preprocessor text of diagrams");
 		System.out.println("    -printfonts\t\tTo print fonts available on your system");
 		System.out.println("    -progress\t\tTo display a textual progress bar in console");
@@ -135,6 +144,7 @@ public class OptionPrint {
 		System.out.println("    -Sparam1=value\tTo set a skin parameter as if 'skinparam param1 value' were used");
 		System.out.println("    -splash\t\tTo display a splash screen with some progress bar");
 		System.out.println("    -stdlib\t\tTo print standard library info");
+		System.out.println("    -svgstreaming\tTo write SVG images directly, without building a DOM in memory");
 		System.out.println("    -syntax\t\tTo report any syntax error from standard input without generating images");
 		System.out.println("    -testdot\t\tTo test the installation of graphviz");
 		System.out.println("    -theme xxx\t\tTo use a specific theme");
@@ -51,6 +51,7 @@ import net.sourceforge.plantuml.bpm.BpmDiagramFactory;
 import net.sourceforge.plantuml.cheneer.ChenEerDiagramFactory;
 import net.sourceforge.plantuml.chronology.ChronologyDiagramFactory;
 import net.sourceforge.plantuml.classdiagram.ClassDiagramFactory;
+import net.sourceforge.plantuml.command.PSystemCommandFactory;
 import net.sourceforge.plantuml.core.Diagram;
 import net.sourceforge.plantuml.core.DiagramType;
 import net.sourceforge.plantuml.core.UmlSource;
@@ -92,6 +93,7 @@ import net.sourceforge.plantuml.nwdiag.NwDiagramFactory;
 import net.sourceforge.plantuml.openiconic.PSystemListOpenIconicFactory;
 import net.sourceforge.plantuml.openiconic.PSystemOpenIconicFactory;
 import net.sourceforge.plantuml.oregon.PSystemOregonFactory;
+import net.sourceforge.plantuml.preproc.IncludeCache;
 import net.sourceforge.plantuml.project.GanttDiagramFactory;
 import net.sourceforge.plantuml.regex.RegexConcat;
 import net.sourceforge.plantuml.regexdiagram.PSystemRegexFactory;
@@ -103,6 +105,7 @@ import net.sourceforge.plantuml.statediagram.StateDiagramFactory;
 import net.sourceforge.plantuml.stats.StatsUtilsIncrement;
 import net.sourceforge.plantuml.sudoku.PSystemSudokuFactory;
 import net.sourceforge.plantuml.text.StringLocated;
+import net.sourceforge.plantuml.tim.expression.CompiledExpressionCache;
 import net.sourceforge.plantuml.timingdiagram.TimingDiagramFactory;
 import net.sourceforge.plantuml.utils.Log;
 import net.sourceforge.plantuml.version.PSystemLicenseFactory;
@@ -116,7 +119,8 @@ import net.sourceforge.plantuml.yaml.YamlDiagramFactory;
  *
  * <p>
  * Tries each of the factories (enumerated in the static block below) until one
- * succeeds.
+ * succeeds. Factories that are certain to fail are skipped, see
+ * {@link PSystemFactorySniffer}.
  *
  * @see AbstractPSystem
  */
@@ -152,19 +156,49 @@ public class PSystemBuilder {
 			if (diagramType == DiagramType.UNKNOWN)
 				return new PSystemUnsupported(umlSource);
 
+			final long signature = PSystemFactorySniffer.signature(diagramType, source);
+			Class<? extends PSystemFactory> guess = PSystemFactorySniffer.guess(signature, source);
+
+			// Factories that cannot possibly accept the source are only matched, not
+			// executed: failing on a late line of a big diagram is expensive. The guessed
+			// factory is run straight away, as it is probably the one that succeeds.
+			final List<PSystemFactory> tried = new ArrayList<>();
 			final List<PSystemError> errors = new ArrayList<>();
+			boolean skipped = false;
 			for (PSystemFactory systemFactory : factories) {
 				if (diagramType != systemFactory.getDiagramType())
 					continue;
 
+				if (systemFactory instanceof PSystemCommandFactory) {
+					if (guess == null)
+						guess = systemFactory.getClass();
+					else if (guess != systemFactory.getClass()
+							&& ((PSystemCommandFactory) systemFactory).hasSyntaxError(umlSource)) {
+						skipped = true;
+						tried.add(systemFactory);
+						errors.add(null);
+						continue;
+					}
+				}
+
 				// WasmLog.log("...trying " + systemFactory.getClass().getName() + " ...");
 				final Diagram sys = systemFactory.createSystem(umlSource, skinParam);
 				if (isOk(sys)) {
+					PSystemFactorySniffer.recordWinner(signature, systemFactory);
 					result = sys;
 					return sys;
 				}
+				tried.add(systemFactory);
 				errors.add((PSystemError) sys);
 			}
+			if (skipped) {
+				// Every factory has failed: run the skipped ones too (in their slot), so that
+				// the reported error is the same as the one of a full pass
+				for (int i = 0; i < tried.size(); i++)
+					if (errors.get(i) == null)
+						errors.set(i, (PSystemError) tried.get(i).createSystem(umlSource, skinParam));
+
+			}
 			if (errors.size() == 0)
 				return new PSystemUnsupported(umlSource);
 
@@ -178,6 +212,10 @@ public class PSystemBuilder {
 			}
 			Log.info("Compilation duration " + (System.currentTimeMillis() - now));
 			RegexConcat.printCacheInfo();
+			if (OptionFlags.getInstance().isVerbose()) {
+				Log.info(CompiledExpressionCache.getInstance().getStatistics());
+				Log.info(IncludeCache.getInstance().getStatistics());
+			}
 			// ::done
 		}
 	}
@@ -0,0 +1,152 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ *
+ */
+package net.sourceforge.plantuml;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sourceforge.plantuml.activitydiagram3.ActivityDiagramFactory3;
+import net.sourceforge.plantuml.api.PSystemFactory;
+import net.sourceforge.plantuml.classdiagram.ClassDiagramFactory;
+import net.sourceforge.plantuml.core.DiagramType;
+import net.sourceforge.plantuml.descdiagram.DescriptionDiagramFactory;
+import net.sourceforge.plantuml.sequencediagram.SequenceDiagramFactory;
+import net.sourceforge.plantuml.statediagram.StateDiagramFactory;
+import net.sourceforge.plantuml.text.StringLocated;
+import net.sourceforge.plantuml.timingdiagram.TimingDiagramFactory;
+
+/**
+ * Guesses which factory is going to accept a diagram source.
+ *
+ * <p>
+ * The guess is only a hint for {@link PSystemBuilder}: a wrong guess costs time
+ * but never changes which diagram is built. It comes from the factory that won
+ * the last time the very same source was parsed, or else from a few keywords
+ * that only make sense in one kind of diagram.
+ */
+final class PSystemFactorySniffer {
+	// ::remove file when __HAXE__
+
+	private static final int MAX_LINES = 200;
+	private static final int MAX_WINNERS = 1024;
+
+	private static final Map<String, Class<? extends PSystemFactory>> keywords = new HashMap<>();
+
+	static {
+		register(SequenceDiagramFactory.class, "participant", "activate", "deactivate", "autonumber", "destroy",
+				"alt", "opt", "loop", "par", "critical", "ref", "hnote", "rnote", "newpage");
+		register(ClassDiagramFactory.class, "class", "interface", "abstract", "enum", "annotation", "struct",
+				"protocol");
+		register(DescriptionDiagramFactory.class, "usecase", "component", "node", "artifact", "cloud", "folder",
+				"frame", "rectangle", "storage", "card", "agent", "person", "hexagon", "port", "portin", "portout");
+		register(StateDiagramFactory.class, "state");
+		register(ActivityDiagramFactory3.class, "start", "stop", "endif", "repeat", "endwhile", "fork", "partition",
+				"detach", "kill", "split", "switch", "endswitch");
+		register(TimingDiagramFactory.class, "robust", "concise", "clock", "binary", "analog");
+	}
+
+	private static void register(Class<? extends PSystemFactory> factory, String... words) {
+		for (String word : words)
+			keywords.put(word, factory);
+	}
+
+	// Source signature -> factory that built it last time
+	private static final Map<Long, Class<? extends PSystemFactory>> winners = new ConcurrentHashMap<>();
+
+	private PSystemFactorySniffer() {
+	}
+
+	static long signature(DiagramType type, List<StringLocated> source) {
+		long result = type.ordinal();
+		for (StringLocated s : source)
+			result = (result ^ s.getString().hashCode()) * 0x100000001B3L;
+
+		return result;
+	}
+
+	/**
+	 * @return the factory to try first, or <code>null</code> if there is no clue
+	 */
+	static Class<? extends PSystemFactory> guess(long signature, List<StringLocated> source) {
+		final Class<? extends PSystemFactory> winner = winners.get(signature);
+		if (winner != null)
+			return winner;
+
+		final Map<Class<? extends PSystemFactory>, Integer> scores = new HashMap<>();
+		Class<? extends PSystemFactory> result = null;
+		int best = 0;
+		final int nb = Math.min(source.size(), MAX_LINES);
+		for (int i = 1; i < nb; i++) {
+			final Class<? extends PSystemFactory> factory = keywords.get(firstWord(source.get(i).getString()));
+			if (factory == null)
+				continue;
+
+			final Integer previous = scores.get(factory);
+			final int score = previous == null ? 1 : previous + 1;
+			scores.put(factory, score);
+			if (score > best) {
+				best = score;
+				result = factory;
+			}
+		}
+		return result;
+	}
+
+	static void recordWinner(long signature, PSystemFactory factory) {
+		if (winners.size() >= MAX_WINNERS)
+			winners.clear();
+
+		winners.put(signature, factory.getClass());
+	}
+
+	private static String firstWord(String line) {
+		int start = 0;
+		while (start < line.length() && Character.isWhitespace(line.charAt(start)))
+			start++;
+
+		int end = start;
+		while (end < line.length() && Character.isLetter(line.charAt(end)))
+			end++;
+
+		if (end == start || end - start > 12)
+			return null;
+
+		return line.substring(start, end).toLowerCase();
+	}
+
+}
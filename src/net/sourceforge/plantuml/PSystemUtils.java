@@ -43,6 +43,8 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
 
 import net.atmp.CucaDiagram;
 import net.sourceforge.plantuml.core.Diagram;
@@ -96,32 +98,70 @@ public class PSystemUtils {
 		return exportDiagramsDefault(system, suggestedFile, fileFormatOption);
 	}
 
-	private static List<FileImageData> exportDiagramsNewpaged(NewpagedDiagram system, SuggestedFile suggestedFile,
-			FileFormatOption fileFormat) throws IOException {
-		final List<FileImageData> result = new ArrayList<>();
+	private static List<FileImageData> exportDiagramsNewpaged(final NewpagedDiagram system,
+			SuggestedFile suggestedFile, final FileFormatOption fileFormat) throws IOException {
 		final int nbImages = system.getNbImages();
+		if (nbImages > 1 && ForkJoinTask.inForkJoinPool())
+			return exportDiagramsNewpagedInParallel(system, suggestedFile, fileFormat, nbImages);
+
+		final List<FileImageData> result = new ArrayList<>();
 		for (int i = 0; i < nbImages; i++) {
 
 			final SFile f = suggestedFile.getFile(i);
 			if (canFileBeWritten(f) == false)
 				return result;
 
-			final OutputStream fos = f.createBufferedOutputStream();
-			ImageData cmap = null;
+			result.add(exportPage(system, i, f, fileFormat));
+		}
+		return result;
+	}
+
+	// Pages are independent diagrams, so they can be drawn at the same time
+	private static List<FileImageData> exportDiagramsNewpagedInParallel(final NewpagedDiagram system,
+			SuggestedFile suggestedFile, final FileFormatOption fileFormat, int nbImages) throws IOException {
+		final List<ForkJoinTask<FileImageData>> tasks = new ArrayList<>();
+		for (int i = 0; i < nbImages; i++) {
+			final SFile f = suggestedFile.getFile(i);
+			if (canFileBeWritten(f) == false)
+				break;
+
+			final int num = i;
+			tasks.add(ForkJoinTask.adapt(FileSystem.getInstance().withCurrentDir(new Callable<FileImageData>() {
+				public FileImageData call() throws IOException {
+					return exportPage(system, num, f, fileFormat);
+				}
+			})).fork());
+		}
+		final List<FileImageData> result = new ArrayList<>();
+		for (ForkJoinTask<FileImageData> task : tasks)
 			try {
-				system.exportDiagram(fos, i, fileFormat);
-			} finally {
-				fos.close();
+				result.add(task.join());
+			} catch (RuntimeException e) {
+				if (e.getCause() instanceof IOException)
+					throw (IOException) e.getCause();
+
+				throw e;
 			}
-			// if (system.hasUrl() && cmap != null && cmap.containsCMapData()) {
-			// system.exportCmap(suggestedFile, cmap);
-			// }
-			Log.info("File size : " + f.length());
-			result.add(new FileImageData(f, cmap));
-		}
+
 		return result;
 	}
 
+	private static FileImageData exportPage(NewpagedDiagram system, int num, SFile f, FileFormatOption fileFormat)
+			throws IOException {
+		final OutputStream fos = f.createBufferedOutputStream();
+		ImageData cmap = null;
+		try {
+			system.exportDiagram(fos, num, fileFormat);
+		} finally {
+			fos.close();
+		}
+		// if (system.hasUrl() && cmap != null && cmap.containsCMapData()) {
+		// system.exportCmap(suggestedFile, cmap);
+		// }
+		Log.info("File size : " + f.length());
+		return new FileImageData(f, cmap);
+	}
+
 	public static boolean canFileBeWritten(final SFile f) {
 		Log.info("Creating file: " + f.getAbsolutePath());
 		if (f.exists() && f.canWrite() == false) {
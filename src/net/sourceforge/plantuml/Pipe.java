@@ -39,14 +39,27 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -78,34 +91,162 @@ public class Pipe {
 	}
 
 	public void managePipe(ErrorStatus error) throws IOException {
-		final boolean noStdErr = option.isPipeNoStdErr();
+		if (option.getPipeThreads() > 1) {
+			managePipeConcurrently(error, option.getPipeThreads());
+			return;
+		}
 
 		for (String source = readFirstDiagram(); source != null; source = readSubsequentDiagram()) {
-			final Defines defines = option.getDefaultDefines();
-			final SFile newCurrentDir = option.getFileDir() == null ? null : new SFile(option.getFileDir());
-			final SourceStringReader sourceStringReader = new SourceStringReader(defines, source, UTF_8,
-					option.getConfig(), newCurrentDir);
-
-			if (option.isComputeurl())
-				computeUrlForDiagram(sourceStringReader);
-			else if (option.isSyntax())
-				syntaxCheckDiagram(sourceStringReader, error);
-			else if (option.isPipeMap())
-				createPipeMapForDiagram(sourceStringReader, error);
-			else
-				generateDiagram(sourceStringReader, error, noStdErr);
-
+			if (option.isPipeFramed()) {
+				final Result result = render(source, option.getFileFormatOption(), error);
+				writeResult(result);
+			} else {
+				manageDiagram(source, option.getFileFormatOption(), ps, System.err, error);
+			}
 			ps.flush();
 		}
 	}
 
-	private void generateDiagram(SourceStringReader sourceStringReader, ErrorStatus error, boolean noStdErr)
-			throws IOException {
-		final OutputStream os = noStdErr ? new ByteArrayOutputStream() : ps;
+	/**
+	 * Reads ahead and renders up to <code>nbThreads</code> diagrams in parallel.
+	 * Results are written by a dedicated thread as soon as they are ready, in
+	 * input order, so that a caller waiting for an image before sending the next
+	 * diagram is never blocked.
+	 */
+	private void managePipeConcurrently(final ErrorStatus error, int nbThreads) throws IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(nbThreads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable runnable) {
+				final Thread thread = new Thread(runnable, "pipe-render-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		final BlockingQueue<Future<Result>> pending = new ArrayBlockingQueue<>(2 * nbThreads);
+		final Future<Result> end = new FutureTask<>(new Callable<Result>() {
+			public Result call() {
+				return null;
+			}
+		});
+		final AtomicReference<Exception> failure = new AtomicReference<>();
+		final Thread writer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					for (Future<Result> future = pending.take(); future != end; future = pending.take())
+						writeResult(future.get());
+
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException | IOException e) {
+					failure.compareAndSet(null, e);
+					drain(pending, end);
+				}
+			}
+		}, "pipe-writer");
+		writer.setDaemon(true);
+		writer.start();
+
+		try {
+			for (String source = readFirstDiagram(); source != null
+					&& failure.get() == null; source = readSubsequentDiagram()) {
+				final String current = source;
+				final FileFormatOption fileFormatOption = option.getFileFormatOption();
+				pending.put(executor.submit(new Callable<Result>() {
+					public Result call() throws IOException {
+						return render(current, fileFormatOption, error);
+					}
+				}));
+			}
+			pending.put(end);
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		final Exception e = failure.get();
+		if (e == null)
+			return;
+
+		final Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+		if (cause instanceof IOException)
+			throw (IOException) cause;
+		if (cause instanceof RuntimeException)
+			throw (RuntimeException) cause;
+		if (cause instanceof Error)
+			throw (Error) cause;
+		throw new IOException(cause);
+	}
+
+	private static void drain(BlockingQueue<Future<Result>> pending, Future<Result> end) {
+		try {
+			for (Future<Result> future = pending.take(); future != end; future = pending.take())
+				future.cancel(true);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	static class Result {
+		private final byte[] out;
+		private final byte[] err;
+
+		Result(byte[] out, byte[] err) {
+			this.out = out;
+			this.err = err;
+		}
+	}
+
+	private Result render(String source, FileFormatOption fileFormatOption, ErrorStatus error) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ByteArrayOutputStream err = new ByteArrayOutputStream();
+		try (PrintStream psOut = new PrintStream(out); PrintStream psErr = new PrintStream(err)) {
+			manageDiagram(source, fileFormatOption, psOut, psErr, error);
+		}
+		return new Result(out.toByteArray(), err.toByteArray());
+	}
+
+	private void writeResult(Result result) throws IOException {
+		if (result.err.length > 0) {
+			System.err.write(result.err);
+			System.err.flush();
+		}
+		if (option.isPipeFramed())
+			new DataOutputStream(ps).writeInt(result.out.length);
+
+		ps.write(result.out);
+		ps.flush();
+	}
+
+	private void manageDiagram(String source, FileFormatOption fileFormatOption, PrintStream out, PrintStream err,
+			ErrorStatus error) throws IOException {
+		final Defines defines = option.getDefaultDefines();
+		final SFile newCurrentDir = option.getFileDir() == null ? null : new SFile(option.getFileDir());
+		final SourceStringReader sourceStringReader = new SourceStringReader(defines, source, UTF_8,
+				option.getConfig(), newCurrentDir);
+
+		if (option.isComputeurl())
+			computeUrlForDiagram(sourceStringReader, out);
+		else if (option.isSyntax())
+			syntaxCheckDiagram(sourceStringReader, error, out);
+		else if (option.isPipeMap())
+			createPipeMapForDiagram(sourceStringReader, error, fileFormatOption, out);
+		else
+			generateDiagram(sourceStringReader, error, fileFormatOption, out, err);
+
+	}
+
+	private void generateDiagram(SourceStringReader sourceStringReader, ErrorStatus error,
+			FileFormatOption fileFormatOption, PrintStream out, PrintStream err) throws IOException {
+		final boolean noStdErr = option.isPipeNoStdErr();
+		final OutputStream os = noStdErr ? new ByteArrayOutputStream() : out;
 		final DiagramDescription result = sourceStringReader.outputImage(os, option.getImageIndex(),
-				option.getFileFormatOption());
+				fileFormatOption);
 
-		printInfo(noStdErr ? ps : System.err, sourceStringReader);
+		printInfo(noStdErr ? out : err, sourceStringReader);
 		if (result != null && "(error)".equalsIgnoreCase(result.getDescription())) {
 			error.goWithError();
 		} else {
@@ -113,47 +254,49 @@ public class Pipe {
 			if (noStdErr) {
 				final ByteArrayOutputStream baos = (ByteArrayOutputStream) os;
 				baos.close();
-				ps.write(baos.toByteArray());
+				out.write(baos.toByteArray());
 			}
 		}
-		if (option.getPipeDelimitor() != null)
-			ps.println(option.getPipeDelimitor());
+		// With framing, the length replaces the delimitor
+		if (option.getPipeDelimitor() != null && option.isPipeFramed() == false)
+			out.println(option.getPipeDelimitor());
 
 	}
 
-	private void createPipeMapForDiagram(SourceStringReader sourceStringReader, ErrorStatus error) throws IOException {
-		final String result = sourceStringReader.getCMapData(option.getImageIndex(), option.getFileFormatOption());
+	private void createPipeMapForDiagram(SourceStringReader sourceStringReader, ErrorStatus error,
+			FileFormatOption fileFormatOption, PrintStream out) throws IOException {
+		final String result = sourceStringReader.getCMapData(option.getImageIndex(), fileFormatOption);
 		// https://forum.plantuml.net/10049/2019-pipemap-diagrams-containing-links-give-zero-exit-code
 		// We don't check errors
 		error.goOk();
 		if (result == null) {
 //			final CMapData empty = new CMapData();
 //			ps.println(empty.asString("plantuml"));
-			ps.println();
+			out.println();
 		} else
-			ps.println(result);
+			out.println(result);
 
 	}
 
-	private void computeUrlForDiagram(SourceStringReader sourceStringReader) throws IOException {
+	private void computeUrlForDiagram(SourceStringReader sourceStringReader, PrintStream out) throws IOException {
 		for (BlockUml s : sourceStringReader.getBlocks())
-			ps.println(s.getEncodedUrl());
+			out.println(s.getEncodedUrl());
 
 	}
 
-	private void syntaxCheckDiagram(SourceStringReader sourceStringReader, ErrorStatus error) {
+	private void syntaxCheckDiagram(SourceStringReader sourceStringReader, ErrorStatus error, PrintStream out) {
 		final Diagram system = sourceStringReader.getBlocks().get(0).getDiagram();
 		if (system instanceof UmlDiagram) {
 			error.goOk();
-			ps.println(((UmlDiagram) system).getUmlDiagramType().name());
-			ps.println(system.getDescription());
+			out.println(((UmlDiagram) system).getUmlDiagramType().name());
+			out.println(system.getDescription());
 		} else if (system instanceof PSystemError) {
 			error.goWithError();
-			stdrpt.printInfo(ps, system);
+			stdrpt.printInfo(out, system);
 		} else {
 			error.goOk();
-			ps.println("OTHER");
-			ps.println(system.getDescription());
+			out.println("OTHER");
+			out.println(system.getDescription());
 		}
 	}
 
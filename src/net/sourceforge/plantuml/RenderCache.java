@@ -0,0 +1,237 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ *
+ */
+package net.sourceforge.plantuml;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sourceforge.plantuml.core.Diagram;
+import net.sourceforge.plantuml.dot.GraphvizUtils;
+import net.sourceforge.plantuml.file.SuggestedFile;
+import net.sourceforge.plantuml.log.Logme;
+import net.sourceforge.plantuml.security.SFile;
+import net.sourceforge.plantuml.text.StringLocated;
+import net.sourceforge.plantuml.utils.Log;
+import net.sourceforge.plantuml.utils.SignatureUtils;
+import net.sourceforge.plantuml.version.Version;
+
+/**
+ * On-disk cache of the images generated from source files, shared by
+ * successive command line runs (see the <code>-cachedir</code> option).
+ * <p>
+ * Entries are keyed by the preprocessed source of the block, so that a change
+ * in an included file is seen, by the output format and its options, and by
+ * the PlantUML and Graphviz versions. When a key is found, the images are
+ * copied from the cache instead of being generated again; files that already
+ * hold the right content are left untouched.
+ * <p>
+ * Only the simple cases are stored: diagrams without error, one file per page,
+ * and no side file such as a cmapx. Resources read during the drawing itself
+ * (<code>&lt;img&gt;</code> files for instance) are not part of the key.
+ */
+public class RenderCache {
+	// ::remove file when __CORE__
+	// ::remove file when __HAXE__
+
+	private final File dir;
+
+	public RenderCache(File dir) {
+		this.dir = dir;
+		dir.mkdirs();
+	}
+
+	public List<FileImageData> exportDiagrams(BlockUml blockUml, Diagram system, SuggestedFile suggested,
+			FileFormatOption fileFormatOption, boolean checkMetadata) throws IOException {
+		final String key = getKey(blockUml, fileFormatOption);
+		final List<FileImageData> cached = restore(key, suggested);
+		if (cached != null)
+			return cached;
+
+		final List<FileImageData> result = PSystemUtils.exportDiagrams(system, suggested, fileFormatOption,
+				checkMetadata);
+		if (isStorable(result, suggested, fileFormatOption))
+			store(key, result);
+
+		return result;
+	}
+
+	static String getKey(BlockUml blockUml, FileFormatOption fileFormatOption) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(Version.versionString()).append('\n');
+		sb.append(Version.compileTime()).append('\n');
+		sb.append(getDotVersion()).append('\n');
+		sb.append(fileFormatOption.getFileFormat()).append('\n');
+		sb.append(fileFormatOption.isWithMetadata()).append('\n');
+		sb.append(fileFormatOption.isUseRedForError()).append('\n');
+		sb.append(fileFormatOption.isDebugSvek()).append('\n');
+		sb.append(fileFormatOption.getSvgLinkTarget()).append('\n');
+		sb.append(fileFormatOption.getHoverColor()).append('\n');
+		sb.append(fileFormatOption.getTikzFontDistortion()).append('\n');
+		sb.append(fileFormatOption.getScaleCoef()).append('\n');
+		sb.append(fileFormatOption.getPreserveAspectRatio()).append('\n');
+		sb.append(fileFormatOption.getWatermark()).append('\n');
+		sb.append(fileFormatOption.getColorMapper().getClass().getName()).append('\n');
+		sb.append(fileFormatOption.getPngCompression()).append('\n');
+		for (StringLocated s : blockUml.getData())
+			sb.append(s.getString()).append('\n');
+
+		return SignatureUtils.getSHA512Hex(sb.toString());
+	}
+
+	private static String getDotVersion() {
+		// Images made without Graphviz (or with another one) must not be reused
+		try {
+			return GraphvizUtils.dotVersion();
+		} catch (IOException | InterruptedException e) {
+			return "Error:" + e;
+		}
+	}
+
+	private static boolean isStorable(List<FileImageData> result, SuggestedFile suggested,
+			FileFormatOption fileFormatOption) {
+		if (result.size() == 0 || fileFormatOption.getFileFormat() == FileFormat.HTML)
+			return false;
+
+		for (int i = 0; i < result.size(); i++) {
+			final FileImageData fdata = result.get(i);
+			// No image data means that the file was skipped (see -checkmetadata)
+			if (fdata.getImageData() == null || fdata.getImageData().containsCMapData()
+					|| fdata.getStatus() != 0)
+				return false;
+
+			if (suggested.getFile(i).equals(fdata.getFile()) == false || fdata.getFile().exists() == false)
+				return false;
+		}
+		return true;
+	}
+
+	private File entryFile(String key) {
+		return new File(dir, key.substring(0, 40) + ".cache");
+	}
+
+	private void store(String key, List<FileImageData> result) {
+		final File file = entryFile(key);
+		final File tmp = new File(dir, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+		try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(tmp))) {
+			dos.writeUTF(key);
+			dos.writeInt(result.size());
+			for (FileImageData fdata : result) {
+				final byte[] data = readAll(fdata.getFile().conv());
+				dos.writeInt(data.length);
+				dos.write(data);
+			}
+		} catch (IOException e) {
+			Logme.error(e);
+			tmp.delete();
+			return;
+		}
+		file.delete();
+		if (tmp.renameTo(file) == false)
+			tmp.delete();
+	}
+
+	private List<FileImageData> restore(String key, SuggestedFile suggested) {
+		final File file = entryFile(key);
+		if (file.exists() == false)
+			return null;
+
+		final List<byte[]> images = new ArrayList<>();
+		try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+			// Protects against the (unlikely) collision of two keys
+			if (dis.readUTF().equals(key) == false)
+				return null;
+
+			final int nb = dis.readInt();
+			for (int i = 0; i < nb; i++) {
+				final byte[] data = new byte[dis.readInt()];
+				dis.readFully(data);
+				images.add(data);
+			}
+		} catch (IOException e) {
+			Logme.error(e);
+			file.delete();
+			return null;
+		}
+
+		Log.info("Reusing " + file.getName() + " from the render cache");
+		final List<FileImageData> result = new ArrayList<>();
+		for (int i = 0; i < images.size(); i++) {
+			final SFile f = suggested.getFile(i);
+			if (hasContent(f, images.get(i)) == false) {
+				if (PSystemUtils.canFileBeWritten(f) == false)
+					return result;
+
+				try (OutputStream os = f.createBufferedOutputStream()) {
+					os.write(images.get(i));
+				} catch (IOException e) {
+					Logme.error(e);
+					return null;
+				}
+			}
+			result.add(new FileImageData(f, null));
+		}
+		return result;
+	}
+
+	private static boolean hasContent(SFile f, byte[] data) {
+		if (f.exists() == false || f.length() != data.length)
+			return false;
+
+		try {
+			return Arrays.equals(readAll(f.conv()), data);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static byte[] readAll(File file) throws IOException {
+		final byte[] result = new byte[(int) file.length()];
+		try (InputStream is = new FileInputStream(file)) {
+			new DataInputStream(is).readFully(result);
+		}
+		return result;
+	}
+
+}
@@ -46,10 +46,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
 
 import javax.swing.UIManager;
@@ -336,8 +338,15 @@ public class Run {
 	}
 
 	private static void goPicoweb(Option option) throws IOException {
+		final int nbThreads = option.getPicowebThreads() > 0 ? option.getPicowebThreads()
+				: PicoWebServer.defaultNbThreads();
+		final int queueSize = option.getPicowebQueue() >= 0 ? option.getPicowebQueue()
+				: PicoWebServer.DEFAULT_QUEUE_SIZE;
+		final long cacheSize = option.getPicowebCacheMB() >= 0 ? option.getPicowebCacheMB() * 1024L * 1024L
+				: PicoWebServer.DEFAULT_CACHE_SIZE;
 		PicoWebServer.startServer(option.getPicowebPort(), option.getPicowebBindAddress(),
-				option.getPicowebEnableStop());
+				option.getPicowebEnableStop(), nbThreads, queueSize, option.isPicowebVirtualThreads(), cacheSize,
+				option.getPicowebCacheDir());
 	}
 
 	public static void printFonts() {
@@ -380,6 +389,7 @@ public class Run {
 	private static void processArgs(Option option, ErrorStatus error)
 			throws NoPlantumlCompressionException, InterruptedException {
 		if (option.isDecodeurl() == false && option.getNbThreads() > 1 && option.isCheckOnly() == false
+				&& option.isComputeurl() == false && option.getPreprocessorOutputMode() == null
 				&& OptionFlags.getInstance().isExtractFromMetadata() == false) {
 			multithread(option, error);
 			return;
@@ -414,34 +424,94 @@ public class Run {
 
 	private static void multithread(final Option option, final ErrorStatus error) throws InterruptedException {
 		Log.info("Using several threads: " + option.getNbThreads());
-		final ExecutorService executor = Executors.newFixedThreadPool(option.getNbThreads());
+		final long start = System.currentTimeMillis();
+		final ForkJoinPool pool = new ForkJoinPool(option.getNbThreads());
 
-		int nb = 0;
+		final List<File> files = new ArrayList<>();
 		for (String s : option.getResult()) {
 			final FileGroup group = new FileGroup(s, option.getExcludes(), option);
-			for (final File f : group.getFiles()) {
-				incTotal(1);
-				nb++;
-				executor.submit(new Runnable() {
-					public void run() {
-						if (error.hasError() && option.isFailfastOrFailfast2()) {
-							return;
-						}
-						try {
-							manageFileInternal(f, option, error);
-						} catch (IOException e) {
-							Logme.error(e);
-						} catch (InterruptedException e) {
-							Logme.error(e);
-						}
-						incDone(error.hasError());
+			incTotal(group.getFiles().size());
+			files.addAll(group.getFiles());
+		}
+		foundNbFiles(files.size());
+
+		// Files are processed in parallel, but they are reported in order. The
+		// window keeps a bounded number of finished files waiting for their turn.
+		final int window = 4 * option.getNbThreads();
+		final Deque<FileTask> running = new ArrayDeque<>();
+		int nbDiagrams = 0;
+		int nbImages = 0;
+		int next = 0;
+		try {
+			while (next < files.size() || running.size() > 0) {
+				while (next < files.size() && running.size() < window) {
+					final FileTask task = new FileTask(files.get(next++), option);
+					pool.execute(task);
+					running.add(task);
+				}
+				final FileTask task = running.poll();
+				try {
+					task.join();
+					if (task.exception != null)
+						throw task.exception;
+
+					if (task.images != null) {
+						nbDiagrams += task.sourceFileReader.getBlocks().size();
+						nbImages += task.images.size();
+						report(task.file, task.sourceFileReader, task.images, option, error);
 					}
-				});
+				} catch (IOException | RuntimeException e) {
+					Logme.error(e);
+				}
+				incDone(error.hasError());
+				if (error.hasError() && option.isFailfastOrFailfast2()) {
+					for (FileTask remaining : running)
+						remaining.cancel(false);
+
+					break;
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+
+		final long duration = Math.max(1, System.currentTimeMillis() - start);
+		final String summary = files.size() + " file(s), " + nbDiagrams + " diagram(s), " + nbImages
+				+ " image(s) in " + duration + " ms (" + (nbDiagrams * 1000L / duration) + " diagrams/s, "
+				+ option.getNbThreads() + " threads)";
+		if (option.isTextProgressBar())
+			System.err.println(summary);
+		else
+			Log.info(summary);
+	}
+
+	private static class FileTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final File file;
+		private final Option option;
+
+		private ISourceFileReader sourceFileReader;
+		private List<GeneratedImage> images;
+		private IOException exception;
+
+		FileTask(File file, Option option) {
+			this.file = file;
+			this.option = option;
+		}
+
+		@Override
+		protected void compute() {
+			Log.info("Working on " + file.getPath());
+			try {
+				sourceFileReader = createSourceFileReader(file, option);
+				images = ((SourceFileReaderAbstract) sourceFileReader).getGeneratedImagesInParallel();
+			} catch (IOException e) {
+				exception = e;
 			}
 		}
-		foundNbFiles(nb);
-		executor.shutdown();
-		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
 	}
 
 	private static void foundNbFiles(int nb) {
@@ -466,24 +536,7 @@ public class Run {
 			extractMetadata(f);
 			return;
 		}
-		final ISourceFileReader sourceFileReader;
-		if (option.getOutputFile() == null) {
-			File outputDir = option.getOutputDir();
-			if (outputDir != null && outputDir.getPath().endsWith("$")) {
-				final String path = outputDir.getPath();
-				outputDir = new File(path.substring(0, path.length() - 1)).getAbsoluteFile();
-				sourceFileReader = new SourceFileReaderCopyCat(option.getDefaultDefines(f), f, outputDir,
-						option.getConfig(), option.getCharset(), option.getFileFormatOption());
-			} else {
-				sourceFileReader = new SourceFileReader(option.getDefaultDefines(f), f, outputDir, option.getConfig(),
-						option.getCharset(), option.getFileFormatOption());
-			}
-		} else {
-			sourceFileReader = new SourceFileReaderHardFile(option.getDefaultDefines(f), f, option.getOutputFile(),
-					option.getConfig(), option.getCharset(), option.getFileFormatOption());
-		}
-		sourceFileReader.setCheckMetadata(option.isCheckMetadata());
-		((SourceFileReaderAbstract) sourceFileReader).setNoerror(option.isNoerror());
+		final ISourceFileReader sourceFileReader = createSourceFileReader(f, option);
 
 		if (option.isComputeurl()) {
 			error.goOk();
@@ -508,6 +561,36 @@ public class Run {
 			return;
 		}
 		final List<GeneratedImage> result = sourceFileReader.getGeneratedImages();
+		report(f, sourceFileReader, result, option, error);
+	}
+
+	private static ISourceFileReader createSourceFileReader(File f, Option option) throws IOException {
+		final ISourceFileReader sourceFileReader;
+		if (option.getOutputFile() == null) {
+			File outputDir = option.getOutputDir();
+			if (outputDir != null && outputDir.getPath().endsWith("$")) {
+				final String path = outputDir.getPath();
+				outputDir = new File(path.substring(0, path.length() - 1)).getAbsoluteFile();
+				sourceFileReader = new SourceFileReaderCopyCat(option.getDefaultDefines(f), f, outputDir,
+						option.getConfig(), option.getCharset(), option.getFileFormatOption());
+			} else {
+				sourceFileReader = new SourceFileReader(option.getDefaultDefines(f), f, outputDir, option.getConfig(),
+						option.getCharset(), option.getFileFormatOption());
+			}
+		} else {
+			sourceFileReader = new SourceFileReaderHardFile(option.getDefaultDefines(f), f, option.getOutputFile(),
+					option.getConfig(), option.getCharset(), option.getFileFormatOption());
+		}
+		sourceFileReader.setCheckMetadata(option.isCheckMetadata());
+		((SourceFileReaderAbstract) sourceFileReader).setNoerror(option.isNoerror());
+		if (option.getCacheDir() != null)
+			((SourceFileReaderAbstract) sourceFileReader).setRenderCache(new RenderCache(option.getCacheDir()));
+
+		return sourceFileReader;
+	}
+
+	private static void report(File f, ISourceFileReader sourceFileReader, List<GeneratedImage> result,
+			Option option, ErrorStatus error) throws IOException {
 		final Stdrpt rpt = option.getStdrpt();
 		if (result.size() == 0) {
 			Log.error("Warning: no image in " + f.getPath());
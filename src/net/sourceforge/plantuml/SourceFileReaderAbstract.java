@@ -52,6 +52,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import net.sourceforge.plantuml.api.ImageDataSimple;
 import net.sourceforge.plantuml.core.Diagram;
@@ -63,6 +66,7 @@ import net.sourceforge.plantuml.preproc.Defines;
 import net.sourceforge.plantuml.preproc.FileWithSuffix;
 import net.sourceforge.plantuml.security.SFile;
 import net.sourceforge.plantuml.security.SecurityUtils;
+import net.sourceforge.plantuml.sequencediagram.SequenceDiagram;
 import net.sourceforge.plantuml.utils.Log;
 
 public abstract class SourceFileReaderAbstract implements ISourceFileReader {
@@ -74,6 +78,7 @@ public abstract class SourceFileReaderAbstract implements ISourceFileReader {
 	private FileFormatOption fileFormatOption;
 	private boolean checkMetadata;
 	private boolean noerror;
+	private RenderCache renderCache;
 
 	final private Charset charset;
 
@@ -106,6 +111,10 @@ public abstract class SourceFileReaderAbstract implements ISourceFileReader {
 		this.checkMetadata = checkMetadata;
 	}
 
+	public void setRenderCache(RenderCache renderCache) {
+		this.renderCache = renderCache;
+	}
+
 	public boolean hasError() {
 		for (final BlockUml b : builder.getBlockUmls())
 			if (b.getDiagram() instanceof PSystemError)
@@ -177,29 +186,11 @@ public abstract class SourceFileReaderAbstract implements ISourceFileReader {
 				return getCrashedImage(blockUml, t, suggested.getFile(0));
 			}
 
-			if (OptionFlags.getInstance().isSilentlyCompletelyIgnoreErrors() && system instanceof PSystemError)
-				continue;
-
-			OptionFlags.getInstance().logData(SFile.fromFile(file), system);
-			final List<FileImageData> exportDiagrams;
-			if (noerror && system instanceof PSystemError) {
-				exportDiagrams = new ArrayList<FileImageData>();
-				exportDiagrams
-						.add(new FileImageData(null, new ImageDataSimple(new XDimension2D(0, 0), FileImageData.ERROR)));
-			} else
-				exportDiagrams = PSystemUtils.exportDiagrams(system, suggested, fileFormatOption, checkMetadata);
-
-			if (exportDiagrams.size() > 1)
-				cpt += exportDiagrams.size() - 1;
-
-			for (FileImageData fdata : exportDiagrams) {
-				final String desc = "[" + file.getName() + "] " + system.getDescription();
-				final SFile f = fdata.getFile();
-				exportWarnOrErrIfWord(f, system);
-				final GeneratedImage generatedImage = new GeneratedImageImpl(f, desc, blockUml, fdata.getStatus());
-				result.add(generatedImage);
-			}
+			final List<GeneratedImage> images = exportDiagram(blockUml, system, suggested);
+			if (images.size() > 1)
+				cpt += images.size() - 1;
 
+			result.addAll(images);
 		}
 
 		Log.info("Number of image(s): " + result.size());
@@ -207,6 +198,143 @@ public abstract class SourceFileReaderAbstract implements ISourceFileReader {
 		return Collections.unmodifiableList(result);
 	}
 
+	/**
+	 * Same as {@link #getGeneratedImages()}, but the blocks of the file are parsed
+	 * and drawn in parallel, as tasks of the current {@link ForkJoinPool}. Images
+	 * come in the same order and with the same names.
+	 * <p>
+	 * The name of an image depends on the number of images of the previous
+	 * blocks. When this number cannot be known before drawing (split PNG, HTML
+	 * export, skipped files...), this method falls back to the sequential
+	 * version.
+	 */
+	final public List<GeneratedImage> getGeneratedImagesInParallel() throws IOException {
+		final List<BlockUml> blocks = builder.getBlockUmls();
+
+		final List<ForkJoinTask<Integer>> parsing = new ArrayList<>();
+		for (int i = 0; i < blocks.size(); i++) {
+			final BlockUml blockUml = blocks.get(i);
+			// The number of images of the last block has no effect on names
+			final boolean last = i == blocks.size() - 1;
+			parsing.add(fork(new Callable<Integer>() {
+				public Integer call() {
+					try {
+						final Diagram system = blockUml.getDiagram();
+						return last ? 1 : getNbFiles(system);
+					} catch (Throwable t) {
+						// Reported by the sequential version
+						return -1;
+					}
+				}
+			}));
+		}
+
+		final int[] nbFiles = new int[blocks.size()];
+		for (int i = 0; i < blocks.size(); i++) {
+			nbFiles[i] = parsing.get(i).join();
+			if (nbFiles[i] == -1)
+				return getGeneratedImages();
+		}
+
+		Log.info("Reading file: " + file);
+
+		// Names are given exactly as getGeneratedImages() does, but before drawing
+		cpt = 0;
+		final List<ForkJoinTask<List<GeneratedImage>>> drawing = new ArrayList<>();
+		for (int i = 0; i < blocks.size(); i++) {
+			final BlockUml blockUml = blocks.get(i);
+			final SuggestedFile suggested = getSuggestedFile(blockUml);
+			if (nbFiles[i] > 1)
+				cpt += nbFiles[i] - 1;
+
+			drawing.add(fork(new Callable<List<GeneratedImage>>() {
+				public List<GeneratedImage> call() throws IOException {
+					return exportDiagram(blockUml, blockUml.getDiagram(), suggested);
+				}
+			}));
+		}
+
+		final List<GeneratedImage> result = new ArrayList<>();
+		for (ForkJoinTask<List<GeneratedImage>> task : drawing)
+			result.addAll(join(task));
+
+		Log.info("Number of image(s): " + result.size());
+
+		return Collections.unmodifiableList(result);
+	}
+
+	private static <T> ForkJoinTask<T> fork(Callable<T> callable) {
+		return ForkJoinTask.adapt(FileSystem.getInstance().withCurrentDir(callable)).fork();
+	}
+
+	private static <T> T join(ForkJoinTask<T> task) throws IOException {
+		try {
+			return task.join();
+		} catch (RuntimeException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the number of images that {@link PSystemUtils#exportDiagrams} is
+	 *         going to create, or -1 if it is not known in advance
+	 */
+	private int getNbFiles(Diagram system) {
+		if (system instanceof PSystemError && OptionFlags.getInstance().isSilentlyCompletelyIgnoreErrors())
+			return 0;
+
+		if (system instanceof PSystemError && noerror)
+			return 1;
+
+		final FileFormat fileFormat = fileFormatOption.getFileFormat();
+		if (fileFormat == FileFormat.HTML)
+			return -1;
+
+		if (system instanceof NewpagedDiagram || system instanceof SequenceDiagram) {
+			final int nb = system.getNbImages();
+			// Only the first image is checked against the metadata
+			return checkMetadata && nb > 1 ? -1 : nb;
+		}
+
+		if (system instanceof TitledDiagram && fileFormat == FileFormat.PNG) {
+			final TitledDiagram titled = (TitledDiagram) system;
+			if (titled.getSplitPagesHorizontal() != 1 || titled.getSplitPagesVertical() != 1)
+				return -1;
+		}
+		return 1;
+	}
+
+	private List<GeneratedImage> exportDiagram(BlockUml blockUml, Diagram system, SuggestedFile suggested)
+			throws IOException {
+		if (OptionFlags.getInstance().isSilentlyCompletelyIgnoreErrors() && system instanceof PSystemError)
+			return Collections.emptyList();
+
+		OptionFlags.getInstance().logData(SFile.fromFile(file), system);
+		final List<FileImageData> exportDiagrams;
+		if (noerror && system instanceof PSystemError) {
+			exportDiagrams = new ArrayList<FileImageData>();
+			exportDiagrams
+					.add(new FileImageData(null, new ImageDataSimple(new XDimension2D(0, 0), FileImageData.ERROR)));
+		} else if (renderCache != null && system instanceof PSystemError == false)
+			exportDiagrams = renderCache.exportDiagrams(blockUml, system, suggested, fileFormatOption,
+					checkMetadata);
+		else
+			exportDiagrams = PSystemUtils.exportDiagrams(system, suggested, fileFormatOption, checkMetadata);
+
+		final List<GeneratedImage> result = new ArrayList<>();
+		for (FileImageData fdata : exportDiagrams) {
+			final String desc = "[" + file.getName() + "] " + system.getDescription();
+			final SFile f = fdata.getFile();
+			exportWarnOrErrIfWord(f, system);
+			final GeneratedImage generatedImage = new GeneratedImageImpl(f, desc, blockUml, fdata.getStatus());
+			result.add(generatedImage);
+		}
+		return result;
+	}
+
 	abstract protected SuggestedFile getSuggestedFile(BlockUml blockUml) throws FileNotFoundException;
 
 	protected final void setNoerror(boolean noerror) {
@@ -51,6 +51,7 @@ import java.util.Map;
 
 import net.atmp.PixelImage;
 import net.sourceforge.plantuml.api.ImageDataSimple;
+import net.sourceforge.plantuml.api.RenderCancelledException;
 import net.sourceforge.plantuml.command.CommandExecutionResult;
 import net.sourceforge.plantuml.core.Diagram;
 import net.sourceforge.plantuml.core.ImageData;
@@ -146,6 +147,9 @@ public abstract class UmlDiagram extends TitledDiagram implements Diagram, Annot
 			Logme.error(e);
 			exportDiagramError(os, e.getCause(), fileFormatOption, e.getGraphvizVersion());
 			return ImageDataSimple.error(e);
+		} catch (RenderCancelledException e) {
+			// Reported by AbstractPSystem
+			throw e;
 		} catch (Throwable e) {
 			// Logme.error(e);
 			exportDiagramError(os, e, fileFormatOption, null);
@@ -0,0 +1,195 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ *
+ */
+package net.sourceforge.plantuml.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cooperative cancellation of a rendering.
+ * <p>
+ * Long running loops (Smetana layout, the preprocessor, the Teoz tile builder)
+ * regularly call {@link #check()} on the token of the current thread. The
+ * token throws a {@link RenderCancelledException} once it has been cancelled,
+ * or once its time or memory budget is exhausted. Unlike interrupting a worker
+ * thread, this leaves the thread and the caches it uses in a clean state, so a
+ * server can render untrusted diagrams on a shared pool.
+ * <p>
+ * The memory budget is measured as the bytes allocated by the thread since the
+ * token was created. It is only enforced on JVMs that can report it. A token
+ * created on another thread than its parent gets what remains of the memory
+ * budget of the parent, and measures it on its own thread: budgets are only
+ * measured by the thread that owns them.
+ */
+public final class CancellationToken {
+
+	public static final CancellationToken NONE = new CancellationToken(null, 0, 0);
+
+	private static final ThreadLocal<CancellationToken> current = new ThreadLocal<CancellationToken>();
+
+	// Checkpoints are placed in outer loops, so the clock can be read each
+	// time. Reading the allocated bytes costs more, so it is done less often.
+	private static final int MEMORY_CHECK_EVERY = 64;
+
+	private final CancellationToken parent;
+	private final long timeBudgetMs;
+	private final long deadline;
+	private final long memoryBudget;
+	// Budget shown in the message, which may be the one of an ancestor
+	private final long memoryBudgetKb;
+	private final long threadId;
+	private final long memoryStart;
+
+	private volatile String reason;
+	private int countdown;
+
+	private CancellationToken(CancellationToken parent, long timeBudgetMs, long memoryBudget) {
+		this.parent = parent;
+		this.timeBudgetMs = timeBudgetMs;
+		this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+		this.threadId = Thread.currentThread().getId();
+
+		long budget = memoryBudget;
+		long budgetKb = memoryBudget / 1024;
+		for (CancellationToken ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+			if (ancestor.threadId == threadId || ancestor.memoryBudget == 0)
+				continue;
+
+			final long used = allocatedBytes(ancestor.threadId) - ancestor.memoryStart;
+			final long remaining = Math.max(1, ancestor.memoryBudget - used);
+			if (budget == 0 || remaining < budget) {
+				budget = remaining;
+				budgetKb = ancestor.memoryBudgetKb;
+			}
+		}
+
+		final long allocated = budget > 0 ? allocatedBytes(threadId) : -1;
+		this.memoryBudget = allocated == -1 ? 0 : budget;
+		this.memoryBudgetKb = budgetKb;
+		this.memoryStart = allocated;
+	}
+
+	/**
+	 * Token installed on the current thread, or {@link #NONE}.
+	 */
+	public static CancellationToken current() {
+		final CancellationToken result = current.get();
+		return result == null ? NONE : result;
+	}
+
+	/**
+	 * Creates a token for the current thread. It is cancelled with its parent,
+	 * after <code>timeBudgetMs</code> milliseconds, or once the thread has
+	 * allocated <code>memoryBudget</code> bytes. Zero means no budget.
+	 */
+	public static CancellationToken create(long timeBudgetMs, long memoryBudget) {
+		final CancellationToken parent = current();
+		return new CancellationToken(parent == NONE ? null : parent, timeBudgetMs, memoryBudget);
+	}
+
+	/**
+	 * Makes this token the current one, until the returned scope is closed.
+	 */
+	public Scope install() {
+		final CancellationToken previous = current.get();
+		current.set(this);
+		return new Scope(previous);
+	}
+
+	public final class Scope implements AutoCloseable {
+
+		private final CancellationToken previous;
+
+		private Scope(CancellationToken previous) {
+			this.previous = previous;
+		}
+
+		@Override
+		public void close() {
+			if (previous == null)
+				current.remove();
+			else
+				current.set(previous);
+		}
+	}
+
+	/**
+	 * Cancels this token. It can be called from any thread.
+	 */
+	public void cancel(String reason) {
+		if (this != NONE && this.reason == null)
+			this.reason = reason;
+	}
+
+	public boolean isCancelled() {
+		return reason != null || (parent != null && parent.isCancelled());
+	}
+
+	public void check() throws RenderCancelledException {
+		if (this == NONE)
+			return;
+		final long currentThreadId = Thread.currentThread().getId();
+		for (CancellationToken token = this; token != null; token = token.parent) {
+			if (token.reason == null)
+				token.checkBudgets(token.threadId == currentThreadId);
+			if (token.reason != null)
+				throw new RenderCancelledException(token.reason);
+		}
+	}
+
+	// The memory budget, and the countdown, are only used by the owner thread
+	private void checkBudgets(boolean ownerThread) {
+		if (timeBudgetMs > 0 && System.nanoTime() - deadline > 0)
+			cancel("Time budget of " + timeBudgetMs + " ms exceeded");
+		else if (ownerThread && memoryBudget > 0 && --countdown <= 0) {
+			countdown = MEMORY_CHECK_EVERY;
+			if (allocatedBytes(threadId) - memoryStart > memoryBudget)
+				cancel("Memory budget of " + memoryBudgetKb + " KB exceeded");
+		}
+	}
+
+	private static long allocatedBytes(long threadId) {
+		// ::comment when __CORE__
+		final java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled())
+				return sunBean.getThreadAllocatedBytes(threadId);
+		}
+		// ::done
+		return -1;
+	}
+
+}
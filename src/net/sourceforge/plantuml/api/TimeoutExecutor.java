@@ -38,6 +38,7 @@ package net.sourceforge.plantuml.api;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import net.sourceforge.plantuml.log.Logme;
+import net.sourceforge.plantuml.utils.Log;
 
 public final class TimeoutExecutor {
 
@@ -61,6 +62,9 @@ public final class TimeoutExecutor {
 			done = mainThread.done.get();
 			if (done == false) {
 				task.cancelJob();
+				// Loops that check the token stop by themselves, the interrupt is
+				// only there for blocking calls
+				mainThread.token.cancel("Timeout after " + ms + " ms");
 				mainThread.interrupt();
 			}
 		}
@@ -70,6 +74,7 @@ public final class TimeoutExecutor {
 	class MyThread extends Thread {
 		private final MyRunnable task;
 		private final AtomicBoolean done = new AtomicBoolean(false);
+		private final CancellationToken token = CancellationToken.create(0, 0);
 
 		private MyThread(MyRunnable task) {
 			this.task = task;
@@ -77,12 +82,21 @@ public final class TimeoutExecutor {
 
 		@Override
 		public void run() {
+			final CancellationToken.Scope scope = token.install();
+			// Created on this thread, so that it measures what this thread allocates
+			// against the memory budget of the caller
+			final CancellationToken.Scope workerScope = CancellationToken.create(0, 0).install();
 			try {
 				task.runJob();
 				done.set(true);
 			} catch (InterruptedException e) {
 				System.err.println("TimeoutExecutorB " + e);
 				Logme.error(e);
+			} catch (RenderCancelledException e) {
+				Log.info(e.getMessage());
+			} finally {
+				workerScope.close();
+				scope.close();
 			}
 		}
 
@@ -36,10 +36,17 @@
 package net.sourceforge.plantuml.code;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import net.sourceforge.plantuml.code.deflate.ByteBitInputStream;
 import net.sourceforge.plantuml.code.deflate.Decompressor;
+import net.sourceforge.plantuml.code.deflate.OutputStreamProtected;
 
 public class CompressionZlib implements Compression {
 
@@ -48,6 +55,24 @@ public class CompressionZlib implements Compression {
 	// ::done
 	private static final int COMPRESSION_LEVEL = 9;
 
+	// Deflater and Inflater hold native memory until end() is called, so only one
+	// instance per thread is created. It is reset after each use.
+	private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+		@Override
+		protected Deflater initialValue() {
+			return new Deflater(COMPRESSION_LEVEL, true);
+		}
+	};
+
+	// ::comment when __CORE__
+	private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+		@Override
+		protected Inflater initialValue() {
+			return new Inflater(true);
+		}
+	};
+	// ::done
+
 	public byte[] compress(byte[] in) {
 		// ::comment when __CORE__
 		if (USE_ZOPFLI)
@@ -57,27 +82,38 @@ public class CompressionZlib implements Compression {
 		if (in.length == 0)
 			return null;
 
-		int len = in.length * 2;
-		if (len < 1000)
-			len = 1000;
-
-		// Compress the bytes
-		final Deflater compresser = new Deflater(COMPRESSION_LEVEL, true);
-		compresser.setInput(in);
-		compresser.finish();
-
-		final byte[] output = new byte[len];
-		final int compressedDataLength = compresser.deflate(output);
-		if (compresser.finished() == false)
-			return null;
+		final Deflater deflater = DEFLATER.get();
+		try {
+			deflater.setInput(in);
+			deflater.finish();
+			byte[] output = new byte[Math.max(1000, in.length / 2)];
+			int len = 0;
+			while (deflater.finished() == false) {
+				if (len == output.length)
+					output = Arrays.copyOf(output, output.length * 2);
 
-		return copyArray(output, compressedDataLength);
+				len += deflater.deflate(output, len, output.length - len);
+			}
+			return Arrays.copyOf(output, len);
+		} finally {
+			deflater.reset();
+		}
 	}
 
 	public ByteArray decompress(byte[] input) throws NoPlantumlCompressionException {
 		final byte padded[] = new byte[input.length + 256];
 		System.arraycopy(input, 0, padded, 0, input.length);
 
+		// ::comment when __CORE__
+		try {
+			return ByteArray.from(inflate(padded));
+		} catch (IOException e) {
+			throw new NoPlantumlCompressionException(e);
+		} catch (DataFormatException e) {
+			// The pure Java decompressor below has the last word on malformed data
+		}
+		// ::done
+
 		final ByteBitInputStream inputStream = new ByteBitInputStream(new ByteArrayInputStream(padded));
 		try {
 			return ByteArray.from(Decompressor.decompress(inputStream));
@@ -86,10 +122,96 @@ public class CompressionZlib implements Compression {
 		}
 	}
 
-	private byte[] copyArray(final byte[] data, final int len) {
-		final byte[] result = new byte[len];
-		System.arraycopy(data, 0, result, 0, len);
-		return result;
+	// ::comment when __CORE__
+	/**
+	 * Same result as the pure Java <code>Decompressor</code>, including the
+	 * protection against zip bombs, but using the native zlib.
+	 */
+	private static byte[] inflate(byte[] input) throws IOException, DataFormatException {
+		final Inflater inflater = INFLATER.get();
+		try {
+			inflater.setInput(input);
+			byte[] output = new byte[Math.min(OutputStreamProtected.MAX_OUTPUT_SIZE + 1, input.length * 4 + 1024)];
+			int len = 0;
+			while (inflater.finished() == false) {
+				if (len == output.length) {
+					if (len > OutputStreamProtected.MAX_OUTPUT_SIZE)
+						throw new IOException("Too big");
+
+					output = Arrays.copyOf(output, Math.min(OutputStreamProtected.MAX_OUTPUT_SIZE + 1, len * 2));
+				}
+				final int nb = inflater.inflate(output, len, output.length - len);
+				if (nb == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					throw new DataFormatException("Truncated data");
+
+				len += nb;
+			}
+			if (len > OutputStreamProtected.MAX_OUTPUT_SIZE)
+				throw new IOException("Too big");
+
+			return Arrays.copyOf(output, len);
+		} finally {
+			inflater.reset();
+		}
+	}
+
+	/**
+	 * Streaming variant of {@link #compress(byte[])}, for large sources that
+	 * should not be held twice in memory.
+	 */
+	public void compress(InputStream in, OutputStream out) throws IOException {
+		final Deflater deflater = DEFLATER.get();
+		try {
+			final byte[] input = new byte[8192];
+			final byte[] output = new byte[8192];
+			int nb;
+			while ((nb = in.read(input)) != -1) {
+				deflater.setInput(input, 0, nb);
+				while (deflater.needsInput() == false)
+					out.write(output, 0, deflater.deflate(output));
+			}
+			deflater.finish();
+			while (deflater.finished() == false)
+				out.write(output, 0, deflater.deflate(output));
+
+		} finally {
+			deflater.reset();
+		}
+	}
+
+	/**
+	 * Streaming variant of {@link #decompress(byte[])}. The same limit on the
+	 * decompressed size applies.
+	 */
+	public void decompress(InputStream in, OutputStream out) throws IOException {
+		final Inflater inflater = INFLATER.get();
+		try {
+			final byte[] input = new byte[8192];
+			final byte[] output = new byte[8192];
+			long total = 0;
+			while (inflater.finished() == false) {
+				if (inflater.needsInput()) {
+					final int nb = in.read(input);
+					if (nb == -1)
+						throw new NoPlantumlCompressionException("Truncated data");
+
+					inflater.setInput(input, 0, nb);
+				}
+				final int nb = inflater.inflate(output);
+				total += nb;
+				if (total > OutputStreamProtected.MAX_OUTPUT_SIZE)
+					throw new NoPlantumlCompressionException("Too big");
+
+				out.write(output, 0, nb);
+				if (nb == 0 && inflater.needsDictionary())
+					throw new NoPlantumlCompressionException("Dictionary needed");
+			}
+		} catch (DataFormatException e) {
+			throw new NoPlantumlCompressionException(e);
+		} finally {
+			inflater.reset();
+		}
 	}
+	// ::done
 
 }
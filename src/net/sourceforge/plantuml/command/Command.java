@@ -47,4 +47,14 @@ public interface Command<D extends Diagram> {
 
 	String[] getDescription();
 
+	/**
+	 * Tell if a block whose first line, once trimmed, starts with this character
+	 * may be valid for this command. Returning <code>true</code> is always safe: it
+	 * is only used by {@link PSystemCommandFactory} to skip commands that cannot
+	 * match.
+	 */
+	default boolean mayStartWith(char firstChar) {
+		return true;
+	}
+
 }
@@ -84,6 +84,13 @@ public class CommandDecoratorMultine<D extends Diagram> implements Command<D> {
 		return cmd.getDescription();
 	}
 
+	// Lines are joined before being checked, so the first character is the one of
+	// the first line
+	@Override
+	public boolean mayStartWith(char firstChar) {
+		return cmd.mayStartWith(firstChar);
+	}
+
 	public int getNbMaxLines() {
 		return nbMaxLines;
 	}
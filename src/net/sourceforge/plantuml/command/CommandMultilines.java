@@ -84,6 +84,11 @@ public abstract class CommandMultilines<S extends Diagram> implements Command<S>
 		return CommandControl.OK;
 	}
 
+	@Override
+	public boolean mayStartWith(char firstChar) {
+		return starting.mayStartWith(firstChar);
+	}
+
 	protected final Pattern2 getStartingPattern() {
 		return starting;
 	}
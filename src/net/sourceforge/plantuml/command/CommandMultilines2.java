@@ -125,6 +125,11 @@ public abstract class CommandMultilines2<S extends Diagram> implements Command<S
 		return CommandControl.OK;
 	}
 
+	@Override
+	public boolean mayStartWith(char firstChar) {
+		return starting.mayStartWith(firstChar);
+	}
+
 	protected final IRegex getStartingPattern() {
 		return starting;
 	}
@@ -111,6 +111,11 @@ public abstract class CommandMultilines3<S extends Diagram> implements Command<S
 		return CommandControl.OK;
 	}
 
+	@Override
+	public boolean mayStartWith(char firstChar) {
+		return starting.mayStartWith(firstChar);
+	}
+
 	protected final IRegex getStartingPattern() {
 		return starting;
 	}
@@ -65,6 +65,11 @@ public abstract class CommandMultilinesBracket<S extends Diagram> implements Com
 		return CommandControl.OK;
 	}
 
+	@Override
+	public boolean mayStartWith(char firstChar) {
+		return starting.mayStartWith(firstChar);
+	}
+
 	protected final Pattern2 getStartingPattern() {
 		return starting;
 	}
@@ -36,8 +36,10 @@
 package net.sourceforge.plantuml.command;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import net.sourceforge.plantuml.AbstractPSystem;
 import net.sourceforge.plantuml.EmbeddedDiagram;
@@ -56,7 +58,12 @@ import net.sourceforge.plantuml.version.IteratorCounter2;
 
 public abstract class PSystemCommandFactory extends PSystemAbstractFactory {
 
-	private final List<Command> cmds = new ArrayList<>();
+	// Immutable once built
+	private volatile List<Command<?>> cmds;
+
+	// For each ASCII character, the commands that may accept a line starting with
+	// it, in the same order as cmds. Filled lazily.
+	private final AtomicReferenceArray<List<Command<?>>> cmdsByFirstChar = new AtomicReferenceArray<>(128);
 
 	protected abstract void initCommandsList(List<Command> cmds);
 
@@ -114,6 +121,36 @@ public abstract class PSystemCommandFactory extends PSystemAbstractFactory {
 
 	}
 
+	/**
+	 * Matches the source against the commands of this factory without executing
+	 * anything.
+	 *
+	 * <p>
+	 * Command matching never depends on the diagram being built, so a line that no
+	 * command accepts here is a line on which {@link #createSystem} would report a
+	 * syntax error (if it has not failed before). A <code>false</code> result
+	 * proves nothing: execution may still fail.
+	 *
+	 * @return <code>true</code> if <code>createSystem()</code> is certain to fail
+	 */
+	final public boolean hasSyntaxError(UmlSource source) {
+		final IteratorCounter2 it = source.iterator2();
+		if (StartUtils.isArobaseStartDiagram(it.next().getString()) == false)
+			throw new UnsupportedOperationException();
+
+		if (source.isEmpty())
+			return true;
+
+		while (it.hasNext()) {
+			if (StartUtils.isArobaseEndDiagram(it.peek().getString()))
+				return false;
+
+			if (getCandidate(it) == null)
+				return true;
+		}
+		return false;
+	}
+
 	private AbstractPSystem executeFewLines(AbstractPSystem sys, UmlSource source, final IteratorCounter2 it) {
 		final Step step = getCandidate(it);
 		if (step == null) {
@@ -147,14 +184,50 @@ public abstract class PSystemCommandFactory extends PSystemAbstractFactory {
 
 	}
 
-	private Step getCandidate(final IteratorCounter2 it) {
-		final BlocLines single = BlocLines.single(it.peek());
-		synchronized (cmds) {
-			if (cmds.size() == 0)
-				initCommandsList(cmds);
+	private List<Command<?>> getCommands() {
+		List<Command<?>> result = cmds;
+		if (result == null)
+			synchronized (this) {
+				result = cmds;
+				if (result == null) {
+					final List<Command> tmp = new ArrayList<>();
+					initCommandsList(tmp);
+					final List<Command<?>> copy = new ArrayList<>(tmp.size());
+					for (Command<?> cmd : tmp)
+						copy.add(cmd);
+
+					result = Collections.unmodifiableList(copy);
+					cmds = result;
+				}
+			}
+
+		return result;
+	}
+
+	private List<Command<?>> getCommands(StringLocated line) {
+		final List<Command<?>> all = getCommands();
+		final String trimmed = line.getTrimmed().getString();
+		if (trimmed.length() == 0 || trimmed.charAt(0) >= cmdsByFirstChar.length())
+			return all;
+
+		final char firstChar = trimmed.charAt(0);
+		List<Command<?>> result = cmdsByFirstChar.get(firstChar);
+		if (result == null) {
+			// Two threads may compute the same list, which is harmless
+			final List<Command<?>> tmp = new ArrayList<>();
+			for (Command<?> cmd : all)
+				if (cmd.mayStartWith(firstChar))
+					tmp.add(cmd);
+
+			result = Collections.unmodifiableList(tmp);
+			cmdsByFirstChar.set(firstChar, result);
 		}
+		return result;
+	}
 
-		for (Command cmd : cmds) {
+	private Step getCandidate(final IteratorCounter2 it) {
+		final BlocLines single = BlocLines.single(it.peek());
+		for (Command<?> cmd : getCommands(it.peek())) {
 			final CommandControl result = cmd.isValid(single);
 			if (result == CommandControl.OK) {
 				it.next();
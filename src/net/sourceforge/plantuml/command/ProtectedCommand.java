@@ -79,4 +79,9 @@ public class ProtectedCommand<S extends Diagram> implements Command<S> {
 		return cmd.getDescription();
 	}
 
+	@Override
+	public boolean mayStartWith(char firstChar) {
+		return cmd.mayStartWith(firstChar);
+	}
+
 }
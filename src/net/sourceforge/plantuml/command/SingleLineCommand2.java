@@ -118,6 +118,14 @@ public abstract class SingleLineCommand2<S extends Diagram> implements Command<S
 		return isValid(BlocLines.singleString(vline));
 	}
 
+	@Override
+	public boolean mayStartWith(char firstChar) {
+		if (doTrim == false)
+			return true;
+
+		return pattern.mayStartWith(firstChar);
+	}
+
 	protected boolean isCommandForbidden() {
 		return false;
 	}
@@ -106,11 +106,19 @@ abstract class AbstractGraphviz implements Graphviz {
 		ProcessRunner p = null;
 		ProcessState state = null;
 		try {
-			Log.info("Starting Graphviz process " + Arrays.asList(cmd));
-			Log.info("DotString size: " + dotString.length());
-			p = new ProcessRunner(cmd);
-			state = p.run(dotString.getBytes(), os);
-			Log.info("Ending process ok");
+			final DotProcessPool pool = isSvgOnly() ? DotProcessPool.getInstance(cmd) : null;
+			if (pool != null) {
+				Log.info("DotString size: " + dotString.length());
+				state = pool.run(dotString.getBytes(), os);
+				Log.info(DotProcessPool.getStatistics());
+			}
+			if (state == null) {
+				Log.info("Starting Graphviz process " + Arrays.asList(cmd));
+				Log.info("DotString size: " + dotString.length());
+				p = new ProcessRunner(cmd);
+				state = p.run(dotString.getBytes(), os);
+				Log.info("Ending process ok");
+			}
 		} catch (Throwable e) {
 			Logme.error(e);
 			Log.error("Error: " + e);
@@ -135,6 +143,11 @@ abstract class AbstractGraphviz implements Graphviz {
 		return state;
 	}
 
+	// The pool relies on the end of the SVG images to split its answers
+	private boolean isSvgOnly() {
+		return type.length == 1 && type[0].equals("svg");
+	}
+
 	final public ExeState getExeState() {
 		return ExeState.checkFile(dotExe);
 	}
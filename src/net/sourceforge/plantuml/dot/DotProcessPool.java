@@ -0,0 +1,342 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ * 
+ *
+ */
+package net.sourceforge.plantuml.dot;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.sourceforge.plantuml.OptionFlags;
+import net.sourceforge.plantuml.utils.Log;
+
+/**
+ * Pool of long-lived Graphviz processes, used for SVG output when
+ * <code>PLANTUML_DOT_POOL</code> (system property or environment variable)
+ * gives the number of processes to keep.
+ * <p>
+ * dot reads the graphs of its standard input one after the other, and writes
+ * each image as soon as its graph is complete. Every graph is followed by a
+ * small sentinel graph: its image, recorded when the process starts, marks the
+ * end of the answer.
+ * <p>
+ * A process that dies or gives an unexpected answer is destroyed, and the graph
+ * is run again the usual way, through a new process, so that errors are
+ * reported as before. This includes a graph that dot rejects: the sentinel
+ * may then be lost in the error, so it is only awaited for a short time. A
+ * process that does not answer within the timeout is destroyed as well. If a
+ * new process does not answer the sentinel when it starts, the pool is
+ * disabled for the rest of the run.
+ * <p>
+ * When all the processes are busy, a graph waits a short time for one of them,
+ * and is then run through a new process.
+ */
+final class DotProcessPool {
+	// ::remove file when __CORE__
+
+	private static final byte[] SENTINEL = "\ndigraph plantuml_sentinel_graph {}\n".getBytes(UTF_8);
+	private static final long START_TIMEOUT_MS = 5000;
+	// After an error message, dot may have lost the sentinel graph as well
+	private static final long ERROR_TIMEOUT_MS = 1000;
+	private static final byte[] ERROR = "Error:".getBytes(UTF_8);
+	// How long a graph waits for a busy process before using a new one
+	private static final long BUSY_TIMEOUT_MS = 100;
+
+	private static final Map<String, DotProcessPool> pools = new ConcurrentHashMap<>();
+	private static final Timer watchdog = new Timer("dot-pool-watchdog", true);
+
+	private static final LongAdder pooled = new LongAdder();
+	private static final LongAdder fallbacks = new LongAdder();
+	private static final LongAdder started = new LongAdder();
+
+	private final String[] cmd;
+	private final int max;
+	private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private volatile boolean disabled;
+
+	private DotProcessPool(String[] cmd, int max) {
+		this.cmd = cmd;
+		this.max = max;
+	}
+
+	static int getPoolSize() {
+		String value = System.getProperty("PLANTUML_DOT_POOL");
+		if (value == null)
+			value = System.getenv("PLANTUML_DOT_POOL");
+		if (value != null)
+			try {
+				return Math.max(0, Integer.parseInt(value.trim()));
+			} catch (NumberFormatException e) {
+				// No pool
+			}
+		return 0;
+	}
+
+	/**
+	 * Returns the pool for this command line, or <code>null</code> if the pool is
+	 * not enabled.
+	 */
+	static DotProcessPool getInstance(String[] cmd) {
+		final int max = getPoolSize();
+		if (max == 0)
+			return null;
+
+		final DotProcessPool result = pools.computeIfAbsent(String.join("\n", cmd),
+				key -> new DotProcessPool(cmd, max));
+		if (result.disabled)
+			return null;
+
+		return result;
+	}
+
+	static String getStatistics() {
+		return "Dot process pool: " + pooled.sum() + " graphs, " + fallbacks.sum() + " run in a new process, "
+				+ started.sum() + " processes started";
+	}
+
+	/**
+	 * Renders one graph. Returns <code>null</code> if the graph has to be run in
+	 * a new process instead.
+	 */
+	ProcessState run(byte[] in, OutputStream os) throws IOException, InterruptedException {
+		final long timeoutMs = OptionFlags.getInstance().getTimeoutMs();
+		final Worker worker = borrow();
+		if (worker == null) {
+			fallbacks.increment();
+			return null;
+		}
+
+		final byte[] result = worker.render(in, timeoutMs);
+		if (result == null) {
+			discard(worker);
+			if (worker.timeout)
+				return ProcessState.TIMEOUT();
+
+			fallbacks.increment();
+			return null;
+		}
+		idle.add(worker);
+		pooled.increment();
+		os.write(result);
+		return ProcessState.TERMINATED_OK();
+	}
+
+	private Worker borrow() throws InterruptedException {
+		while (true) {
+			Worker worker = idle.poll();
+			if (worker == null && reserve())
+				return start();
+
+			if (worker == null)
+				worker = idle.poll(BUSY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+			// All the processes stayed busy
+			if (worker == null)
+				return null;
+
+			if (worker.process.isAlive())
+				return worker;
+
+			Log.info("Graphviz process of the pool has died, restarting");
+			discard(worker);
+		}
+	}
+
+	private boolean reserve() {
+		while (true) {
+			final int current = size.get();
+			if (current >= max)
+				return false;
+			if (size.compareAndSet(current, current + 1))
+				return true;
+		}
+	}
+
+	private Worker start() {
+		try {
+			final Worker result = new Worker(cmd);
+			started.increment();
+			return result;
+		} catch (IOException e) {
+			Log.info("Cannot use a pool of Graphviz processes: " + e);
+			size.decrementAndGet();
+			disabled = true;
+			return null;
+		}
+	}
+
+	private void discard(Worker worker) {
+		worker.destroy();
+		size.decrementAndGet();
+	}
+
+	static class Buffer extends ByteArrayOutputStream {
+
+		boolean endsWith(byte[] suffix) {
+			if (count < suffix.length)
+				return false;
+
+			for (int i = 0; i < suffix.length; i++)
+				if (buf[count - suffix.length + i] != suffix[i])
+					return false;
+
+			return true;
+		}
+
+		boolean hasLineStartingWith(byte[] prefix, int from) {
+			for (int i = Math.max(0, from); i <= count - prefix.length; i++)
+				if ((i == 0 || buf[i - 1] == '\n')
+						&& Arrays.equals(Arrays.copyOfRange(buf, i, i + prefix.length), prefix))
+					return true;
+
+			return false;
+		}
+
+		byte[] withoutSuffix(int length) {
+			return Arrays.copyOf(buf, count - length);
+		}
+	}
+
+	static class Worker {
+
+		private final Process process;
+		private final OutputStream stdin;
+		private final InputStream stdout;
+		private final byte[] sentinelImage;
+		private volatile boolean timeout;
+
+		Worker(String[] cmd) throws IOException {
+			final ProcessBuilder builder = new ProcessBuilder(cmd);
+			// Like ProcessRunner, warnings are part of the answer
+			builder.redirectErrorStream(true);
+			this.process = builder.start();
+			this.stdin = process.getOutputStream();
+			this.stdout = process.getInputStream();
+
+			final TimerTask kill = killAfter(START_TIMEOUT_MS, true);
+			try {
+				stdin.write(SENTINEL);
+				stdin.flush();
+				final Buffer buffer = new Buffer();
+				final byte[] tmp = new byte[1024];
+				int length;
+				while (isComplete(buffer) == false && (length = stdout.read(tmp)) != -1)
+					buffer.write(tmp, 0, length);
+
+				if (isComplete(buffer) == false)
+					throw new IOException("No answer to the sentinel graph");
+
+				this.sentinelImage = buffer.toByteArray();
+			} catch (IOException e) {
+				destroy();
+				throw e;
+			} finally {
+				kill.cancel();
+			}
+		}
+
+		private static boolean isComplete(Buffer buffer) {
+			return buffer.endsWith("</svg>\n".getBytes(UTF_8)) || buffer.endsWith("</svg>\r\n".getBytes(UTF_8));
+		}
+
+		private TimerTask killAfter(long delayMs, final boolean isTimeout) {
+			final TimerTask result = new TimerTask() {
+				@Override
+				public void run() {
+					if (isTimeout)
+						timeout = true;
+					process.destroyForcibly();
+				}
+			};
+			watchdog.schedule(result, delayMs);
+			return result;
+		}
+
+		byte[] render(byte[] in, long timeoutMs) {
+			final TimerTask kill = killAfter(timeoutMs, true);
+			TimerTask giveUp = null;
+			try {
+				stdin.write(in);
+				stdin.write(SENTINEL);
+				stdin.flush();
+
+				final Buffer buffer = new Buffer();
+				final byte[] tmp = new byte[8192];
+				int length;
+				while ((length = stdout.read(tmp)) != -1) {
+					buffer.write(tmp, 0, length);
+					if (giveUp == null && buffer.hasLineStartingWith(ERROR, buffer.size() - length - ERROR.length))
+						giveUp = killAfter(ERROR_TIMEOUT_MS, false);
+
+					if (buffer.endsWith(sentinelImage)) {
+						final byte[] result = buffer.withoutSuffix(sentinelImage.length);
+						// Anything else than an image (a syntax error for instance) is left
+						// to a new process
+						if (new String(result, UTF_8).contains("</svg>") == false)
+							return null;
+
+						return result;
+					}
+				}
+				return null;
+			} catch (IOException e) {
+				return null;
+			} finally {
+				kill.cancel();
+				if (giveUp != null)
+					giveUp.cancel();
+			}
+		}
+
+		void destroy() {
+			process.destroyForcibly();
+		}
+	}
+
+}
@@ -54,6 +54,7 @@ import h.ST_Agnode_s;
 import h.ST_Agnodeinfo_t;
 import h.ST_Agraph_s;
 import h.ST_GVC_s;
+import net.sourceforge.plantuml.api.CancellationToken;
 import net.sourceforge.plantuml.jsondiagram.Mirror;
 import net.sourceforge.plantuml.klimt.UTranslate;
 import net.sourceforge.plantuml.klimt.color.HColor;
@@ -133,6 +134,7 @@ public class SmetanaForGit {
 			return;
 
 		Globals zz = Globals.open();
+		zz.setCheckpoint(CancellationToken.current()::check);
 		try {
 			g = agopen(zz, new CString("g"), zz.Agdirected, null);
 			agsafeset(zz, g, new CString("ranksep"), new CString("0.35"), new CString(""));
@@ -163,7 +165,7 @@ public class SmetanaForGit {
 			yMirror = new Mirror(max);
 
 		} finally {
-			Globals.close();
+			Globals.close(zz);
 		}
 
 	}
@@ -51,6 +51,7 @@ import h.ST_Agnode_s;
 import h.ST_Agnodeinfo_t;
 import h.ST_Agraph_s;
 import h.ST_GVC_s;
+import net.sourceforge.plantuml.api.CancellationToken;
 import net.sourceforge.plantuml.json.JsonValue;
 import net.sourceforge.plantuml.klimt.UTranslate;
 import net.sourceforge.plantuml.klimt.color.HColor;
@@ -181,6 +182,7 @@ public class SmetanaForJson {
 			return;
 
 		Globals zz = Globals.open();
+		zz.setCheckpoint(CancellationToken.current()::check);
 		try {
 
 			g = agopen(zz, new CString("g"), zz.Agdirected, null);
@@ -189,7 +191,7 @@ public class SmetanaForJson {
 			final ST_GVC_s gvc = gvContext(zz);
 			gvLayoutJobs(zz, gvc, g);
 		} finally {
-			Globals.close();
+			Globals.close(zz);
 			NUM++;
 		}
 		if (exitAfterFirst) {
@@ -0,0 +1,281 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ * 
+ *
+ */
+package net.sourceforge.plantuml.klimt.drawing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.plantuml.klimt.UAntiAliasing;
+import net.sourceforge.plantuml.klimt.UChange;
+import net.sourceforge.plantuml.klimt.UClip;
+import net.sourceforge.plantuml.klimt.UGroupType;
+import net.sourceforge.plantuml.klimt.UParam;
+import net.sourceforge.plantuml.klimt.UPattern;
+import net.sourceforge.plantuml.klimt.UShape;
+import net.sourceforge.plantuml.klimt.UStroke;
+import net.sourceforge.plantuml.klimt.UTranslate;
+import net.sourceforge.plantuml.klimt.color.ColorMapper;
+import net.sourceforge.plantuml.klimt.color.HColor;
+import net.sourceforge.plantuml.klimt.font.StringBounder;
+import net.sourceforge.plantuml.klimt.geom.MinMax;
+import net.sourceforge.plantuml.klimt.shape.TextBlock;
+import net.sourceforge.plantuml.klimt.shape.UHidden;
+import net.sourceforge.plantuml.url.Url;
+
+/**
+ * Records everything drawn into it, so that a drawing can be sized and then
+ * rendered without being drawn twice.
+ * <p>
+ * Extents are computed by an inner {@link LimitFinder}, so they are exactly the
+ * ones a dry-run would give. The recorded commands can then be replayed into
+ * the real back end with {@link #replay(UGraphic)}.
+ * <p>
+ * Some drawings behave differently depending on the back end (see
+ * {@link UGraphic#matchesProperty(String)}), so the recorder must be created
+ * with the properties, colors and string bounder of the back end it will be
+ * replayed into.
+ */
+public final class UGraphicRecorder extends AbstractCommonUGraphic {
+	// ::remove file when __HAXE__
+
+	enum Kind {
+		DRAW, START_URL, CLOSE_URL, START_GROUP, CLOSE_GROUP
+	}
+
+	static final class Command {
+		private final Kind kind;
+		private final State state;
+		private final Object arg;
+
+		Command(Kind kind, State state, Object arg) {
+			this.kind = kind;
+			this.state = state;
+			this.arg = arg;
+		}
+	}
+
+	static final class State {
+		private final UClip clip;
+		private final UTranslate translate;
+		private final UStroke stroke;
+		private final UPattern pattern;
+		private final boolean hidden;
+		private final HColor backColor;
+		private final HColor color;
+		private final UAntiAliasing antiAliasing;
+
+		State(UGraphicRecorder ug) {
+			final UParam param = ug.getParam();
+			this.clip = ug.getClip();
+			this.translate = ug.getTranslate();
+			this.stroke = param.getStroke();
+			this.pattern = param.getPattern();
+			this.hidden = param.isHidden();
+			this.backColor = param.getBackcolor();
+			this.color = param.getColor();
+			this.antiAliasing = ug.antiAliasing;
+		}
+
+		UGraphic applyTo(UGraphic ug) {
+			if (clip != null)
+				ug = ug.apply(clip);
+
+			ug = ug.apply(translate).apply(stroke).apply(backColor.bg()).apply(color);
+			if (pattern != UPattern.FULL)
+				ug = ug.apply(pattern);
+			if (hidden)
+				ug = ug.apply(UHidden.HIDDEN);
+			if (antiAliasing != null)
+				ug = ug.apply(antiAliasing);
+
+			return ug;
+		}
+	}
+
+	private final List<Command> commands;
+	private final List<String> properties;
+	private LimitFinder limitFinder;
+	private UAntiAliasing antiAliasing;
+	private State state;
+
+	/**
+	 * @param origin translation of the back end the recording will be replayed
+	 *               into. It is not taken into account for the extents.
+	 */
+	public static UGraphicRecorder create(StringBounder stringBounder, HColor defaultBackground,
+			ColorMapper colorMapper, UTranslate origin, List<String> properties) {
+		final UGraphicRecorder result = new UGraphicRecorder(stringBounder, new ArrayList<Command>(), properties);
+		result.basicCopy(defaultBackground, colorMapper);
+		final UGraphicRecorder translated = (UGraphicRecorder) result.apply(origin);
+		translated.limitFinder = LimitFinder.create(stringBounder, true);
+		return translated;
+	}
+
+	private UGraphicRecorder(StringBounder stringBounder, List<Command> commands, List<String> properties) {
+		super(stringBounder);
+		this.commands = commands;
+		this.properties = properties;
+	}
+
+	@Override
+	protected AbstractCommonUGraphic copyUGraphic() {
+		final UGraphicRecorder result = new UGraphicRecorder(getStringBounder(), commands, properties);
+		result.basicCopy(this);
+		result.limitFinder = this.limitFinder;
+		result.antiAliasing = this.antiAliasing;
+		return result;
+	}
+
+	@Override
+	public UGraphic apply(UChange change) {
+		final UGraphicRecorder result = (UGraphicRecorder) super.apply(change);
+		if (limitFinder != null)
+			result.limitFinder = (LimitFinder) limitFinder.apply(change);
+		if (change instanceof UAntiAliasing)
+			result.antiAliasing = (UAntiAliasing) change;
+
+		return result;
+	}
+
+	private State getState() {
+		if (state == null)
+			state = new State(this);
+
+		return state;
+	}
+
+	private void record(Kind kind, Object arg) {
+		commands.add(new Command(kind, getState(), arg));
+	}
+
+	@Override
+	public <SHAPE extends UShape> void draw(SHAPE shape) {
+		if (shape instanceof TextBlock) {
+			((TextBlock) shape).drawU(this);
+			return;
+		}
+		limitFinder.draw(shape);
+		record(Kind.DRAW, shape);
+	}
+
+	@Override
+	public void startUrl(Url url) {
+		record(Kind.START_URL, url);
+	}
+
+	@Override
+	public void closeUrl() {
+		record(Kind.CLOSE_URL, null);
+	}
+
+	@Override
+	public void startGroup(Map<UGroupType, String> typeIdents) {
+		record(Kind.START_GROUP, typeIdents);
+	}
+
+	@Override
+	public void closeGroup() {
+		record(Kind.CLOSE_GROUP, null);
+	}
+
+	@Override
+	public boolean matchesProperty(String propertyName) {
+		for (String property : properties)
+			if (property.equalsIgnoreCase(propertyName))
+				return true;
+
+		return false;
+	}
+
+	@Override
+	public void writeToStream(OutputStream os, String metadata, int dpi) throws IOException {
+		throw new UnsupportedOperationException();
+	}
+
+	public MinMax getMinMax() {
+		return limitFinder.getMinMax();
+	}
+
+	public double getMaxX() {
+		return limitFinder.getMaxX();
+	}
+
+	public double getMaxY() {
+		return limitFinder.getMaxY();
+	}
+
+	public int size() {
+		return commands.size();
+	}
+
+	/**
+	 * Draws again everything that has been recorded. The given
+	 * <code>UGraphic</code> must be in its initial state: the recorded
+	 * translations already include the origin given at creation.
+	 */
+	@SuppressWarnings("unchecked")
+	public void replay(UGraphic ug) {
+		State last = null;
+		UGraphic current = null;
+		for (Command command : commands) {
+			if (command.state != last) {
+				last = command.state;
+				current = last.applyTo(ug);
+			}
+			switch (command.kind) {
+			case DRAW:
+				current.draw((UShape) command.arg);
+				break;
+			case START_URL:
+				current.startUrl((Url) command.arg);
+				break;
+			case CLOSE_URL:
+				current.closeUrl();
+				break;
+			case START_GROUP:
+				current.startGroup((Map<UGroupType, String>) command.arg);
+				break;
+			case CLOSE_GROUP:
+				current.closeGroup();
+				break;
+			}
+		}
+	}
+
+}
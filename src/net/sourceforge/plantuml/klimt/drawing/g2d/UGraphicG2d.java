@@ -80,6 +80,7 @@ public class UGraphicG2d extends AbstractUGraphic<Graphics2D> implements EnsureV
 
 	private final double dpiFactor;
 	private final FileFormat format;
+	private int pngCompression = -1;
 
 	private UAntiAliasing antiAliasing = UAntiAliasing.ANTI_ALIASING_ON;
 
@@ -114,6 +115,7 @@ public class UGraphicG2d extends AbstractUGraphic<Graphics2D> implements EnsureV
 		this.allUrls = other.allUrls;
 		this.antiAliasing = other.antiAliasing;
 		this.format = other.format;
+		this.pngCompression = other.pngCompression;
 		register(dpiFactor);
 	}
 
@@ -202,6 +204,14 @@ public class UGraphicG2d extends AbstractUGraphic<Graphics2D> implements EnsureV
 		this.bufferedImage = bufferedImage;
 	}
 
+	/**
+	 * Compression level of the PNG image, from 0 (fastest) to 9 (smallest), or
+	 * -1 for the default level.
+	 */
+	public void setPngCompression(int pngCompression) {
+		this.pngCompression = pngCompression;
+	}
+
 	public Graphics2D getGraphics2D() {
 		return getGraphicObject();
 	}
@@ -209,7 +219,7 @@ public class UGraphicG2d extends AbstractUGraphic<Graphics2D> implements EnsureV
 	@Override
 	public void writeToStream(OutputStream os, String metadata, int dpi) throws IOException {
 		final BufferedImage im = getBufferedImage();
-		PngIO.write(im, getColorMapper(), os, metadata, dpi);
+		PngIO.write(im, getColorMapper(), os, metadata, dpi, pngCompression);
 	}
 
 	@Override
@@ -0,0 +1,69 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ *
+ */
+package net.sourceforge.plantuml.klimt.drawing.svg;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+
+/**
+ * The document written by {@link SvgGraphics}.
+ * 
+ * There are two implementations: {@link SvgDocumentDom} which builds a full
+ * org.w3c.dom tree and serializes it with a Transformer, and
+ * {@link SvgDocumentStream} which serializes elements as soon as they are
+ * complete. Both produce the same bytes.
+ */
+abstract class SvgDocument {
+
+	public static SvgDocument create(boolean streaming) throws ParserConfigurationException {
+		if (streaming)
+			return new SvgDocumentStream();
+		return new SvgDocumentDom();
+	}
+
+	/**
+	 * Return the <code>svg</code> root element.
+	 */
+	public abstract SvgElement getRoot();
+
+	public abstract SvgElement createElement(String name);
+
+	public abstract void write(OutputStream os) throws TransformerException, IOException;
+
+}
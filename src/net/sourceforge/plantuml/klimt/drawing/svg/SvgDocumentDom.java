@@ -0,0 +1,171 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ *
+ */
+package net.sourceforge.plantuml.klimt.drawing.svg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import net.sourceforge.plantuml.utils.Log;
+import net.sourceforge.plantuml.xml.XmlFactories;
+
+/**
+ * SVG document backed by a DOM tree, serialized at the end with a Transformer.
+ */
+final class SvgDocumentDom extends SvgDocument {
+
+	private final Document document;
+	private final DomElement root;
+	private final Map<String, String> images = new HashMap<String, String>();
+
+	SvgDocumentDom() throws ParserConfigurationException {
+		final DocumentBuilder builder = XmlFactories.newDocumentBuilder();
+		this.document = builder.newDocument();
+		this.document.setXmlStandalone(true);
+		this.root = new DomElement(document.createElement("svg"));
+		this.document.appendChild(root.element);
+	}
+
+	@Override
+	public SvgElement getRoot() {
+		return root;
+	}
+
+	@Override
+	public SvgElement createElement(String name) {
+		return new DomElement(document.createElement(name));
+	}
+
+	private Transformer getTransformer() throws TransformerException {
+		final Transformer transformer = XmlFactories.newTransformer();
+		Log.info("Transformer=" + transformer.getClass());
+
+		// // Sets the standalone property in the first line of
+		// // the output file.
+		transformer.setOutputProperty(OutputKeys.STANDALONE, "no");
+		transformer.setOutputProperty(OutputKeys.ENCODING, "us-ascii");
+		// transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, "SVG 1.1");
+		// transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
+
+		return transformer;
+	}
+
+	@Override
+	public void write(OutputStream os) throws TransformerException, IOException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		getTransformer().transform(new DOMSource(document), new StreamResult(baos));
+		String s = new String(baos.toByteArray());
+		for (Map.Entry<String, String> ent : images.entrySet()) {
+			final String k = "<" + ent.getKey() + "/>";
+			s = s.replace(k, ent.getValue());
+		}
+		s = removeXmlHeader(s);
+		os.write(s.getBytes());
+	}
+
+	private String removeXmlHeader(String s) {
+		s = s.replaceFirst("^<\\?xml [^<>]+?\\>", "");
+		return s;
+	}
+
+	class DomElement implements SvgElement {
+
+		private final Element element;
+
+		private DomElement(Element element) {
+			this.element = element;
+		}
+
+		@Override
+		public void setAttribute(String name, String value) {
+			element.setAttribute(name, value);
+		}
+
+		@Override
+		public void appendChild(SvgElement child) {
+			element.appendChild(((DomElement) child).element);
+		}
+
+		@Override
+		public void insertFirst(SvgElement child) {
+			element.insertBefore(((DomElement) child).element, element.getFirstChild());
+		}
+
+		@Override
+		public void setTextContent(String text) {
+			element.setTextContent(text);
+		}
+
+		@Override
+		public void appendCData(String data) {
+			element.appendChild(document.createCDATASection(data));
+		}
+
+		@Override
+		public void appendComment(String comment) {
+			element.appendChild(document.createComment(comment));
+		}
+
+		@Override
+		public void appendRawXml(String xml) {
+			// The DOM cannot hold unparsed XML: a placeholder element is used and
+			// replaced once the document has been serialized.
+			final String key = "imagesvginlined" + images.size();
+			element.appendChild(document.createElement(key));
+			images.put(key, xml);
+		}
+
+		@Override
+		public boolean hasChildNodes() {
+			return element.getFirstChild() != null;
+		}
+
+	}
+
+}
@@ -0,0 +1,337 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ *
+ */
+package net.sourceforge.plantuml.klimt.drawing.svg;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SVG document serialized on the fly, without any DOM.
+ * 
+ * The attributes of the root element (size, viewBox...) are only known at the
+ * very end, so nothing can be sent to the output stream before
+ * {@link #write(OutputStream)}. What is kept in memory is as small as possible:
+ * only the direct children of the root element (<code>defs</code>, the main
+ * <code>g</code>, styles and scripts) stay mutable objects. Any other element
+ * is turned into text as soon as it is appended to its parent, so drawing a
+ * shape just appends a few bytes to the body of its group.
+ * 
+ * The output mimics byte for byte the one of the JDK Transformer used by
+ * {@link SvgDocumentDom} with the us-ascii encoding: sorted attributes with
+ * namespace declarations first, numeric character references for non ASCII
+ * characters, same escaping rules for text, attributes, CDATA and comments.
+ */
+final class SvgDocumentStream extends SvgDocument {
+
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
+	// Namespace declarations first, then the same order as the DOM attribute map
+	private static final Comparator<String> ATTRIBUTE_ORDER = new Comparator<String>() {
+		public int compare(String name1, String name2) {
+			final boolean ns1 = isNamespaceDeclaration(name1);
+			final boolean ns2 = isNamespaceDeclaration(name2);
+			if (ns1 != ns2)
+				return ns1 ? -1 : 1;
+			return name1.compareTo(name2);
+		}
+	};
+
+	private static boolean isNamespaceDeclaration(String name) {
+		return name.equals("xmlns") || name.startsWith("xmlns:");
+	}
+
+	private final StreamElement root = new StreamElement("svg");
+
+	@Override
+	public SvgElement getRoot() {
+		return root;
+	}
+
+	@Override
+	public SvgElement createElement(String name) {
+		return new StreamElement(name);
+	}
+
+	@Override
+	public void write(OutputStream os) throws IOException {
+		final Writer writer = new OutputStreamWriter(os, Charset.defaultCharset());
+		root.writeTo(writer);
+		writer.flush();
+	}
+
+	class StreamElement implements SvgElement {
+
+		private final String name;
+		private final Map<String, String> attributes = new TreeMap<>(ATTRIBUTE_ORDER);
+		private final StringBuilder content = new StringBuilder();
+		private String first;
+		// Only used by the root element
+		private List<StreamElement> children;
+		private boolean attachedToRoot;
+
+		private StreamElement(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void setAttribute(String name, String value) {
+			attributes.put(name, value);
+		}
+
+		@Override
+		public void appendChild(SvgElement child) {
+			final StreamElement elt = (StreamElement) child;
+			if (elt.attachedToRoot)
+				root.children.remove(elt);
+
+			if (this == root) {
+				if (children == null)
+					children = new ArrayList<>();
+				children.add(elt);
+				elt.attachedToRoot = true;
+			} else {
+				elt.attachedToRoot = false;
+				elt.appendTo(content);
+			}
+		}
+
+		@Override
+		public void insertFirst(SvgElement child) {
+			final StringBuilder sb = new StringBuilder();
+			((StreamElement) child).appendTo(sb);
+			first = first == null ? sb.toString() : sb.toString() + first;
+		}
+
+		@Override
+		public void setTextContent(String text) {
+			content.setLength(0);
+			first = null;
+			appendText(content, text);
+		}
+
+		@Override
+		public void appendCData(String data) {
+			SvgDocumentStream.appendCData(content, data);
+		}
+
+		@Override
+		public void appendComment(String comment) {
+			SvgDocumentStream.appendComment(content, comment);
+		}
+
+		@Override
+		public void appendRawXml(String xml) {
+			content.append(xml);
+		}
+
+		@Override
+		public boolean hasChildNodes() {
+			return first != null || content.length() > 0 || (children != null && children.size() > 0);
+		}
+
+		private void appendStartTag(StringBuilder sb) {
+			sb.append('<').append(name);
+			for (Map.Entry<String, String> ent : attributes.entrySet()) {
+				sb.append(' ').append(ent.getKey()).append("=\"");
+				appendAttributeValue(sb, ent.getValue());
+				sb.append('"');
+			}
+			if (hasChildNodes())
+				sb.append('>');
+			else
+				sb.append("/>");
+		}
+
+		private void appendTo(StringBuilder sb) {
+			appendStartTag(sb);
+			if (hasChildNodes() == false)
+				return;
+			if (first != null)
+				sb.append(first);
+			sb.append(content);
+			if (children != null)
+				for (StreamElement child : children)
+					child.appendTo(sb);
+			sb.append("</").append(name).append('>');
+		}
+
+		private void writeTo(Writer writer) throws IOException {
+			final StringBuilder sb = new StringBuilder();
+			appendStartTag(sb);
+			writer.write(sb.toString());
+			if (hasChildNodes() == false)
+				return;
+			if (first != null)
+				writer.write(first);
+			write(writer, content);
+			if (children != null)
+				for (StreamElement child : children)
+					child.writeTo(writer);
+			writer.write("</" + name + ">");
+		}
+
+	}
+
+	// Avoid the copy of the whole buffer that Writer.append(CharSequence) would do
+	private static void write(Writer writer, StringBuilder sb) throws IOException {
+		final char[] buffer = new char[8192];
+		for (int i = 0; i < sb.length(); i += buffer.length) {
+			final int end = Math.min(sb.length(), i + buffer.length);
+			sb.getChars(i, end, buffer, 0);
+			writer.write(buffer, 0, end - i);
+		}
+	}
+
+	private static void appendCharRef(StringBuilder sb, int codePoint) {
+		sb.append("&#").append(codePoint).append(';');
+	}
+
+	static void appendAttributeValue(StringBuilder sb, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			final int c = value.codePointAt(i);
+			if (Character.isSupplementaryCodePoint(c))
+				i++;
+
+			if (c == '&')
+				sb.append("&amp;");
+			else if (c == '<')
+				sb.append("&lt;");
+			else if (c == '>')
+				sb.append("&gt;");
+			else if (c == '"')
+				sb.append("&quot;");
+			else if (c < 0x20 || c >= 0x80)
+				appendCharRef(sb, c);
+			else
+				sb.append((char) c);
+		}
+	}
+
+	static void appendText(StringBuilder sb, String text) {
+		for (int i = 0; i < text.length(); i++) {
+			final int c = text.codePointAt(i);
+			if (Character.isSupplementaryCodePoint(c))
+				i++;
+
+			if (c == '&')
+				sb.append("&amp;");
+			else if (c == '<')
+				sb.append("&lt;");
+			else if (c == '>')
+				sb.append("&gt;");
+			else if (c == '\n')
+				sb.append(LINE_SEPARATOR);
+			else if (c == '\t')
+				sb.append('\t');
+			else if (c < 0x20 || c >= 0x7F)
+				appendCharRef(sb, c);
+			else
+				sb.append((char) c);
+		}
+	}
+
+	// Same state machine as the JDK serializer: a section is only opened by a
+	// character that can be written as is, and new lines are never put in it.
+	static void appendCData(StringBuilder sb, String data) {
+		boolean opened = false;
+		if (data.length() > 0 && isWrittenAsIs(data.charAt(0))) {
+			sb.append("<![CDATA[");
+			opened = true;
+		}
+		for (int i = 0; i < data.length(); i++) {
+			final char c = data.charAt(i);
+			if (c == '\n') {
+				sb.append(LINE_SEPARATOR);
+			} else if (isWrittenAsIs(c) == false) {
+				if (opened)
+					sb.append("]]>");
+				opened = false;
+				final int codePoint = data.codePointAt(i);
+				if (Character.isSupplementaryCodePoint(codePoint))
+					i++;
+				appendCharRef(sb, codePoint);
+			} else if (c == ']' && i < data.length() - 2 && data.startsWith("]>", i + 1)) {
+				sb.append("]]]]><![CDATA[>");
+				i += 2;
+			} else {
+				if (opened == false)
+					sb.append("<![CDATA[");
+				opened = true;
+				sb.append(c);
+			}
+		}
+		if (opened)
+			sb.append("]]>");
+	}
+
+	private static boolean isWrittenAsIs(char c) {
+		if (c < 0x20)
+			return c == '\t' || c == '\n' || c == '\r';
+		return c < 0x80;
+	}
+
+	// Like the JDK serializer, "--" is not allowed in a comment and characters
+	// outside us-ascii are lost
+	static void appendComment(StringBuilder sb, String comment) {
+		sb.append("<!--");
+		boolean wasDash = false;
+		for (int i = 0; i < comment.length(); i++) {
+			final int c = comment.codePointAt(i);
+			if (Character.isSupplementaryCodePoint(c))
+				i++;
+
+			if (wasDash && c == '-')
+				sb.append(' ');
+			wasDash = c == '-';
+			if (c >= 0x80)
+				sb.append('?');
+			else
+				sb.append((char) c);
+		}
+		if (wasDash)
+			sb.append(' ');
+		sb.append("-->");
+	}
+
+}
@@ -0,0 +1,69 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ *
+ */
+package net.sourceforge.plantuml.klimt.drawing.svg;
+
+/**
+ * A node of the SVG tree built by {@link SvgGraphics}.
+ * 
+ * Only the operations actually needed by SvgGraphics are exposed, so that the
+ * tree can either be a real DOM or be serialized on the fly.
+ */
+interface SvgElement {
+
+	void setAttribute(String name, String value);
+
+	/**
+	 * Append a child. As with the DOM, a child already attached somewhere else is
+	 * moved.
+	 */
+	void appendChild(SvgElement child);
+
+	void insertFirst(SvgElement child);
+
+	void setTextContent(String text);
+
+	void appendCData(String data);
+
+	void appendComment(String comment);
+
+	/**
+	 * Append some XML that is copied verbatim to the output.
+	 */
+	void appendRawXml(String xml);
+
+	boolean hasChildNodes();
+
+}
@@ -52,18 +52,8 @@ import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.w3c.dom.CDATASection;
-import org.w3c.dom.Comment;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 import net.sourceforge.plantuml.FileUtils;
 import net.sourceforge.plantuml.code.TranscoderUtil;
@@ -81,7 +71,6 @@ import net.sourceforge.plantuml.security.SecurityProfile;
 import net.sourceforge.plantuml.security.SecurityUtils;
 import net.sourceforge.plantuml.utils.Base64Coder;
 import net.sourceforge.plantuml.utils.Log;
-import net.sourceforge.plantuml.xml.XmlFactories;
 
 public class SvgGraphics {
 	// ::remove file when __HAXE__
@@ -104,10 +93,10 @@ public class SvgGraphics {
 	private static final String XLINK_HREF1 = "href";
 	private static final String XLINK_HREF2 = "xlink:href";
 
-	final private Document document;
-	final private Element root;
-	final private Element defs;
-	final private Element gRoot;
+	final private SvgDocument document;
+	final private SvgElement root;
+	final private SvgElement defs;
+	final private SvgElement gRoot;
 
 	private String fill = "black";
 	private String stroke = "black";
@@ -125,7 +114,7 @@ public class SvgGraphics {
 
 	private final SvgOption option;
 
-	private Element pendingBackground;
+	private SvgElement pendingBackground;
 	private boolean robotoAdded = false;
 
 	final protected void ensureVisible(double x, double y) {
@@ -139,9 +128,9 @@ public class SvgGraphics {
 
 	public SvgGraphics(long seed, SvgOption option) {
 		try {
-			this.document = getDocument();
-
 			this.option = option;
+			this.document = SvgDocument.create(option.isStreaming());
+
 			final XDimension2D minDim = option.getMinDim();
 			ensureVisible(minDim.getWidth(), minDim.getHeight());
 
@@ -159,11 +148,11 @@ public class SvgGraphics {
 				defs.appendChild(getPathHover(option.getHover()));
 
 			if (option.isInteractive()) {
-				final Element styles = getStylesForInteractiveMode();
+				final SvgElement styles = getStylesForInteractiveMode();
 				if (styles != null)
 					defs.appendChild(styles);
 
-				final Element script = getScriptForInteractiveMode();
+				final SvgElement script = getScriptForInteractiveMode();
 				if (script != null)
 					defs.appendChild(script);
 			}
@@ -196,7 +185,7 @@ public class SvgGraphics {
 		if (robotoAdded)
 			return;
 		// https://stackoverflow.com/questions/36253961/using-google-fonts-with-svg-object
-		final Element style = document.createElement("style");
+		final SvgElement style = document.createElement("style");
 		style.setAttribute("type", "text/css");
 		style.setTextContent(
 				"@import url('https://fonts.googleapis.com/css?family=Roboto:400,100,100italic,300,300italic,400italic,500,500italic,700,700italic,900,900italic');");
@@ -207,19 +196,18 @@ public class SvgGraphics {
 	private void paintBackcolor(String back) {
 		setFillColor(back);
 		setStrokeColor(null);
+		// Inserted at the beginning of the main group once its size is known
 		pendingBackground = createRectangleInternal(0, 0, 0, 0);
-		getG().appendChild(pendingBackground);
 	}
 
-	private Element getStylesForInteractiveMode() {
-		final Element style = simpleElement("style");
+	private SvgElement getStylesForInteractiveMode() {
+		final SvgElement style = simpleElement("style");
 		final String text = getData("default.css");
 		if (text == null)
 			return null;
 
-		final CDATASection cdata = document.createCDATASection(text);
 		style.setAttribute("type", "text/css");
-		style.appendChild(cdata);
+		style.appendCData(text);
 		return style;
 	}
 
@@ -251,8 +239,8 @@ public class SvgGraphics {
 //		return style;
 //	}
 
-	private Element getScriptForInteractiveMode() {
-		final Element script = document.createElement("script");
+	private SvgElement getScriptForInteractiveMode() {
+		final SvgElement script = document.createElement("script");
 		final String text = getData("default.js");
 		if (text == null)
 			return null;
@@ -274,11 +262,10 @@ public class SvgGraphics {
 		return null;
 	}
 
-	private Element getPathHover(String hover) {
-		final Element style = simpleElement("style");
-		final CDATASection cdata = document.createCDATASection("path:hover { stroke: " + hover + " !important;}");
+	private SvgElement getPathHover(String hover) {
+		final SvgElement style = simpleElement("style");
 		style.setAttribute("type", "text/css");
-		style.appendChild(cdata);
+		style.appendCData("path:hover { stroke: " + hover + " !important;}");
 		return style;
 	}
 
@@ -288,26 +275,16 @@ public class SvgGraphics {
 
 	// This method returns a reference to a simple XML
 	// element node that has no attributes.
-	private Element simpleElement(String type) {
-		final Element theElement = (Element) document.createElement(type);
+	private SvgElement simpleElement(String type) {
+		final SvgElement theElement = document.createElement(type);
 		root.appendChild(theElement);
 		return theElement;
 	}
 
-	private Document getDocument() throws ParserConfigurationException {
-		final DocumentBuilder builder = XmlFactories.newDocumentBuilder();
-		final Document document = builder.newDocument();
-		document.setXmlStandalone(true);
-		return document;
-	}
-
 	// This method returns a reference to a root node that
 	// has already been appended to the document.
-	private Element getRootNode() {
-		// Create the root node named svg and append it to
-		// the document.
-		final Element svg = (Element) document.createElement("svg");
-		document.appendChild(svg);
+	private SvgElement getRootNode() {
+		final SvgElement svg = document.getRoot();
 
 		// Set some attributes on the root node that are
 		// required for proper rendering. Note that the
@@ -324,7 +301,7 @@ public class SvgGraphics {
 	public void svgEllipse(double x, double y, double xRadius, double yRadius, double deltaShadow) {
 		manageShadow(deltaShadow);
 		if (hidden == false) {
-			final Element elt = (Element) document.createElement("ellipse");
+			final SvgElement elt = document.createElement("ellipse");
 			elt.setAttribute("cx", format(x));
 			elt.setAttribute("cy", format(y));
 			elt.setAttribute("rx", format(xRadius));
@@ -341,7 +318,7 @@ public class SvgGraphics {
 		if (hidden == false) {
 			final String path = "M" + format(x1) + "," + format(y1) + " A" + format(rx) + "," + format(ry) + " 0 0 0 "
 					+ format(x2) + " " + format(y2);
-			final Element elt = (Element) document.createElement("path");
+			final SvgElement elt = document.createElement("path");
 			elt.setAttribute("d", path);
 			fillMe(elt);
 			elt.setAttribute("style", getStyle());
@@ -357,7 +334,7 @@ public class SvgGraphics {
 		final List<Object> key = Arrays.asList((Object) color1, color2, policy);
 		String id = gradients.get(key);
 		if (id == null) {
-			final Element elt = (Element) document.createElement("linearGradient");
+			final SvgElement elt = document.createElement("linearGradient");
 			if (policy == '|') {
 				elt.setAttribute("x1", "0%");
 				elt.setAttribute("y1", "50%");
@@ -383,10 +360,10 @@ public class SvgGraphics {
 			gradients.put(key, id);
 			elt.setAttribute("id", id);
 
-			final Element stop1 = (Element) document.createElement("stop");
+			final SvgElement stop1 = document.createElement("stop");
 			stop1.setAttribute("stop-color", color1);
 			stop1.setAttribute("offset", "0%");
-			final Element stop2 = (Element) document.createElement("stop");
+			final SvgElement stop2 = document.createElement("stop");
 			stop2.setAttribute("stop-color", color2);
 			stop2.setAttribute("offset", "100%");
 
@@ -414,9 +391,9 @@ public class SvgGraphics {
 		this.strokeDasharray = strokeDasharray;
 	}
 
-	private final List<Element> pendingAction = new ArrayList<>();
+	private final List<SvgElement> pendingAction = new ArrayList<>();
 
-	public final Element getG() {
+	private SvgElement getG() {
 		if (pendingAction.size() == 0)
 			return gRoot;
 
@@ -432,7 +409,7 @@ public class SvgGraphics {
 		}
 		manageShadow(deltaShadow);
 		if (hidden == false) {
-			final Element elt = createRectangleInternal(x, y, width, height);
+			final SvgElement elt = createRectangleInternal(x, y, width, height);
 			addFilterShadowId(elt, deltaShadow);
 			if (rx > 0 && ry > 0) {
 				elt.setAttribute("rx", format(rx));
@@ -449,8 +426,8 @@ public class SvgGraphics {
 		ensureVisible(x + width + 2 * deltaShadow, y + height + 2 * deltaShadow);
 	}
 
-	private Element createRectangleInternal(double x, double y, double width, double height) {
-		final Element elt = (Element) document.createElement("rect");
+	private SvgElement createRectangleInternal(double x, double y, double width, double height) {
+		final SvgElement elt = document.createElement("rect");
 		elt.setAttribute("x", format(x));
 		elt.setAttribute("y", format(y));
 		elt.setAttribute("width", format(width));
@@ -463,7 +440,7 @@ public class SvgGraphics {
 	public void svgLine(double x1, double y1, double x2, double y2, double deltaShadow) {
 		manageShadow(deltaShadow);
 		if (hidden == false) {
-			final Element elt = (Element) document.createElement("line");
+			final SvgElement elt = document.createElement("line");
 			elt.setAttribute("x1", format(x1));
 			elt.setAttribute("y1", format(y1));
 			elt.setAttribute("x2", format(x2));
@@ -509,7 +486,7 @@ public class SvgGraphics {
 		assert points.length % 2 == 0;
 		manageShadow(deltaShadow);
 		if (hidden == false) {
-			final Element elt = (Element) document.createElement("polygon");
+			final SvgElement elt = document.createElement("polygon");
 			final StringBuilder sb = new StringBuilder();
 			for (double coord : points) {
 				if (sb.length() > 0)
@@ -534,7 +511,7 @@ public class SvgGraphics {
 			String fontStyle, String textDecoration, double textLength, Map<String, String> attributes,
 			String textBackColor) {
 		if (hidden == false) {
-			final Element elt = (Element) document.createElement("text");
+			final SvgElement elt = document.createElement("text");
 			// required for web-kit based browsers
 			// elt.setAttribute("text-rendering", "geometricPrecision");
 			elt.setAttribute("x", format(x));
@@ -591,7 +568,7 @@ public class SvgGraphics {
 			// http://forum.plantuml.net/9158/hyperlink-without-underline
 			// if (textDecoration != null && textDecoration.contains("underline")) {
 			// final double delta = 2;
-			// final Element elt2 = (Element) document.createElement("line");
+			// final Element elt2 = document.createElement("line");
 			// elt2.setAttribute("x1", format(x));
 			// elt2.setAttribute("y1", format(y + delta));
 			// elt2.setAttribute("x2", format(x + textLength));
@@ -622,7 +599,7 @@ public class SvgGraphics {
 			return id;
 
 		id = getIdFilterBackColor(color);
-		final Element filter = (Element) document.createElement("filter");
+		final SvgElement filter = document.createElement("filter");
 		filter.setAttribute("id", id);
 		filter.setAttribute("x", "0");
 		filter.setAttribute("y", "0");
@@ -634,42 +611,7 @@ public class SvgGraphics {
 		return id;
 	}
 
-	private Transformer getTransformer() throws TransformerException {
-		final Transformer transformer = XmlFactories.newTransformer();
-		Log.info("Transformer=" + transformer.getClass());
-
-		// // Sets the standalone property in the first line of
-		// // the output file.
-		transformer.setOutputProperty(OutputKeys.STANDALONE, "no");
-		transformer.setOutputProperty(OutputKeys.ENCODING, "us-ascii");
-		// transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, "SVG 1.1");
-		// transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
-
-		return transformer;
-	}
-
 	public void createXml(OutputStream os) throws TransformerException, IOException {
-		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		createXmlInternal(baos);
-		String s = new String(baos.toByteArray());
-		for (Map.Entry<String, String> ent : images.entrySet()) {
-			final String k = "<" + ent.getKey() + "/>";
-			s = s.replace(k, ent.getValue());
-		}
-		s = removeXmlHeader(s);
-		os.write(s.getBytes());
-	}
-
-	private String removeXmlHeader(String s) {
-		s = s.replaceFirst("^<\\?xml [^<>]+?\\>", "");
-		return s;
-	}
-
-	private void createXmlInternal(OutputStream os) throws TransformerException {
-		// Get a DOMSource object that represents the
-		// Document object
-		final DOMSource source = new DOMSource(document);
-
 		final int maxXscaled = (int) (maxX * option.getScale());
 		final int maxYscaled = (int) (maxY * option.getScale());
 		String style = "width:" + maxXscaled + "px;height:" + maxYscaled + "px;";
@@ -691,13 +633,10 @@ public class SvgGraphics {
 		if (pendingBackground != null) {
 			pendingBackground.setAttribute("width", format(maxX));
 			pendingBackground.setAttribute("height", format(maxY));
+			gRoot.insertFirst(pendingBackground);
 		}
 
-		// Get a StreamResult object that points to the
-		// screen. Then transform the DOM sending XML to
-		// the screen.
-		final StreamResult scrResult = new StreamResult(os);
-		getTransformer().transform(source, scrResult);
+		document.write(os);
 	}
 
 	public void svgPath(double x, double y, UPath path, double deltaShadow) {
@@ -738,7 +677,7 @@ public class SvgGraphics {
 
 		}
 		if (hidden == false) {
-			final Element elt = (Element) document.createElement("path");
+			final SvgElement elt = document.createElement("path");
 			elt.setAttribute("d", sb.toString());
 			elt.setAttribute("style", getStyle());
 			fillMe(elt);
@@ -755,7 +694,7 @@ public class SvgGraphics {
 		}
 	}
 
-	private void fillMe(Element elt) {
+	private void fillMe(SvgElement elt) {
 		if (fill.equals("#00000000"))
 			return;
 
@@ -768,7 +707,7 @@ public class SvgGraphics {
 		}
 	}
 
-	private void addFilterShadowId(final Element elt, double deltaShadow) {
+	private void addFilterShadowId(final SvgElement elt, double deltaShadow) {
 		if (deltaShadow > 0)
 			elt.setAttribute("filter", "url(#" + shadowId + ")");
 
@@ -830,7 +769,7 @@ public class SvgGraphics {
 
 	public void fill(int windingRule) {
 		if (hidden == false) {
-			final Element elt = (Element) document.createElement("path");
+			final SvgElement elt = document.createElement("path");
 			elt.setAttribute("d", currentPath.toString());
 			fillMe(elt);
 			// elt elt.setAttribute("style", getStyle());
@@ -868,7 +807,7 @@ public class SvgGraphics {
 
 	public void svgImage(BufferedImage image, double x, double y) throws IOException {
 		if (hidden == false) {
-			final Element elt = (Element) document.createElement("image");
+			final SvgElement elt = document.createElement("image");
 			elt.setAttribute("width", format(image.getWidth()));
 			elt.setAttribute("height", format(image.getHeight()));
 			elt.setAttribute("x", format(x));
@@ -881,17 +820,12 @@ public class SvgGraphics {
 		ensureVisible(x + image.getWidth(), y + image.getHeight());
 	}
 
-	private final Map<String, String> images = new HashMap<String, String>();
-
 	private void svgImageUnsecure(UImageSvg image, double x, double y) {
 		if (hidden == false) {
 			String svg = manageScale(image);
 			final String pos = "<svg x=\"" + format(x) + "\" y=\"" + format(y) + "\">";
 			svg = pos + svg.substring(5);
-			final String key = "imagesvginlined" + image.getMD5Hex() + images.size();
-			final Element elt = (Element) document.createElement(key);
-			getG().appendChild(elt);
-			images.put(key, svg);
+			getG().appendRawXml(svg);
 		}
 		ensureVisible(x, y);
 		ensureVisible(x + image.getData("width"), y + image.getData("height"));
@@ -905,7 +839,7 @@ public class SvgGraphics {
 
 		// https://developer.mozilla.org/fr/docs/Web/SVG/Element/image
 		if (hidden == false) {
-			final Element elt = (Element) document.createElement("image");
+			final SvgElement elt = document.createElement("image");
 			elt.setAttribute("width", format(image.getWidth()));
 			elt.setAttribute("height", format(image.getHeight()));
 			elt.setAttribute("x", format(x));
@@ -971,7 +905,7 @@ public class SvgGraphics {
 		if (deltaShadow != 0) {
 			if (withShadow == false) {
 				// <filter id="f1" x="0" y="0" width="120%" height="120%">
-				final Element filter = (Element) document.createElement("filter");
+				final SvgElement filter = document.createElement("filter");
 				filter.setAttribute("id", shadowId);
 				filter.setAttribute("x", "-1");
 				filter.setAttribute("y", "-1");
@@ -990,9 +924,9 @@ public class SvgGraphics {
 		}
 	}
 
-	private void addFilter(Element filter, String name, String... data) {
+	private void addFilter(SvgElement filter, String name, String... data) {
 		assert data.length % 2 == 0;
-		final Element elt = (Element) document.createElement(name);
+		final SvgElement elt = document.createElement(name);
 		for (int i = 0; i < data.length; i += 2)
 			elt.setAttribute(data[i], data[i + 1]);
 
@@ -1022,38 +956,34 @@ public class SvgGraphics {
 		// ::comment when __CORE__
 		final String signature = getMetadataHex(metadata).replace("--", "- -");
 		final String comment = "SRC=[" + signature + "]";
-		final Comment commentElement = document.createComment(comment);
-		getG().appendChild(commentElement);
+		getG().appendComment(comment);
 		// ::done
 	}
 
 	public void addComment(String comment) {
-		final Comment commentElement = document.createComment(comment);
-		getG().appendChild(commentElement);
+		getG().appendComment(comment);
 	}
 
 	public void addScriptTag(String url) {
-		final Element script = document.createElement("script");
+		final SvgElement script = document.createElement("script");
 		script.setAttribute("type", "text/javascript");
 		script.setAttribute("xlink:href", url);
 		root.appendChild(script);
 	}
 
 	public void addScript(String scriptTextPath) {
-		final Element script = document.createElement("script");
+		final SvgElement script = document.createElement("script");
 		final String scriptText = getData(scriptTextPath);
-		final CDATASection cDATAScript = document.createCDATASection(scriptText);
-		script.appendChild(cDATAScript);
+		script.appendCData(scriptText);
 		root.appendChild(script);
 	}
 
 	public void addStyle(String cssStylePath) {
-		final Element style = simpleElement("style");
+		final SvgElement style = simpleElement("style");
 		final String text = getData(cssStylePath);
 
-		final CDATASection cdata = document.createCDATASection(text);
 		style.setAttribute("type", "text/css");
-		style.appendChild(cdata);
+		style.appendCData(text);
 		root.appendChild(style);
 	}
 
@@ -1067,7 +997,7 @@ public class SvgGraphics {
 //		if (pendingAction.size() > 0)
 //			closeLink();
 
-		pendingAction.add(0, (Element) document.createElement("a"));
+		pendingAction.add(0, document.createElement("a"));
 		pendingAction.get(0).setAttribute("target", target);
 		pendingAction.get(0).setAttribute(XLINK_HREF1, url);
 		pendingAction.get(0).setAttribute(XLINK_HREF2, url);
@@ -1101,9 +1031,9 @@ public class SvgGraphics {
 
 	public void closeLink() {
 		if (pendingAction.size() > 0) {
-			final Element element = pendingAction.get(0);
+			final SvgElement element = pendingAction.get(0);
 			pendingAction.remove(0);
-			if (element.getFirstChild() != null) {
+			if (element.hasChildNodes()) {
 				// Empty link
 				getG().appendChild(element);
 			}
@@ -1114,7 +1044,7 @@ public class SvgGraphics {
 		if (typeIdents.isEmpty())
 			throw new IllegalArgumentException();
 
-		pendingAction.add(0, (Element) document.createElement("g"));
+		pendingAction.add(0, document.createElement("g"));
 
 		for (Map.Entry<UGroupType, String> typeIdent : typeIdents.entrySet()) {
 			if (typeIdent.getKey() == UGroupType.ID)
@@ -52,15 +52,16 @@ public class SvgOption {
 	private final ColorMapper colorMapper;
 	private final String linkTarget;
 	private final String font;
+	private final boolean streaming;
 
 	public static SvgOption basic() {
 		return new SvgOption(false, LengthAdjust.defaultValue(), "none", null, true, new XDimension2D(0, 0), null, 1.0,
-				ColorMapper.IDENTITY, null, null);
+				ColorMapper.IDENTITY, null, null, false);
 	}
 
 	private SvgOption(boolean interactive, LengthAdjust lengthAdjust, String preserveAspectRatio, String hover,
 			boolean svgDimensionStyle, XDimension2D minDim, HColor backcolor, double scale, ColorMapper colorMapper,
-			String linkTarget, String font) {
+			String linkTarget, String font, boolean streaming) {
 		this.interactive = interactive;
 		this.lengthAdjust = lengthAdjust;
 		this.preserveAspectRatio = preserveAspectRatio;
@@ -72,61 +73,67 @@ public class SvgOption {
 		this.colorMapper = colorMapper;
 		this.linkTarget = linkTarget;
 		this.font = font;
+		this.streaming = streaming;
 	}
 
 	public SvgOption withInteractive() {
 		return new SvgOption(true, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim, backcolor,
-				scale, colorMapper, linkTarget, font);
+				scale, colorMapper, linkTarget, font, streaming);
 	}
 
 	public SvgOption withLengthAdjust(LengthAdjust lengthAdjust) {
 		return new SvgOption(interactive, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim,
-				backcolor, scale, colorMapper, linkTarget, font);
+				backcolor, scale, colorMapper, linkTarget, font, streaming);
 	}
 
 	public SvgOption withPreserveAspectRatio(String preserveAspectRatio) {
 		return new SvgOption(interactive, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim,
-				backcolor, scale, colorMapper, linkTarget, font);
+				backcolor, scale, colorMapper, linkTarget, font, streaming);
 	}
 
 	public SvgOption withHoverPathColorRGB(String hover) {
 		return new SvgOption(interactive, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim,
-				backcolor, scale, colorMapper, linkTarget, font);
+				backcolor, scale, colorMapper, linkTarget, font, streaming);
 	}
 
 	public SvgOption withSvgDimensionStyle(boolean svgDimensionStyle) {
 		return new SvgOption(interactive, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim,
-				backcolor, scale, colorMapper, linkTarget, font);
+				backcolor, scale, colorMapper, linkTarget, font, streaming);
 	}
 
 	public SvgOption withMinDim(XDimension2D minDim) {
 		return new SvgOption(interactive, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim,
-				backcolor, scale, colorMapper, linkTarget, font);
+				backcolor, scale, colorMapper, linkTarget, font, streaming);
 	}
 
 	public SvgOption withBackcolor(HColor backcolor) {
 		return new SvgOption(interactive, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim,
-				backcolor, scale, colorMapper, linkTarget, font);
+				backcolor, scale, colorMapper, linkTarget, font, streaming);
 	}
 
 	public SvgOption withScale(double scale) {
 		return new SvgOption(interactive, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim,
-				backcolor, scale, colorMapper, linkTarget, font);
+				backcolor, scale, colorMapper, linkTarget, font, streaming);
 	}
 
 	public SvgOption withColorMapper(ColorMapper colorMapper) {
 		return new SvgOption(interactive, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim,
-				backcolor, scale, colorMapper, linkTarget, font);
+				backcolor, scale, colorMapper, linkTarget, font, streaming);
 	}
 
 	public SvgOption withLinkTarget(String linkTarget) {
 		return new SvgOption(interactive, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim,
-				backcolor, scale, colorMapper, linkTarget, font);
+				backcolor, scale, colorMapper, linkTarget, font, streaming);
 	}
 
 	public SvgOption withFont(String font) {
 		return new SvgOption(interactive, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim,
-				backcolor, scale, colorMapper, linkTarget, font);
+				backcolor, scale, colorMapper, linkTarget, font, streaming);
+	}
+
+	public SvgOption withStreaming(boolean streaming) {
+		return new SvgOption(interactive, lengthAdjust, preserveAspectRatio, hover, svgDimensionStyle, minDim,
+				backcolor, scale, colorMapper, linkTarget, font, streaming);
 	}
 
 	public String getPreserveAspectRatio() {
@@ -173,4 +180,8 @@ public class SvgOption {
 		return font;
 	}
 
+	public final boolean isStreaming() {
+		return streaming;
+	}
+
 }
@@ -0,0 +1,225 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ *
+ */
+package net.sourceforge.plantuml.klimt.font;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.geom.Rectangle2D;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sourceforge.plantuml.klimt.geom.XDimension2D;
+
+/**
+ * Thread-safe cache of text measurements, shared by all the string bounders
+ * using the same {@link FontRenderContext}.
+ * <p>
+ * Layout measures the same (font, text) pairs many times, so whole-string
+ * dimensions and descents are kept in bounded maps. When a map is full, it is
+ * simply cleared: measurements are cheap to recompute and this avoids any
+ * global lock.
+ * <p>
+ * On a miss, text made only of printable ASCII characters is measured by adding
+ * the advances of its characters, stored in a table per font. This gives the
+ * very same result as <code>Font.getStringBounds()</code>, which uses the same
+ * float additions for such simple text. Setting
+ * <code>PLANTUML_ASCII_ADVANCES=false</code> disables this table.
+ */
+public class FontMetricsCache {
+	// ::remove file when __HAXE__
+
+	private static final int MAX_ENTRIES = 50000;
+	private static final int MAX_FONTS = 1000;
+
+	private static final char FIRST_ASCII = ' ';
+	private static final char LAST_ASCII = '~';
+
+	private final FontRenderContext frc;
+	private final boolean useAsciiAdvances;
+
+	private final Map<Key, XDimension2D> dimensions = new ConcurrentHashMap<Key, XDimension2D>();
+	private final Map<Key, Double> descents = new ConcurrentHashMap<Key, Double>();
+	private final Map<Font, AsciiAdvances> advances = new ConcurrentHashMap<Font, AsciiAdvances>();
+
+	private final AtomicLong dimensionHits = new AtomicLong();
+	private final AtomicLong dimensionMisses = new AtomicLong();
+	private final AtomicLong descentHits = new AtomicLong();
+	private final AtomicLong descentMisses = new AtomicLong();
+	private final AtomicLong asciiMeasures = new AtomicLong();
+
+	public FontMetricsCache(FontRenderContext frc) {
+		this(frc, defaultForAsciiAdvances());
+	}
+
+	public FontMetricsCache(FontRenderContext frc, boolean useAsciiAdvances) {
+		this.frc = frc;
+		this.useAsciiAdvances = useAsciiAdvances;
+	}
+
+	private static boolean defaultForAsciiAdvances() {
+		final String value = System.getProperty("PLANTUML_ASCII_ADVANCES") != null
+				? System.getProperty("PLANTUML_ASCII_ADVANCES")
+				: System.getenv("PLANTUML_ASCII_ADVANCES");
+		return "false".equalsIgnoreCase(value) == false && "off".equalsIgnoreCase(value) == false;
+	}
+
+	static class Key {
+
+		private final Font font;
+		private final String text;
+		private final int hash;
+
+		Key(Font font, String text) {
+			this.font = font;
+			this.text = text;
+			this.hash = font.hashCode() * 31 + text.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			final Key other = (Key) obj;
+			return hash == other.hash && text.equals(other.text) && font.equals(other.font);
+		}
+	}
+
+	static class AsciiAdvances {
+
+		private final float[] advances = new float[LAST_ASCII - FIRST_ASCII + 1];
+		private final float height;
+
+		AsciiAdvances(Font font, FontRenderContext frc) {
+			for (char c = FIRST_ASCII; c <= LAST_ASCII; c++)
+				advances[c - FIRST_ASCII] = (float) font.getStringBounds(String.valueOf(c), frc).getWidth();
+
+			final LineMetrics lineMetrics = font.getLineMetrics("", frc);
+			this.height = lineMetrics.getAscent() + lineMetrics.getDescent() + lineMetrics.getLeading();
+		}
+
+		XDimension2D getDimension(String text) {
+			// Summed in float, in the same order as the JDK does
+			float width = 0;
+			for (int i = 0; i < text.length(); i++)
+				width += advances[text.charAt(i) - FIRST_ASCII];
+
+			return new XDimension2D(width, height);
+		}
+	}
+
+	public XDimension2D getDimension(Font font, String text) {
+		final Key key = new Key(font, text);
+		XDimension2D result = dimensions.get(key);
+		if (result != null) {
+			dimensionHits.incrementAndGet();
+			return result;
+		}
+		dimensionMisses.incrementAndGet();
+		result = computeDimension(font, text);
+		if (dimensions.size() >= MAX_ENTRIES)
+			dimensions.clear();
+		dimensions.put(key, result);
+		return result;
+	}
+
+	public double getDescent(Font font, String text) {
+		final Key key = new Key(font, text);
+		Double result = descents.get(key);
+		if (result != null) {
+			descentHits.incrementAndGet();
+			return result;
+		}
+		descentMisses.incrementAndGet();
+		final LineMetrics lineMetrics = font.getLineMetrics(text, frc);
+		result = (double) lineMetrics.getDescent();
+		if (descents.size() >= MAX_ENTRIES)
+			descents.clear();
+		descents.put(key, result);
+		return result;
+	}
+
+	private XDimension2D computeDimension(Font font, String text) {
+		if (useAsciiAdvances && font.hasLayoutAttributes() == false && isPrintableAscii(text)) {
+			asciiMeasures.incrementAndGet();
+			return getAsciiAdvances(font).getDimension(text);
+		}
+		final Rectangle2D rect = font.getStringBounds(text, frc);
+		return new XDimension2D(rect.getWidth(), rect.getHeight());
+	}
+
+	private AsciiAdvances getAsciiAdvances(Font font) {
+		AsciiAdvances result = advances.get(font);
+		if (result == null) {
+			result = new AsciiAdvances(font, frc);
+			if (advances.size() >= MAX_FONTS)
+				advances.clear();
+			advances.put(font, result);
+		}
+		return result;
+	}
+
+	private static boolean isPrintableAscii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			if (c < FIRST_ASCII || c > LAST_ASCII)
+				return false;
+		}
+		return true;
+	}
+
+	public void clear() {
+		dimensions.clear();
+		descents.clear();
+		advances.clear();
+	}
+
+	public String getStatistics() {
+		return "dimensions " + ratio(dimensionHits.get(), dimensionMisses.get()) + ", descents "
+				+ ratio(descentHits.get(), descentMisses.get()) + ", ascii measures " + asciiMeasures.get();
+	}
+
+	private static String ratio(long hits, long misses) {
+		final long total = hits + misses;
+		final long percent = total == 0 ? 0 : 100 * hits / total;
+		return hits + "/" + total + " hits (" + percent + "%)";
+	}
+
+}
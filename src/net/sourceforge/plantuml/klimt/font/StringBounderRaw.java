@@ -46,9 +46,16 @@ public abstract class StringBounderRaw implements StringBounder {
 	// ::remove file when __HAXE__
 
 	private final FontRenderContext frc;
+	private final FontMetricsCache metricsCache;
 
 	protected StringBounderRaw(FontRenderContext frc) {
 		this.frc = frc;
+		this.metricsCache = null;
+	}
+
+	protected StringBounderRaw(FontMetricsCache metricsCache) {
+		this.frc = null;
+		this.metricsCache = metricsCache;
 	}
 
 	public final XDimension2D calculateDimension(UFont font, String text) {
@@ -69,6 +76,9 @@ public abstract class StringBounderRaw implements StringBounder {
 	protected abstract XDimension2D calculateDimensionInternal(UFont font, String text);
 
 	public double getDescent(UFont font, String text) {
+		if (metricsCache != null)
+			return metricsCache.getDescent(font.getUnderlayingFont(UFontContext.G2D), text);
+
 		final LineMetrics lineMetrics = font.getUnderlayingFont(UFontContext.G2D).getLineMetrics(text, frc);
 		final double descent = lineMetrics.getDescent();
 		return descent;
@@ -38,7 +38,9 @@ package net.sourceforge.plantuml.klimt.font;
 import java.awt.Font;
 import java.awt.GraphicsEnvironment;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.sourceforge.plantuml.StringUtils;
 
@@ -61,6 +63,50 @@ public class UFont {
 	}
 	// ::done
 
+	// Fonts are immutable, so identical ones are shared rather than created again
+	// for every style resolution
+	private static final int MAX_INTERNED = 10000;
+	private static final Map<FontKey, UFont> interned = new ConcurrentHashMap<>();
+	private static final Map<String, String> existingFamilies = new ConcurrentHashMap<>();
+
+	static class FontKey {
+
+		private final String family;
+		private final String name;
+		private final int style;
+		private final float size;
+		private final boolean derived;
+
+		FontKey(String family, String name, int style, float size, boolean derived) {
+			this.family = family;
+			this.name = name;
+			this.style = style;
+			this.size = size;
+			this.derived = derived;
+		}
+
+		@Override
+		public int hashCode() {
+			return ((family.hashCode() * 31 + name.hashCode()) * 31 + style) * 31 + Float.floatToIntBits(size)
+					+ (derived ? 1 : 0);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			final FontKey other = (FontKey) obj;
+			return style == other.style && size == other.size && derived == other.derived
+					&& family.equals(other.family) && name.equals(other.name);
+		}
+	}
+
+	private static UFont intern(FontKey key, UFont font) {
+		if (interned.size() >= MAX_INTERNED)
+			interned.clear();
+
+		final UFont previous = interned.putIfAbsent(key, font);
+		return previous == null ? font : previous;
+	}
+
 	public String toStringDebug() {
 		final StringBuilder sb = new StringBuilder();
 		sb.append(getPortableFontName());
@@ -70,9 +116,14 @@ public class UFont {
 	}
 
 	public static UFont build(String fontFamily, int fontStyle, int fontSize) {
+		final FontKey key = new FontKey(fontFamily, fontFamily, fontStyle, fontSize, false);
+		final UFont result = interned.get(key);
+		if (result != null)
+			return result;
+
 		final String family = getExistingFontFamily(fontFamily);
 		final Font font = new Font(family, fontStyle, fontSize);
-		return new UFont(font, fontFamily);
+		return intern(key, new UFont(font, fontFamily));
 	}
 
 	private UFont(Font font, String family) {
@@ -81,6 +132,17 @@ public class UFont {
 	}
 
 	public static String getExistingFontFamily(String fontFamily) {
+		String result = existingFamilies.get(fontFamily);
+		if (result == null) {
+			result = resolveFontFamily(fontFamily);
+			if (existingFamilies.size() >= MAX_INTERNED)
+				existingFamilies.clear();
+			existingFamilies.put(fontFamily, result);
+		}
+		return result;
+	}
+
+	private static String resolveFontFamily(String fontFamily) {
 		if (fontFamily.contains(",")) {
 			for (String name : fontFamily.split(",")) {
 				name = StringUtils.eventuallyRemoveStartingAndEndingDoubleQuote(name.trim()).trim();
@@ -116,7 +178,7 @@ public class UFont {
 	}
 
 	public UFont goTikz(int delta) {
-		return new UFont(new Font("Serif", getStyle(), getSize() + delta), "Serif");
+		return build("Serif", getStyle(), getSize() + delta);
 	}
 
 	public static UFont monospaced(int size) {
@@ -128,11 +190,21 @@ public class UFont {
 	}
 
 	public UFont withSize(float size) {
-		return new UFont(font.deriveFont(size), family);
+		final FontKey key = new FontKey(String.valueOf(family), font.getName(), getStyle(), size, true);
+		final UFont result = interned.get(key);
+		if (result != null)
+			return result;
+
+		return intern(key, new UFont(font.deriveFont(size), family));
 	}
 
 	public UFont withStyle(int style) {
-		return new UFont(font.deriveFont(style), family);
+		final FontKey key = new FontKey(String.valueOf(family), font.getName(), style, font.getSize2D(), true);
+		final UFont result = interned.get(key);
+		if (result != null)
+			return result;
+
+		return intern(key, new UFont(font.deriveFont(style), family));
 	}
 
 	public UFont bold() {
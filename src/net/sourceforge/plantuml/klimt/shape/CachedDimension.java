@@ -0,0 +1,99 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ * 
+ *
+ */
+package net.sourceforge.plantuml.klimt.shape;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sourceforge.plantuml.klimt.font.StringBounder;
+import net.sourceforge.plantuml.klimt.geom.XDimension2D;
+
+/**
+ * Remembers the last dimension computed by a composite {@link TextBlock}.
+ * <p>
+ * Composite blocks compute their dimension from their children, and layout
+ * (including the {@link LimitFinder} sizing pass) asks for it many times, so
+ * nested blocks end up measured again and again. The dimension is kept for
+ * the {@link StringBounder} instance that computed it: a new rendering uses
+ * new string bounders, so the cache never outlives a render pass.
+ * <p>
+ * Only blocks whose dimension depends solely on their (immutable) children
+ * should use this class.
+ */
+public final class CachedDimension {
+	// ::remove file when __HAXE__
+
+	private static final AtomicLong computed = new AtomicLong();
+	private static final AtomicLong reused = new AtomicLong();
+
+	private volatile Entry last;
+
+	static final class Entry {
+		private final StringBounder stringBounder;
+		private final XDimension2D dimension;
+
+		Entry(StringBounder stringBounder, XDimension2D dimension) {
+			this.stringBounder = stringBounder;
+			this.dimension = dimension;
+		}
+	}
+
+	/**
+	 * Returns the dimension previously stored for this string bounder, or
+	 * <code>null</code> if it has to be computed.
+	 */
+	public XDimension2D get(StringBounder stringBounder) {
+		final Entry entry = last;
+		if (entry != null && entry.stringBounder == stringBounder) {
+			reused.incrementAndGet();
+			return entry.dimension;
+		}
+		return null;
+	}
+
+	public XDimension2D put(StringBounder stringBounder, XDimension2D dimension) {
+		computed.incrementAndGet();
+		last = new Entry(stringBounder, dimension);
+		return dimension;
+	}
+
+	public static String getStatistics() {
+		final long hits = reused.get();
+		final long total = hits + computed.get();
+		final long percent = total == 0 ? 0 : 100 * hits / total;
+		return hits + "/" + total + " reused (" + percent + "%)";
+	}
+
+}
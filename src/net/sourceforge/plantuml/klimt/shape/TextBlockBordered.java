@@ -60,6 +60,7 @@ public class TextBlockBordered extends AbstractTextBlock implements TextBlock {
 	private final boolean withShadow;
 	private final String id;
 	private final TextBlock textBlock;
+	private final CachedDimension cachedDimension = new CachedDimension();
 
 	TextBlockBordered(TextBlock textBlock, UStroke stroke, HColor borderColor, HColor backgroundColor,
 			double cornersize, ClockwiseTopRightBottomLeft margins, String id) {
@@ -91,9 +92,13 @@ public class TextBlockBordered extends AbstractTextBlock implements TextBlock {
 	}
 
 	public XDimension2D calculateDimension(StringBounder stringBounder) {
+		final XDimension2D cached = cachedDimension.get(stringBounder);
+		if (cached != null)
+			return cached;
+
 		final double height = getTextHeight(stringBounder);
 		final double width = getTextWidth(stringBounder);
-		return new XDimension2D(width + 1, height + 1);
+		return cachedDimension.put(stringBounder, new XDimension2D(width + 1, height + 1));
 	}
 
 	private UGraphic applyStroke(UGraphic ug) {
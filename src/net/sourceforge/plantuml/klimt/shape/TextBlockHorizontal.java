@@ -49,6 +49,7 @@ public class TextBlockHorizontal extends AbstractTextBlock implements TextBlock
 
 	private final List<TextBlock> blocks = new ArrayList<>();
 	private final VerticalAlignment alignment;
+	private final CachedDimension cachedDimension = new CachedDimension();
 
 	TextBlockHorizontal(TextBlock b1, TextBlock b2, VerticalAlignment alignment) {
 		this.blocks.add(b1);
@@ -65,11 +66,15 @@ public class TextBlockHorizontal extends AbstractTextBlock implements TextBlock
 	}
 
 	public XDimension2D calculateDimension(StringBounder stringBounder) {
+		final XDimension2D cached = cachedDimension.get(stringBounder);
+		if (cached != null)
+			return cached;
+
 		XDimension2D dim = blocks.get(0).calculateDimension(stringBounder);
 		for (int i = 1; i < blocks.size(); i++) {
 			dim = dim.mergeLR(blocks.get(i).calculateDimension(stringBounder));
 		}
-		return dim;
+		return cachedDimension.put(stringBounder, dim);
 	}
 
 	public void drawU(UGraphic ug) {
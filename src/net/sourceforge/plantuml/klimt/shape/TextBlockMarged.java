@@ -53,6 +53,7 @@ class TextBlockMarged extends AbstractTextBlock implements TextBlock, WithPorts
 	private final double right;
 	private final double bottom;
 	private final double left;
+	private final CachedDimension cachedDimension = new CachedDimension();
 
 	TextBlockMarged(TextBlock textBlock, double top, double right, double bottom, double left) {
 		this.textBlock = textBlock;
@@ -71,8 +72,12 @@ class TextBlockMarged extends AbstractTextBlock implements TextBlock, WithPorts
 	}
 
 	public XDimension2D calculateDimension(StringBounder stringBounder) {
+		final XDimension2D cached = cachedDimension.get(stringBounder);
+		if (cached != null)
+			return cached;
+
 		final XDimension2D dim = textBlock.calculateDimension(stringBounder);
-		return dim.delta(left + right, top + bottom);
+		return cachedDimension.put(stringBounder, dim.delta(left + right, top + bottom));
 	}
 
 	public void drawU(UGraphic ug) {
@@ -54,6 +54,7 @@ public class TextBlockVertical2 extends AbstractTextBlock implements TextBlock,
 
 	private final List<TextBlock> blocks = new ArrayList<>();
 	private final HorizontalAlignment horizontalAlignment;
+	private final CachedDimension cachedDimension = new CachedDimension();
 
 	TextBlockVertical2(TextBlock b1, TextBlock b2, HorizontalAlignment horizontalAlignment) {
 		this.blocks.add(b1);
@@ -87,11 +88,15 @@ public class TextBlockVertical2 extends AbstractTextBlock implements TextBlock,
 	}
 
 	public XDimension2D calculateDimension(StringBounder stringBounder) {
+		final XDimension2D cached = cachedDimension.get(stringBounder);
+		if (cached != null)
+			return cached;
+
 		XDimension2D dim = blocks.get(0).calculateDimension(stringBounder);
 		for (int i = 1; i < blocks.size(); i++)
 			dim = dim.mergeTB(blocks.get(i).calculateDimension(stringBounder));
 
-		return dim;
+		return cachedDimension.put(stringBounder, dim);
 	}
 
 	public void drawU(UGraphic ug) {
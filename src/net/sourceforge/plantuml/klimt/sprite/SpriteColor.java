@@ -35,8 +35,8 @@
  */
 package net.sourceforge.plantuml.klimt.sprite;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 
 import net.atmp.PixelImage;
 import net.sourceforge.plantuml.klimt.AffineTransformType;
@@ -99,8 +99,10 @@ public class SpriteColor implements Sprite {
 	}
 
 	public UImage toUImage(ColorMapper colorMapper, HColor backcolor, HColor forecolor) {
-		final BufferedImage im = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		return toUImage(colorMapper, backcolor, forecolor, 1);
+	}
 
+	private UImage toUImage(ColorMapper colorMapper, HColor backcolor, HColor forecolor, double scale) {
 		if (backcolor == null)
 			backcolor = HColors.WHITE;
 
@@ -108,27 +110,38 @@ public class SpriteColor implements Sprite {
 			forecolor = HColors.BLACK;
 
 		final HColorGradient gradient = HColors.gradient(backcolor, forecolor, '\0');
-		for (int col = 0; col < width; col++) {
-			for (int line = 0; line < height; line++) {
+		final SpriteImageCache.Key key = new SpriteImageCache.Key(this, gradient.getColor1().toColor(colorMapper),
+				gradient.getColor2().toColor(colorMapper), scale);
+		final UImage cached = SpriteImageCache.get(key);
+		if (cached != null)
+			return cached;
+
+		final int rgb[] = new int[16];
+		for (int grayValue = 0; grayValue < 16; grayValue++) {
+			final double coef = 1.0 * grayValue / (16 - 1);
+			rgb[grayValue] = gradient.getColor(colorMapper, coef, 255).getRGB();
+		}
+
+		final BufferedImage im = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		final int data[] = ((DataBufferInt) im.getRaster().getDataBuffer()).getData();
+		for (int line = 0; line < height; line++)
+			for (int col = 0; col < width; col++) {
 				final int localColor = color[line][col];
-				if (localColor == -1) {
-					final double coef = 1.0 * gray[line][col] / (16 - 1);
-					final Color c = gradient.getColor(colorMapper, coef, 255);
-					im.setRGB(col, line, c.getRGB());
-				} else {
-					im.setRGB(col, line, localColor);
-				}
+				if (localColor == -1)
+					data[line * width + col] = rgb[gray[line][col]] & 0xFFFFFF;
+				else
+					data[line * width + col] = localColor & 0xFFFFFF;
 			}
-		}
-		return new UImage(new PixelImage(im, AffineTransformType.TYPE_BILINEAR));
+
+		final UImage image = new UImage(new PixelImage(im, AffineTransformType.TYPE_BILINEAR));
+		return SpriteImageCache.put(key, image.scale(scale));
 	}
 
 	public TextBlock asTextBlock(final HColor color, final double scale) {
 		return new AbstractTextBlock() {
 
 			public void drawU(UGraphic ug) {
-				final UImage image = toUImage(ug.getColorMapper(), ug.getParam().getBackcolor(), color);
-				ug.draw(image.scale(scale));
+				ug.draw(toUImage(ug.getColorMapper(), ug.getParam().getBackcolor(), color, scale));
 			}
 
 			public XDimension2D calculateDimension(StringBounder stringBounder) {
@@ -0,0 +1,129 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ * 
+ *
+ */
+package net.sourceforge.plantuml.klimt.sprite;
+
+import java.awt.Color;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sourceforge.plantuml.klimt.shape.UImage;
+import net.sourceforge.plantuml.utils.Log;
+
+/**
+ * JVM-wide cache of the images rasterized from {@link SpriteMonochrome} and
+ * {@link SpriteColor}.
+ * <p>
+ * Icon heavy diagrams draw the same sprite many times with the same colors, so
+ * the image is computed once for each sprite, pair of colors and scale. Colors
+ * are stored once resolved by the {@link net.sourceforge.plantuml.klimt.color.ColorMapper}:
+ * the pixels only depend on them. Sprites are identified by instance, and must
+ * not be modified once drawn. Images are shared by all threads: the scaled
+ * bitmap, built lazily by {@link net.atmp.PixelImage}, is published safely.
+ * <p>
+ * The cache is emptied when it grows larger than its capacity.
+ */
+public final class SpriteImageCache {
+	// ::remove file when __HAXE__
+
+	private static final int CAPACITY = 1024;
+
+	private static final ConcurrentMap<Key, UImage> map = new ConcurrentHashMap<>();
+
+	private static final AtomicLong computed = new AtomicLong();
+	private static final AtomicLong reused = new AtomicLong();
+
+	static final class Key {
+		private final Sprite sprite;
+		private final int color1;
+		private final int color2;
+		private final double scale;
+
+		Key(Sprite sprite, Color color1, Color color2, double scale) {
+			this.sprite = sprite;
+			this.color1 = color1.getRGB();
+			this.color2 = color2.getRGB();
+			this.scale = scale;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof Key == false)
+				return false;
+
+			final Key other = (Key) obj;
+			return this.sprite == other.sprite && this.color1 == other.color1 && this.color2 == other.color2
+					&& Double.compare(this.scale, other.scale) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = System.identityHashCode(sprite);
+			result = 31 * result + color1;
+			result = 31 * result + color2;
+			result = 31 * result + Double.hashCode(scale);
+			return result;
+		}
+	}
+
+	private SpriteImageCache() {
+	}
+
+	static UImage get(Key key) {
+		final UImage result = map.get(key);
+		if (result != null)
+			reused.incrementAndGet();
+		return result;
+	}
+
+	static UImage put(Key key, UImage image) {
+		computed.incrementAndGet();
+		if (map.size() >= CAPACITY) {
+			Log.info("Clearing sprite image cache");
+			map.clear();
+		}
+		map.put(key, image);
+		return image;
+	}
+
+	public static String getStatistics() {
+		final long hits = reused.get();
+		final long total = hits + computed.get();
+		final long percent = total == 0 ? 0 : 100 * hits / total;
+		return hits + "/" + total + " reused (" + percent + "%)";
+	}
+
+}
@@ -35,8 +35,8 @@
  */
 package net.sourceforge.plantuml.klimt.sprite;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -177,6 +177,10 @@ public class SpriteMonochrome implements Sprite {
 	}
 
 	public UImage toUImage(ColorMapper colorMapper, HColor backcolor, HColor color) {
+		return toUImage(colorMapper, backcolor, color, 1);
+	}
+
+	private UImage toUImage(ColorMapper colorMapper, HColor backcolor, HColor color, double scale) {
 
 		if (backcolor == null || backcolor.isTransparent())
 			backcolor = HColors.WHITE.withDark(HColors.BLACK);
@@ -184,35 +188,45 @@ public class SpriteMonochrome implements Sprite {
 		if (color == null || color.isTransparent())
 			color = HColors.BLACK.withDark(HColors.WHITE);
 
-		final BufferedImage im = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
 		final HColorGradient gradient = HColors.gradient(backcolor, color, '\0');
-		double maxCoef = 0;
-		for (int col = 0; col < width; col++)
-			for (int line = 0; line < height; line++)
-				maxCoef = Math.max(maxCoef, 1.0 * gray[line][col] / (grayLevel - 1));
-
-		for (int col = 0; col < width; col++) {
-			for (int line = 0; line < height; line++) {
-				final int grayValue = gray[line][col];
-				final double coef = 1.0 * grayValue / (grayLevel - 1);
-				final int alpha;
-				if (coef > maxCoef / 4)
-					alpha = 255;
-				else
-					alpha = (int) (255 * (coef * 4 / maxCoef));
-				final Color c = gradient.getColor(colorMapper, coef, alpha);
-				im.setRGB(col, line, c.getRGB());
-			}
+		final SpriteImageCache.Key key = new SpriteImageCache.Key(this, gradient.getColor1().toColor(colorMapper),
+				gradient.getColor2().toColor(colorMapper), scale);
+		final UImage cached = SpriteImageCache.get(key);
+		if (cached != null)
+			return cached;
+
+		int maxGray = 0;
+		for (int line = 0; line < height; line++)
+			for (int col = 0; col < width; col++)
+				maxGray = Math.max(maxGray, gray[line][col]);
+		final double maxCoef = 1.0 * maxGray / (grayLevel - 1);
+
+		final int argb[] = new int[grayLevel];
+		for (int grayValue = 0; grayValue < grayLevel; grayValue++) {
+			final double coef = 1.0 * grayValue / (grayLevel - 1);
+			final int alpha;
+			if (coef > maxCoef / 4)
+				alpha = 255;
+			else
+				alpha = (int) (255 * (coef * 4 / maxCoef));
+			argb[grayValue] = gradient.getColor(colorMapper, coef, alpha).getRGB();
 		}
-		return new UImage(new PixelImage(im, AffineTransformType.TYPE_BILINEAR));
+
+		final BufferedImage im = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		final int data[] = ((DataBufferInt) im.getRaster().getDataBuffer()).getData();
+		for (int line = 0; line < height; line++)
+			for (int col = 0; col < width; col++)
+				data[line * width + col] = argb[gray[line][col]];
+
+		final UImage image = new UImage(new PixelImage(im, AffineTransformType.TYPE_BILINEAR));
+		return SpriteImageCache.put(key, image.scale(scale));
 	}
 
 	public TextBlock asTextBlock(final HColor color, final double scale) {
 		return new AbstractTextBlock() {
 
 			public void drawU(UGraphic ug) {
-				final UImage image = toUImage(ug.getColorMapper(), ug.getParam().getBackcolor(), color);
-				ug.draw(image.scale(scale));
+				ug.draw(toUImage(ug.getColorMapper(), ug.getParam().getBackcolor(), color, scale));
 			}
 
 			public XDimension2D calculateDimension(StringBounder stringBounder) {
@@ -0,0 +1,238 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ *
+ */
+package net.sourceforge.plantuml.picoweb;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.log.Logme;
+import net.sourceforge.plantuml.utils.SignatureUtils;
+import net.sourceforge.plantuml.version.Version;
+
+/**
+ * Cache of rendered diagrams for the GET endpoints of {@link PicoWebServer}.
+ * <p>
+ * The URL of a GET request fully determines the image, so entries are keyed by
+ * the encoded source, the file format and the PlantUML version. The cache is
+ * bounded by the total size of the images it holds, and evicts the least
+ * recently used entries. If a spill directory is given, evicted entries are
+ * written there and read back on the next request.
+ */
+public class PicoWebCache {
+	// ::remove folder when __CORE__
+
+	private final long maxBytes;
+	private final File spillDir;
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private long currentBytes;
+
+	private long hits;
+	private long misses;
+
+	public PicoWebCache(long maxBytes, File spillDir) {
+		this.maxBytes = maxBytes;
+		this.spillDir = spillDir;
+		if (spillDir != null)
+			spillDir.mkdirs();
+	}
+
+	/**
+	 * A rendered diagram, with the headers that describe it.
+	 */
+	public static class Entry {
+
+		private final String etag;
+		private final String returnCode;
+		private final List<String> headers;
+		private final byte[] data;
+
+		public Entry(String etag, String returnCode, List<String> headers, byte[] data) {
+			this.etag = etag;
+			this.returnCode = returnCode;
+			this.headers = Collections.unmodifiableList(new ArrayList<String>(headers));
+			this.data = data;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+		public String getReturnCode() {
+			return returnCode;
+		}
+
+		public List<String> getHeaders() {
+			return headers;
+		}
+
+		public byte[] getData() {
+			return data;
+		}
+
+		private long size() {
+			long result = data.length + etag.length() + returnCode.length();
+			for (String s : headers)
+				result += s.length();
+			return result;
+		}
+	}
+
+	public static String key(String encoded, FileFormat format) {
+		return Version.versionString() + "/" + format.name() + "/" + encoded;
+	}
+
+	public Entry get(String key) {
+		synchronized (entries) {
+			final Entry result = entries.get(key);
+			if (result != null) {
+				hits++;
+				return result;
+			}
+		}
+		final Entry spilled = readSpilled(key);
+		synchronized (entries) {
+			if (spilled == null) {
+				misses++;
+				return null;
+			}
+			hits++;
+		}
+		put(key, spilled);
+		return spilled;
+	}
+
+	public void put(String key, Entry entry) {
+		final long size = entry.size();
+		if (size > maxBytes)
+			return;
+
+		final List<Map.Entry<String, Entry>> evicted = new ArrayList<Map.Entry<String, Entry>>();
+		synchronized (entries) {
+			final Entry old = entries.put(key, entry);
+			if (old != null)
+				currentBytes -= old.size();
+			currentBytes += size;
+
+			final Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+			while (currentBytes > maxBytes && it.hasNext()) {
+				final Map.Entry<String, Entry> eldest = it.next();
+				currentBytes -= eldest.getValue().size();
+				evicted.add(eldest);
+				it.remove();
+			}
+		}
+		for (Map.Entry<String, Entry> ent : evicted)
+			spill(ent.getKey(), ent.getValue());
+	}
+
+	public String getStatistics() {
+		synchronized (entries) {
+			return "entries=" + entries.size() + " bytes=" + currentBytes + " hits=" + hits + " misses=" + misses;
+		}
+	}
+
+	private File spillFile(String key) {
+		return new File(spillDir, SignatureUtils.getMD5Hex(key) + ".cache");
+	}
+
+	private void spill(String key, Entry entry) {
+		if (spillDir == null)
+			return;
+
+		final File file = spillFile(key);
+		if (file.exists())
+			return;
+
+		final File tmp = new File(spillDir, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+		try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(tmp))) {
+			dos.writeUTF(key);
+			dos.writeUTF(entry.etag);
+			dos.writeUTF(entry.returnCode);
+			dos.writeInt(entry.headers.size());
+			for (String s : entry.headers)
+				dos.writeUTF(s);
+			dos.writeInt(entry.data.length);
+			dos.write(entry.data);
+		} catch (IOException e) {
+			Logme.error(e);
+			tmp.delete();
+			return;
+		}
+		if (tmp.renameTo(file) == false)
+			tmp.delete();
+	}
+
+	private Entry readSpilled(String key) {
+		if (spillDir == null)
+			return null;
+
+		final File file = spillFile(key);
+		if (file.exists() == false)
+			return null;
+
+		try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+			// Protects against the (unlikely) collision of two keys
+			if (dis.readUTF().equals(key) == false)
+				return null;
+
+			final String etag = dis.readUTF();
+			final String returnCode = dis.readUTF();
+			final int nbHeaders = dis.readInt();
+			final List<String> headers = new ArrayList<String>();
+			for (int i = 0; i < nbHeaders; i++)
+				headers.add(dis.readUTF());
+			final byte[] data = new byte[dis.readInt()];
+			dis.readFully(data);
+			return new Entry(etag, returnCode, headers, data);
+		} catch (IOException e) {
+			Logme.error(e);
+			file.delete();
+			return null;
+		}
+	}
+
+}
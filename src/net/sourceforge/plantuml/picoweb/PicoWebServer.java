@@ -42,13 +42,16 @@ import static net.sourceforge.plantuml.ErrorUmlType.SYNTAX_ERROR;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -79,8 +82,23 @@ import net.sourceforge.plantuml.version.Version;
 public class PicoWebServer implements Runnable {
 	// ::remove folder when __CORE__
 
+	/** Default number of connections waiting for a worker before answering 503 */
+	public static final int DEFAULT_QUEUE_SIZE = 50;
+
+	/** Default size in bytes of the cache of rendered GET requests */
+	public static final long DEFAULT_CACHE_SIZE = 32L * 1024 * 1024;
+
+	/** How long an idle persistent connection is kept open */
+	private static final int KEEP_ALIVE_TIMEOUT_MS = 5000;
+
+	/** Maximum number of requests served on a single persistent connection */
+	private static final int KEEP_ALIVE_MAX_REQUESTS = 100;
+
 	private final Socket connect;
 	private static boolean enableStop;
+	private static PicoWebCache cache;
+
+	private boolean keepAlive;
 
 	public PicoWebServer(Socket c) {
 		this.connect = c;
@@ -92,18 +110,71 @@ public class PicoWebServer implements Runnable {
 
 	public static void startServer(final int port, final String bindAddress, final boolean argEnableStop)
 			throws IOException {
+		startServer(port, bindAddress, argEnableStop, defaultNbThreads(), DEFAULT_QUEUE_SIZE, false,
+				DEFAULT_CACHE_SIZE, null);
+	}
+
+	public static void startServer(final int port, final String bindAddress, final boolean argEnableStop,
+			int nbThreads, int queueSize, boolean useVirtualThreads, long cacheSize, File cacheDir)
+			throws IOException {
 		PicoWebServer.enableStop = argEnableStop;
+		PicoWebServer.cache = cacheSize > 0 ? new PicoWebCache(cacheSize, cacheDir) : null;
 		final InetAddress bindAddress1 = bindAddress == null ? null : InetAddress.getByName(bindAddress);
 		final ServerSocket serverConnect = new ServerSocket(port, 50, bindAddress1);
 		System.err.println("webPort=" + serverConnect.getLocalPort());
-		serverLoop(serverConnect);
+		final PicoWebWorkers workers = PicoWebWorkers.create(nbThreads, queueSize, useVirtualThreads);
+		System.err.println("webThreads=" + workers.getNbThreads() + (workers.isVirtual() ? " (virtual)" : ""));
+		serverLoop(serverConnect, workers);
+	}
+
+	/**
+	 * Persistent connections keep their worker busy while idle, so the default
+	 * pool is larger than the number of cores.
+	 */
+	public static int defaultNbThreads() {
+		return 2 * Option.defaultNbThreads();
 	}
 
 	public static void serverLoop(final ServerSocket serverConnect) throws IOException {
-		while (true) {
-			final PicoWebServer myServer = new PicoWebServer(serverConnect.accept());
-			final Thread thread = new Thread(myServer);
-			thread.start();
+		if (cache == null)
+			cache = new PicoWebCache(DEFAULT_CACHE_SIZE, null);
+		serverLoop(serverConnect, PicoWebWorkers.create(defaultNbThreads(), DEFAULT_QUEUE_SIZE, false));
+	}
+
+	public static void serverLoop(final ServerSocket serverConnect, final PicoWebWorkers workers)
+			throws IOException {
+		try {
+			while (true) {
+				final Socket socket = serverConnect.accept();
+				if (workers.submit(new PicoWebServer(socket)) == false)
+					sendServiceUnavailable(socket);
+			}
+		} finally {
+			workers.shutdown();
+		}
+	}
+
+	private static void sendServiceUnavailable(Socket socket) {
+		try {
+			final OutputStream out = socket.getOutputStream();
+			final byte[] message = "Server busy, please retry later".getBytes(UTF_8);
+			final String header = "HTTP/1.1 503 Service Unavailable\r\n" //
+					+ "Retry-After: 1\r\n" //
+					+ "Connection: close\r\n" //
+					+ "Content-type: text/plain\r\n" //
+					+ "Content-length: " + message.length + "\r\n" //
+					+ "\r\n";
+			out.write(header.getBytes(UTF_8));
+			out.write(message);
+			out.flush();
+		} catch (IOException e) {
+			Logme.error(e);
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				Logme.error(e);
+			}
 		}
 	}
 
@@ -115,40 +186,24 @@ public class PicoWebServer implements Runnable {
 			in = new BufferedInputStream(connect.getInputStream());
 			out = new BufferedOutputStream(connect.getOutputStream());
 
-			final ReceivedHTTPRequest request = ReceivedHTTPRequest.fromStream(in);
-			if (request.getMethod().equals("GET")) {
-				if (request.getPath().startsWith("/png/") && handleGET(request, out, FileFormat.PNG))
-					return;
-				if (request.getPath().startsWith("/plantuml/png/") && handleGET(request, out, FileFormat.PNG))
-					return;
-				if (request.getPath().startsWith("/svg/") && handleGET(request, out, FileFormat.SVG))
-					return;
-				if (request.getPath().startsWith("/plantuml/svg/") && handleGET(request, out, FileFormat.SVG))
+			ReceivedHTTPRequest request = ReceivedHTTPRequest.fromStream(in);
+			int served = 0;
+			while (true) {
+				served++;
+				this.keepAlive = request.isKeepAlive() && served < KEEP_ALIVE_MAX_REQUESTS;
+				// Pipelined requests are simply read and answered one after the other
+				if (serve(request, out) == false || keepAlive == false)
 					return;
-				if (request.getPath().startsWith("/txt/") && handleGET(request, out, FileFormat.ATXT))
-					return;
-				if (request.getPath().startsWith("/plantuml/txt/") && handleGET(request, out, FileFormat.ATXT))
-					return;
-				if (request.getPath().startsWith("/utxt/") && handleGET(request, out, FileFormat.UTXT))
-					return;
-				if (request.getPath().startsWith("/plantuml/utxt/") && handleGET(request, out, FileFormat.UTXT))
-					return;
-				if (request.getPath().startsWith("/serverinfo") && handleInfo(out))
-					return;
-				if (request.getPath().startsWith("/plantuml/serverinfo") && handleInfo(out))
+
+				connect.setSoTimeout(KEEP_ALIVE_TIMEOUT_MS);
+				try {
+					request = ReceivedHTTPRequest.nextFromStream(in);
+				} catch (SocketTimeoutException e) {
 					return;
-				if (enableStop && (request.getPath().startsWith("/stopserver")
-						|| request.getPath().startsWith("/plantuml/stopserver")) && handleStop(out))
+				}
+				if (request == null)
 					return;
-
-			} else if (request.getMethod().equals("POST") && request.getPath().equals("/render")) {
-				handleRenderRequest(request, out);
-				return;
 			}
-			write(out, "HTTP/1.1 302 Found");
-			write(out, "Location: /plantuml/png/oqbDJyrBuGh8ISmh2VNrKGZ8JCuFJqqAJYqgIotY0aefG5G00000");
-			write(out, "");
-			out.flush();
 
 		} catch (Throwable e) {
 			try {
@@ -167,6 +222,47 @@ public class PicoWebServer implements Runnable {
 		}
 	}
 
+	/**
+	 * @return <code>true</code> if the response is delimited by its content length,
+	 *         so that the connection can be reused for another request
+	 */
+	private boolean serve(ReceivedHTTPRequest request, BufferedOutputStream out) throws Exception {
+		if (request.getMethod().equals("GET")) {
+			if (request.getPath().startsWith("/png/") && handleGET(request, out, FileFormat.PNG))
+				return true;
+			if (request.getPath().startsWith("/plantuml/png/") && handleGET(request, out, FileFormat.PNG))
+				return true;
+			if (request.getPath().startsWith("/svg/") && handleGET(request, out, FileFormat.SVG))
+				return true;
+			if (request.getPath().startsWith("/plantuml/svg/") && handleGET(request, out, FileFormat.SVG))
+				return true;
+			if (request.getPath().startsWith("/txt/") && handleGET(request, out, FileFormat.ATXT))
+				return true;
+			if (request.getPath().startsWith("/plantuml/txt/") && handleGET(request, out, FileFormat.ATXT))
+				return true;
+			if (request.getPath().startsWith("/utxt/") && handleGET(request, out, FileFormat.UTXT))
+				return true;
+			if (request.getPath().startsWith("/plantuml/utxt/") && handleGET(request, out, FileFormat.UTXT))
+				return true;
+			if (request.getPath().startsWith("/serverinfo") && handleInfo(out))
+				return false;
+			if (request.getPath().startsWith("/plantuml/serverinfo") && handleInfo(out))
+				return false;
+			if (enableStop && (request.getPath().startsWith("/stopserver")
+					|| request.getPath().startsWith("/plantuml/stopserver")) && handleStop(out))
+				return false;
+
+		} else if (request.getMethod().equals("POST") && request.getPath().equals("/render")) {
+			handleRenderRequest(request, out);
+			return true;
+		}
+		write(out, "HTTP/1.1 302 Found");
+		write(out, "Location: /plantuml/png/oqbDJyrBuGh8ISmh2VNrKGZ8JCuFJqqAJYqgIotY0aefG5G00000");
+		write(out, "");
+		out.flush();
+		return false;
+	}
+
 	private boolean handleStop(BufferedOutputStream out) throws IOException {
 		write(out, "HTTP/1.1 " + "200");
 		write(out, "Cache-Control: no-cache");
@@ -220,22 +316,43 @@ public class PicoWebServer implements Runnable {
 			throws IOException {
 		final int x = request.getPath().lastIndexOf('/');
 		final String compressed = request.getPath().substring(x + 1);
-		final Transcoder transcoder = TranscoderUtil.getDefaultTranscoderProtected();
-		final String source = transcoder.decode(compressed);
-		final SourceStringReader ssr = new SourceStringReader(source);
+		final String key = PicoWebCache.key(compressed, format);
+
+		PicoWebCache.Entry entry = cache == null ? null : cache.get(key);
+		if (entry == null) {
+			final Transcoder transcoder = TranscoderUtil.getDefaultTranscoderProtected();
+			final String source = transcoder.decode(compressed);
+			final SourceStringReader ssr = new SourceStringReader(source);
+
+			final FileFormatOption fileFormatOption = new FileFormatOption(format);
+			final List<BlockUml> blocks = ssr.getBlocks();
+			if (blocks.size() == 0)
+				return false;
+
+			// The etag only needs the preprocessed source, so there is no layout when the
+			// client already has the image
+			final String etag = "\"" + blocks.get(0).etag() + "-" + format.name() + "\"";
+			if (request.matchesEtag(etag)) {
+				sendNotModified(out, etag);
+				return true;
+			}
 
-		final FileFormatOption fileFormatOption = new FileFormatOption(format);
-		final List<BlockUml> blocks = ssr.getBlocks();
-		if (blocks.size() > 0) {
 			final Diagram system = blocks.get(0).getDiagram();
 			final ByteArrayOutputStream os = new ByteArrayOutputStream();
 			final ImageData imageData = system.exportDiagram(os, 0, fileFormatOption);
 			os.close();
-			sendDiagram(out, system, fileFormatOption, httpReturnCode(imageData.getStatus()), imageData,
-					os.toByteArray());
+			entry = new PicoWebCache.Entry(etag, httpReturnCode(imageData.getStatus()),
+					getDiagramHeaders(system, imageData), os.toByteArray());
+			if (cache != null)
+				cache.put(key, entry);
+
+		} else if (request.matchesEtag(entry.getEtag())) {
+			sendNotModified(out, entry.getEtag());
 			return true;
 		}
-		return false;
+
+		sendDiagram(out, format, entry.getReturnCode(), entry.getEtag(), entry.getHeaders(), entry.getData());
+		return true;
 	}
 
 	private void handleRenderRequest(ReceivedHTTPRequest request, BufferedOutputStream out) throws Exception {
@@ -283,29 +400,46 @@ public class PicoWebServer implements Runnable {
 	private void sendDiagram(final BufferedOutputStream out, final Diagram system,
 			final FileFormatOption fileFormatOption, final String returnCode, final ImageData imageData,
 			final byte[] fileData) throws IOException {
+		sendDiagram(out, fileFormatOption.getFileFormat(), returnCode, null, getDiagramHeaders(system, imageData),
+				fileData);
+	}
 
-		write(out, "HTTP/1.1 " + returnCode);
-		write(out, "Cache-Control: no-cache");
-		write(out, "Server: PlantUML PicoWebServer " + Version.versionString());
-		write(out, "Date: " + new Date());
-		write(out, "Access-Control-Allow-Origin: *");
-		write(out, "Content-type: " + fileFormatOption.getFileFormat().getMimeType());
-		write(out, "Content-length: " + fileData.length);
-		write(out, "X-PlantUML-Diagram-Width: " + imageData.getWidth());
-		write(out, "X-PlantUML-Diagram-Height: " + imageData.getHeight());
-		write(out, "X-PlantUML-Diagram-Description: " + system.getDescription().getDescription());
+	private List<String> getDiagramHeaders(final Diagram system, final ImageData imageData) throws IOException {
+		final List<String> headers = new ArrayList<>();
+		headers.add("X-PlantUML-Diagram-Width: " + imageData.getWidth());
+		headers.add("X-PlantUML-Diagram-Height: " + imageData.getHeight());
+		headers.add("X-PlantUML-Diagram-Description: " + system.getDescription().getDescription());
 		if (system instanceof PSystemError) {
 			final PSystemError error = (PSystemError) system;
 			for (ErrorUml err : error.getErrorsUml()) {
-				write(out, "X-PlantUML-Diagram-Error: " + err.getError());
-				write(out, "X-PlantUML-Diagram-Error-Line: " + (1 + err.getLineLocation().getPosition()));
+				headers.add("X-PlantUML-Diagram-Error: " + err.getError());
+				headers.add("X-PlantUML-Diagram-Error-Line: " + (1 + err.getLineLocation().getPosition()));
 			}
 		}
 		if (system.getTitleDisplay() != null && system.getTitleDisplay().size() == 1) {
 			final String encode = URLEncoder.encode(system.getTitleDisplay().asList().get(0).toString(), "UTF-8");
 			if (encode.length() < 256)
-				write(out, "X-PlantUML-Diagram-Title: " + encode);
+				headers.add("X-PlantUML-Diagram-Title: " + encode);
 		}
+		return headers;
+	}
+
+	private void sendDiagram(final BufferedOutputStream out, final FileFormat fileFormat, final String returnCode,
+			final String etag, final List<String> diagramHeaders, final byte[] fileData) throws IOException {
+
+		write(out, "HTTP/1.1 " + returnCode);
+		write(out, "Cache-Control: no-cache");
+		if (etag != null)
+			write(out, "ETag: " + etag);
+		write(out, "Server: PlantUML PicoWebServer " + Version.versionString());
+		write(out, "Date: " + new Date());
+		write(out, "Access-Control-Allow-Origin: *");
+		write(out, "Content-type: " + fileFormat.getMimeType());
+		write(out, "Content-length: " + fileData.length);
+		if (keepAlive == false)
+			write(out, "Connection: close");
+		for (String header : diagramHeaders)
+			write(out, header);
 
 		write(out, "X-Patreon: Support us on https://plantuml.com/patreon");
 		write(out, "X-Donate: https://plantuml.com/paypal");
@@ -316,6 +450,19 @@ public class PicoWebServer implements Runnable {
 		out.flush();
 	}
 
+	private void sendNotModified(final BufferedOutputStream out, final String etag) throws IOException {
+		write(out, "HTTP/1.1 304 Not Modified");
+		write(out, "Cache-Control: no-cache");
+		write(out, "ETag: " + etag);
+		write(out, "Server: PlantUML PicoWebServer " + Version.versionString());
+		write(out, "Date: " + new Date());
+		write(out, "Access-Control-Allow-Origin: *");
+		if (keepAlive == false)
+			write(out, "Connection: close");
+		write(out, "");
+		out.flush();
+	}
+
 	private void sendError(Throwable e, BufferedOutputStream out) throws Exception {
 		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		final PrintWriter printWriter = new PrintWriter(baos);
@@ -0,0 +1,164 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ *
+ */
+package net.sourceforge.plantuml.picoweb;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sourceforge.plantuml.log.Logme;
+
+/**
+ * Bounded pool of workers serving the connections accepted by
+ * {@link PicoWebServer}.
+ * <p>
+ * At most <code>nbThreads</code> connections are served at the same time and at
+ * most <code>queueSize</code> accepted connections are waiting for a worker.
+ * When both are used, {@link #submit(Runnable)} refuses the connection so that
+ * the caller can answer "503 Service Unavailable" instead of piling up threads.
+ * <p>
+ * With virtual threads (Java 21+), each admitted connection gets its own
+ * virtual thread and only the total of <code>nbThreads + queueSize</code>
+ * connections is bounded.
+ */
+public class PicoWebWorkers {
+	// ::remove folder when __CORE__
+
+	private final ExecutorService executor;
+	private final Semaphore slots;
+	private final int nbThreads;
+	private final boolean virtual;
+
+	private PicoWebWorkers(ExecutorService executor, int nbThreads, int queueSize, boolean virtual) {
+		this.executor = executor;
+		this.slots = new Semaphore(nbThreads + queueSize);
+		this.nbThreads = nbThreads;
+		this.virtual = virtual;
+	}
+
+	public static PicoWebWorkers create(int nbThreads, int queueSize, boolean useVirtualThreads) {
+		if (nbThreads < 1)
+			throw new IllegalArgumentException("nbThreads=" + nbThreads);
+		if (queueSize < 0)
+			throw new IllegalArgumentException("queueSize=" + queueSize);
+
+		if (useVirtualThreads) {
+			final ExecutorService virtualExecutor = newVirtualThreadPerTaskExecutor();
+			if (virtualExecutor != null)
+				return new PicoWebWorkers(virtualExecutor, nbThreads, queueSize, true);
+		}
+
+		// The semaphore already bounds the number of pending tasks, so the queue
+		// itself never grows beyond queueSize
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(nbThreads, nbThreads, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new WorkerThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		return new PicoWebWorkers(executor, nbThreads, queueSize, false);
+	}
+
+	/**
+	 * Virtual threads are only available from Java 21, so they are looked up by
+	 * reflection to keep the Java 8 compatibility.
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (NoSuchMethodException e) {
+			System.err.println("Virtual threads are not supported by this JVM, using platform threads");
+			return null;
+		} catch (Exception e) {
+			Logme.error(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Schedules the task if a slot is available.
+	 * 
+	 * @return <code>false</code> if the pool and its queue are full
+	 */
+	public boolean submit(final Runnable task) {
+		if (slots.tryAcquire() == false)
+			return false;
+
+		try {
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						task.run();
+					} finally {
+						slots.release();
+					}
+				}
+			});
+		} catch (RuntimeException e) {
+			slots.release();
+			throw e;
+		}
+		return true;
+	}
+
+	public int getNbThreads() {
+		return nbThreads;
+	}
+
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	static class WorkerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable runnable) {
+			final Thread thread = new Thread(runnable, "PicoWebWorker-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
@@ -8,10 +8,20 @@ public class ReceivedHTTPRequest {
 
 	private static final String CONTENT_LENGTH_HEADER = "content-length: ";
 
+	private static final String CONNECTION_HEADER = "connection:";
+
+	private static final String IF_NONE_MATCH_HEADER = "if-none-match:";
+
 	private String method;
 
 	private String path;
 
+	private String version;
+
+	private String connection;
+
+	private String ifNoneMatch;
+
 	private byte[] body;
 
 	public String getMethod() {
@@ -26,10 +36,57 @@ public class ReceivedHTTPRequest {
 		return body;
 	}
 
-	public static ReceivedHTTPRequest fromStream(InputStream in) throws IOException {
-		final ReceivedHTTPRequest request = new ReceivedHTTPRequest();
+	/**
+	 * Tells if the client accepts to send another request on the same connection.
+	 * HTTP/1.1 connections are persistent unless "Connection: close" is sent,
+	 * HTTP/1.0 connections only when "Connection: keep-alive" is sent.
+	 */
+	public boolean isKeepAlive() {
+		if ("HTTP/1.1".equalsIgnoreCase(version))
+			return "close".equalsIgnoreCase(connection) == false;
+
+		return "keep-alive".equalsIgnoreCase(connection);
+	}
 
+	/**
+	 * Tells if the "If-None-Match" header of the request lists this entity tag.
+	 */
+	public boolean matchesEtag(String etag) {
+		if (ifNoneMatch == null || etag == null)
+			return false;
+
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.equals("*") || candidate.equals(etag))
+				return true;
+		}
+		return false;
+	}
+
+	public static ReceivedHTTPRequest fromStream(InputStream in) throws IOException {
 		final String requestLine = readLine(in);
+		return parse(in, requestLine == null ? "" : requestLine);
+	}
+
+	/**
+	 * Reads the next request of a persistent connection.
+	 * 
+	 * @return the request, or <code>null</code> if the client has closed the
+	 *         connection before sending a new request line
+	 */
+	public static ReceivedHTTPRequest nextFromStream(InputStream in) throws IOException {
+		while (true) {
+			final String requestLine = readLine(in);
+			if (requestLine == null)
+				return null;
+			// RFC 7230 3.5: servers should ignore empty lines received prior to the request line
+			if (requestLine.isEmpty() == false)
+				return parse(in, requestLine);
+		}
+	}
+
+	private static ReceivedHTTPRequest parse(InputStream in, String requestLine) throws IOException {
+		final ReceivedHTTPRequest request = new ReceivedHTTPRequest();
 
 		final StringTokenizer tokenizer = new StringTokenizer(requestLine);
 		if (tokenizer.countTokens() != 3) {
@@ -38,16 +95,21 @@ public class ReceivedHTTPRequest {
 
 		request.method = tokenizer.nextToken().toUpperCase();
 		request.path = tokenizer.nextToken();
+		request.version = tokenizer.nextToken();
 
 		// Headers
 		int contentLength = 0;
 
 		while (true) {
 			String line = readLine(in);
-			if (line.isEmpty()) {
+			if (line == null || line.isEmpty()) {
 				break;
 			} else if (line.toLowerCase().startsWith(CONTENT_LENGTH_HEADER)) {
 				contentLength = parseContentLengthHeader(line);
+			} else if (line.toLowerCase().startsWith(CONNECTION_HEADER)) {
+				request.connection = line.substring(CONNECTION_HEADER.length()).trim();
+			} else if (line.toLowerCase().startsWith(IF_NONE_MATCH_HEADER)) {
+				request.ifNoneMatch = line.substring(IF_NONE_MATCH_HEADER.length()).trim();
 			}
 		}
 
@@ -91,11 +153,18 @@ public class ReceivedHTTPRequest {
 		return body;
 	}
 
+	/**
+	 * @return the line without its end of line, or <code>null</code> if the end of
+	 *         stream is reached before any character
+	 */
 	private static String readLine(InputStream in) throws IOException {
 		final StringBuilder builder = new StringBuilder();
 
 		while (true) {
 			int c = in.read();
+			if (c == -1 && builder.length() == 0) {
+				return null;
+			}
 			if (c == -1 || c == '\n') {
 				break;
 			}
@@ -0,0 +1,614 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ * 
+ *
+ */
+package net.sourceforge.plantuml.png;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * PNG writer used instead of the ImageIO one for generated diagrams.
+ * <p>
+ * Images using 256 colors or less are written with a palette, others as RGB or
+ * RGBA depending on transparency. The compression level goes from 0 (fastest)
+ * to 9 (smallest).
+ * <p>
+ * Large images are cut into stripes of rows which are deflated in parallel,
+ * each stripe using the end of the previous one as dictionary, and then
+ * concatenated into a single zlib stream. The stripes only depend on the
+ * image size, so the file is the same whatever the number of processors.
+ */
+public class PngEncoder {
+	// ::remove file when __CORE__
+
+	public static final int DEFAULT_LEVEL = 4;
+
+	private static final String copyleft = "Generated by https://plantuml.com";
+
+	private static final byte[] SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+	private static final int STRIPE_SIZE = 1 << 19;
+	private static final int DICTIONARY_SIZE = 1 << 15;
+	private static final int IDAT_SIZE = 1 << 16;
+
+	private static final int COLOR_TYPE_RGB = 2;
+	private static final int COLOR_TYPE_PALETTE = 3;
+	private static final int COLOR_TYPE_RGBA = 6;
+
+	private final int level;
+
+	/**
+	 * @param level between 0 and 9, or -1 for {@link #DEFAULT_LEVEL}
+	 */
+	public PngEncoder(int level) {
+		if (level == -1)
+			level = DEFAULT_LEVEL;
+
+		if (level < 0 || level > 9)
+			throw new IllegalArgumentException("level=" + level);
+
+		this.level = level;
+	}
+
+	static class Workers {
+		static final ExecutorService EXECUTOR = Executors
+				.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable runnable) {
+						final Thread thread = new Thread(runnable, "png-encoder-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	/**
+	 * Writes the image. The text chunks (and the resolution) are only written
+	 * when <code>metadata</code> is not null.
+	 */
+	public void write(BufferedImage image, OutputStream os, String metadata, int dpi, String debugData)
+			throws IOException {
+		final Pixels pixels = new Pixels(image);
+		final Palette palette = Palette.build(pixels);
+
+		final int colorType;
+		if (palette != null)
+			colorType = COLOR_TYPE_PALETTE;
+		else if (pixels.isOpaque())
+			colorType = COLOR_TYPE_RGB;
+		else
+			colorType = COLOR_TYPE_RGBA;
+
+		final DataOutputStream out = new DataOutputStream(os);
+		out.write(SIGNATURE);
+
+		final ByteArrayOutputStream header = new ByteArrayOutputStream();
+		final DataOutputStream dos = new DataOutputStream(header);
+		dos.writeInt(pixels.width);
+		dos.writeInt(pixels.height);
+		dos.write(8);
+		dos.write(colorType);
+		dos.write(0);
+		dos.write(0);
+		dos.write(0);
+		writeChunk(out, "IHDR", header.toByteArray());
+
+		if (metadata != null) {
+			if (dpi != 96) {
+				final int pixelsPerMeter = (int) (dpi / 0.0254 + 0.5);
+				header.reset();
+				dos.writeInt(pixelsPerMeter);
+				dos.writeInt(pixelsPerMeter);
+				dos.write(1);
+				writeChunk(out, "pHYs", header.toByteArray());
+			}
+			if (debugData != null)
+				writeText(out, "debug", debugData);
+			writeText(out, "copyleft", copyleft);
+			writeCompressedText(out, "plantuml", metadata);
+		}
+
+		if (palette != null)
+			palette.writeChunks(out);
+
+		writeImageData(out, new Rows(pixels, palette, colorType));
+		writeChunk(out, "IEND", new byte[0]);
+		out.flush();
+	}
+
+	private void writeImageData(DataOutputStream out, Rows rows) throws IOException {
+		final int stride = rows.rowBytes + 1;
+		final int rowsPerStripe = Math.max(1, STRIPE_SIZE / stride);
+		final int nbStripes = (rows.height + rowsPerStripe - 1) / rowsPerStripe;
+
+		final List<Stripe> stripes = new ArrayList<>();
+		for (int i = 0; i < nbStripes; i++) {
+			final int from = i * rowsPerStripe;
+			final int to = Math.min(rows.height, from + rowsPerStripe);
+			stripes.add(new Stripe(rows, level, from, to, i == nbStripes - 1));
+		}
+
+		final List<Future<Stripe>> futures = new ArrayList<>();
+		if (nbStripes > 1 && Runtime.getRuntime().availableProcessors() > 1)
+			for (Stripe stripe : stripes)
+				futures.add(Workers.EXECUTOR.submit(stripe));
+
+		final IdatOutputStream idat = new IdatOutputStream(out);
+		idat.write(0x78);
+		idat.write(zlibLevelFlags());
+		long adler = 1;
+		for (int i = 0; i < nbStripes; i++) {
+			final Stripe stripe = futures.isEmpty() ? stripes.get(i).call() : get(futures.get(i));
+			idat.write(stripe.compressed, 0, stripe.compressed.length);
+			adler = adler32Combine(adler, stripe.adler, stripe.length);
+		}
+		idat.write((int) (adler >>> 24));
+		idat.write((int) (adler >>> 16));
+		idat.write((int) (adler >>> 8));
+		idat.write((int) adler);
+		idat.flush();
+	}
+
+	private static Stripe get(Future<Stripe> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private int zlibLevelFlags() {
+		if (level < 2)
+			return 0x01;
+		if (level < 6)
+			return 0x5E;
+		if (level == 6)
+			return 0x9C;
+		return 0xDA;
+	}
+
+	// Same as adler32_combine() in zlib
+	static long adler32Combine(long adler1, long adler2, long len2) {
+		final long base = 65521;
+		final long rem = len2 % base;
+		long sum1 = adler1 & 0xFFFF;
+		long sum2 = (rem * sum1) % base;
+		sum1 += (adler2 & 0xFFFF) + base - 1;
+		sum2 += ((adler1 >> 16) & 0xFFFF) + ((adler2 >> 16) & 0xFFFF) + base - rem;
+		if (sum1 >= base)
+			sum1 -= base;
+		if (sum1 >= base)
+			sum1 -= base;
+		if (sum2 >= (base << 1))
+			sum2 -= (base << 1);
+		if (sum2 >= base)
+			sum2 -= base;
+		return sum1 | (sum2 << 16);
+	}
+
+	private static void writeText(DataOutputStream out, String keyword, String value) throws IOException {
+		final ByteArrayOutputStream data = new ByteArrayOutputStream();
+		data.write(keyword.getBytes(ISO_8859_1));
+		data.write(0);
+		data.write(value.getBytes(ISO_8859_1));
+		writeChunk(out, "tEXt", data.toByteArray());
+	}
+
+	private static void writeCompressedText(DataOutputStream out, String keyword, String value) throws IOException {
+		final ByteArrayOutputStream data = new ByteArrayOutputStream();
+		data.write(keyword.getBytes(ISO_8859_1));
+		data.write(0);
+		// Compression flag and method
+		data.write(1);
+		data.write(0);
+		// Empty language tag and translated keyword
+		data.write(0);
+		data.write(0);
+		final Deflater deflater = new Deflater();
+		try (DeflaterOutputStream dos = new DeflaterOutputStream(data, deflater)) {
+			dos.write(value.getBytes(UTF_8));
+		} finally {
+			deflater.end();
+		}
+		writeChunk(out, "iTXt", data.toByteArray());
+	}
+
+	private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+		writeChunk(out, type, data, data.length);
+	}
+
+	private static void writeChunk(DataOutputStream out, String type, byte[] data, int len) throws IOException {
+		final byte[] name = type.getBytes(ISO_8859_1);
+		final CRC32 crc = new CRC32();
+		crc.update(name);
+		crc.update(data, 0, len);
+		out.writeInt(len);
+		out.write(name);
+		out.write(data, 0, len);
+		out.writeInt((int) crc.getValue());
+	}
+
+	static class IdatOutputStream extends OutputStream {
+
+		private final DataOutputStream out;
+		private final byte[] buffer = new byte[IDAT_SIZE];
+		private int count;
+
+		IdatOutputStream(DataOutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (count == buffer.length)
+				flush();
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (count == buffer.length)
+					flush();
+				final int n = Math.min(len, buffer.length - count);
+				System.arraycopy(b, off, buffer, count, n);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (count > 0)
+				writeChunk(out, "IDAT", buffer, count);
+			count = 0;
+		}
+	}
+
+	/**
+	 * Reads the image as non premultiplied ARGB, one row at a time.
+	 */
+	static class Pixels {
+
+		private final BufferedImage image;
+		private final int width;
+		private final int height;
+		private final int[] data;
+		private final int scanlineStride;
+		private final int opaqueMask;
+
+		Pixels(BufferedImage image) {
+			this.image = image;
+			this.width = image.getWidth();
+			this.height = image.getHeight();
+			final int type = image.getType();
+			if ((type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+					&& image.getRaster().getDataBuffer() instanceof DataBufferInt
+					&& image.getSampleModel() instanceof SinglePixelPackedSampleModel
+					&& image.getRaster().getParent() == null) {
+				this.data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+				this.scanlineStride = ((SinglePixelPackedSampleModel) image.getSampleModel()).getScanlineStride();
+				this.opaqueMask = type == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
+			} else {
+				this.data = null;
+				this.scanlineStride = 0;
+				this.opaqueMask = 0;
+			}
+		}
+
+		/**
+		 * Returns the row in <code>buffer</code>, or directly in the image data
+		 * starting at the returned offset.
+		 */
+		int[] getRow(int y, int[] buffer, int[] offset) {
+			if (data != null && opaqueMask == 0) {
+				offset[0] = y * scanlineStride;
+				return data;
+			}
+			offset[0] = 0;
+			if (data != null)
+				for (int x = 0; x < width; x++)
+					buffer[x] = data[y * scanlineStride + x] | opaqueMask;
+			else
+				image.getRGB(0, y, width, 1, buffer, 0, width);
+			return buffer;
+		}
+
+		boolean isOpaque() {
+			if (opaqueMask != 0 || image.getColorModel().hasAlpha() == false)
+				return true;
+
+			final int[] buffer = new int[width];
+			final int[] offset = new int[1];
+			for (int y = 0; y < height; y++) {
+				final int[] row = getRow(y, buffer, offset);
+				for (int x = 0; x < width; x++)
+					if ((row[offset[0] + x] >>> 24) != 0xFF)
+						return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Colors of an image using 256 colors or less, with an open addressing table
+	 * to find the index of a color.
+	 */
+	static class Palette {
+
+		private final int[] colors;
+		private final int[] keys = new int[1024];
+		private final short[] indexes = new short[1024];
+		private int size;
+
+		private Palette() {
+			this.colors = new int[256];
+			Arrays.fill(indexes, (short) -1);
+		}
+
+		static Palette build(Pixels pixels) {
+			final Palette result = new Palette();
+			final int[] buffer = new int[pixels.width];
+			final int[] offset = new int[1];
+			boolean first = true;
+			int last = 0;
+			for (int y = 0; y < pixels.height; y++) {
+				final int[] row = pixels.getRow(y, buffer, offset);
+				for (int x = 0; x < pixels.width; x++) {
+					final int argb = row[offset[0] + x];
+					if (first == false && argb == last)
+						continue;
+					first = false;
+					last = argb;
+					if (result.indexOf(argb) == -1 && result.add(argb) == false)
+						return null;
+				}
+			}
+			result.sortTransparentFirst();
+			return result;
+		}
+
+		private int slot(int argb) {
+			int h = argb * 0x9E3779B9;
+			int slot = (h ^ (h >>> 16)) & (keys.length - 1);
+			while (indexes[slot] != -1 && keys[slot] != argb)
+				slot = (slot + 1) & (keys.length - 1);
+			return slot;
+		}
+
+		int indexOf(int argb) {
+			return indexes[slot(argb)];
+		}
+
+		private boolean add(int argb) {
+			if (size == colors.length)
+				return false;
+			final int slot = slot(argb);
+			keys[slot] = argb;
+			indexes[slot] = (short) size;
+			colors[size++] = argb;
+			return true;
+		}
+
+		// So that the tRNS chunk only lists the colors which are not opaque
+		private void sortTransparentFirst() {
+			final int[] sorted = new int[size];
+			int n = 0;
+			for (int i = 0; i < size; i++)
+				if ((colors[i] >>> 24) != 0xFF)
+					sorted[n++] = colors[i];
+			for (int i = 0; i < size; i++)
+				if ((colors[i] >>> 24) == 0xFF)
+					sorted[n++] = colors[i];
+			for (int i = 0; i < size; i++)
+				indexes[slot(sorted[i])] = (short) i;
+			System.arraycopy(sorted, 0, colors, 0, size);
+		}
+
+		void writeChunks(DataOutputStream out) throws IOException {
+			final byte[] plte = new byte[size * 3];
+			int transparent = 0;
+			for (int i = 0; i < size; i++) {
+				plte[3 * i] = (byte) (colors[i] >> 16);
+				plte[3 * i + 1] = (byte) (colors[i] >> 8);
+				plte[3 * i + 2] = (byte) colors[i];
+				if ((colors[i] >>> 24) != 0xFF)
+					transparent = i + 1;
+			}
+			writeChunk(out, "PLTE", plte);
+			if (transparent > 0) {
+				final byte[] trns = new byte[transparent];
+				for (int i = 0; i < transparent; i++)
+					trns[i] = (byte) (colors[i] >>> 24);
+				writeChunk(out, "tRNS", trns);
+			}
+		}
+	}
+
+	/**
+	 * Converts the rows of the image to PNG samples.
+	 */
+	static class Rows {
+
+		private final Pixels pixels;
+		private final Palette palette;
+		private final int colorType;
+		private final int height;
+		private final int bytesPerPixel;
+		private final int rowBytes;
+
+		Rows(Pixels pixels, Palette palette, int colorType) {
+			this.pixels = pixels;
+			this.palette = palette;
+			this.colorType = colorType;
+			this.height = pixels.height;
+			if (colorType == COLOR_TYPE_PALETTE)
+				this.bytesPerPixel = 1;
+			else if (colorType == COLOR_TYPE_RGB)
+				this.bytesPerPixel = 3;
+			else
+				this.bytesPerPixel = 4;
+			this.rowBytes = pixels.width * bytesPerPixel;
+		}
+
+		void readRow(int y, byte[] dest, int pos, int[] buffer, int[] offset) {
+			final int[] row = pixels.getRow(y, buffer, offset);
+			final int start = offset[0];
+			int j = pos;
+			if (colorType == COLOR_TYPE_PALETTE) {
+				int last = row[start];
+				byte index = (byte) palette.indexOf(last);
+				for (int x = 0; x < pixels.width; x++) {
+					final int argb = row[start + x];
+					if (argb != last) {
+						last = argb;
+						index = (byte) palette.indexOf(argb);
+					}
+					dest[j++] = index;
+				}
+				return;
+			}
+			for (int x = 0; x < pixels.width; x++) {
+				final int argb = row[start + x];
+				dest[j++] = (byte) (argb >> 16);
+				dest[j++] = (byte) (argb >> 8);
+				dest[j++] = (byte) argb;
+				if (colorType == COLOR_TYPE_RGBA)
+					dest[j++] = (byte) (argb >>> 24);
+			}
+		}
+	}
+
+	/**
+	 * A stripe of rows deflated on its own. The rows just before the stripe are
+	 * read again to be used as dictionary.
+	 */
+	static class Stripe implements Callable<Stripe> {
+
+		private final Rows rows;
+		private final int level;
+		private final int from;
+		private final int to;
+		private final boolean last;
+
+		private byte[] compressed;
+		private long adler;
+		private long length;
+
+		Stripe(Rows rows, int level, int from, int to, boolean last) {
+			this.rows = rows;
+			this.level = level;
+			this.from = from;
+			this.to = to;
+			this.last = last;
+		}
+
+		public Stripe call() {
+			final int stride = rows.rowBytes + 1;
+			final int start = Math.max(0, from - (DICTIONARY_SIZE + stride - 1) / stride);
+			final byte[] samples = new byte[(to - start) * stride];
+
+			// Like the ImageIO writer, rows are not filtered (filter type 0):
+			// on diagrams, this compresses better than adaptive filtering.
+			final int[] buffer = new int[rows.pixels.width];
+			final int[] offset = new int[1];
+			for (int y = start; y < to; y++)
+				rows.readRow(y, samples, (y - start) * stride + 1, buffer, offset);
+
+			final int dataStart = (from - start) * stride;
+			final int dataLength = samples.length - dataStart;
+			final Adler32 checksum = new Adler32();
+			checksum.update(samples, dataStart, dataLength);
+			this.adler = checksum.getValue();
+			this.length = dataLength;
+
+			final Deflater deflater = new Deflater(level, true);
+			try {
+				if (dataStart > 0) {
+					final int dictionaryLength = Math.min(DICTIONARY_SIZE, dataStart);
+					deflater.setDictionary(samples, dataStart - dictionaryLength, dictionaryLength);
+				}
+				deflater.setInput(samples, dataStart, dataLength);
+				final ByteArrayOutputStream result = new ByteArrayOutputStream(dataLength / 4 + 64);
+				final byte[] output = new byte[1 << 16];
+				if (last) {
+					deflater.finish();
+					while (deflater.finished() == false) {
+						final int n = deflater.deflate(output);
+						result.write(output, 0, n);
+					}
+				} else {
+					int n;
+					do {
+						n = deflater.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+						result.write(output, 0, n);
+					} while (n == output.length);
+				}
+				this.compressed = result.toByteArray();
+			} finally {
+				deflater.end();
+			}
+			return this;
+		}
+	}
+
+}
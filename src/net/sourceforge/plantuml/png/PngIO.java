@@ -35,6 +35,7 @@
  */
 package net.sourceforge.plantuml.png;
 
+import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -66,13 +67,27 @@ public class PngIO {
 
 	public static void write(RenderedImage image, ColorMapper mapper, OutputStream os, String metadata, int dpi)
 			throws IOException {
-		write(image, mapper, os, metadata, dpi, null);
+		write(image, mapper, os, metadata, dpi, -1);
+	}
+
+	/**
+	 * @param level compression level, from 0 (fastest) to 9 (smallest), or -1 for
+	 *              the default level
+	 */
+	public static void write(RenderedImage image, ColorMapper mapper, OutputStream os, String metadata, int dpi,
+			int level) throws IOException {
+		write(image, mapper, os, metadata, dpi, null, level);
 	}
 
 	private static void write(RenderedImage image, ColorMapper mapper, OutputStream os, String metadata, int dpi,
-			String debugData) throws IOException {
+			String debugData, int level) throws IOException {
 
 		// ::comment when __CORE__
+		if (image instanceof BufferedImage) {
+			new PngEncoder(level).write((BufferedImage) image, os, metadata, dpi, debugData);
+			return;
+		}
+
 		if (metadata == null)
 			// ::done
 			SImageIO.write(image, "png", os);
@@ -166,6 +166,14 @@ public class FileWithSuffix {
 		return file.getParentFile();
 	}
 
+	AFile getAFile() {
+		return file;
+	}
+
+	String getEntry() {
+		return entry;
+	}
+
 	public String getDescription() {
 		return description;
 	}
@@ -0,0 +1,287 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ *
+ * If you like this project or if you find it useful, you can support us at:
+ *
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ *
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ */
+package net.sourceforge.plantuml.preproc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.sourceforge.plantuml.file.AFile;
+import net.sourceforge.plantuml.security.SFile;
+import net.sourceforge.plantuml.text.StringLocated;
+import net.sourceforge.plantuml.text.TLineType;
+import net.sourceforge.plantuml.tim.EaterException;
+import net.sourceforge.plantuml.tim.EaterStartsub;
+import net.sourceforge.plantuml.utils.LineLocation;
+import net.sourceforge.plantuml.utils.LineLocationImpl;
+import net.sourceforge.plantuml.utils.Log;
+
+/**
+ * JVM-wide cache of the files read by <code>!include</code>,
+ * <code>!includesub</code> and <code>!theme</code>.
+ * <p>
+ * A file is read and decoded once, and its lines are kept as strings. Each
+ * include then replays them with its own {@link LineLocation}, so error
+ * messages still point to the right include chain. Whether the file contains
+ * <code>@startuml</code> and where its <code>!startsub</code> blocks are is
+ * also computed once per file.
+ * <p>
+ * Local files are keyed by canonical path, and checked against their
+ * modification time and size at each use, so an edited file is read again.
+ * Resources from the jar are never reloaded.
+ */
+public final class IncludeCache {
+	// ::remove file when __HAXE__
+
+	private static final int CAPACITY = 512;
+
+	private static final IncludeCache singleton = new IncludeCache();
+
+	private final ConcurrentMap<String, Entry> map = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	private IncludeCache() {
+	}
+
+	public static IncludeCache getInstance() {
+		return singleton;
+	}
+
+	public static class Entry {
+
+		private final String stamp;
+		private final List<String> lines;
+		private volatile Boolean containsStartDiagram;
+		private final Map<String, int[]> subs = new ConcurrentHashMap<>();
+
+		private Entry(String stamp, List<String> lines) {
+			this.stamp = stamp;
+			this.lines = lines;
+		}
+
+		/**
+		 * Same lines as a {@link ReadLineReader} on the original file would give.
+		 */
+		public ReadLine getReadLine(String description, LineLocation parent) {
+			return new ReadLineCached(lines, description, parent);
+		}
+
+		public boolean containsStartDiagram() throws IOException {
+			Boolean result = containsStartDiagram;
+			if (result == null) {
+				result = StartDiagramExtractReader
+						.containsStartDiagram(StartDiagramExtractReader.uncommentAndMerge(getReadLine("?", null)));
+				containsStartDiagram = result;
+			}
+			return result;
+		}
+
+		public StartDiagramExtractReader getStartDiagramReader(String description, String suffix) {
+			return StartDiagramExtractReader.build(getReadLine(description, null), suffix);
+		}
+
+		/**
+		 * Returns the <code>!startsub</code> block named <code>blocname</code>, or
+		 * <code>null</code>, as {@link Sub#fromFile} would after an
+		 * {@link UncommentReadLine}.
+		 */
+		public Sub getSub(String blocname, String description, LineLocation parent)
+				throws IOException, EaterException {
+			int[] index = subs.get(blocname);
+			if (index == null) {
+				index = indexSub(new UncommentReadLine(getReadLine(description, parent)), blocname);
+				subs.put(blocname, index);
+			}
+			if (index == NO_SUB)
+				return null;
+
+			final Sub result = new Sub(blocname);
+			final ReadLine reader = new UncommentReadLine(getReadLine(description, parent));
+			int next = 0;
+			for (int i = 0; next < index.length; i++) {
+				final StringLocated s = reader.readLine();
+				if (i == index[next]) {
+					result.add(s);
+					next++;
+				}
+			}
+			return result;
+		}
+
+		private static final int[] NO_SUB = new int[0];
+
+		// Same rules as Sub.fromFile()
+		private static int[] indexSub(ReadLine reader, String blocname) throws IOException, EaterException {
+			final List<Integer> found = new ArrayList<>();
+			boolean started = false;
+			boolean skip = false;
+			StringLocated s;
+			for (int i = 0; (s = reader.readLine()) != null; i++) {
+				final TLineType type = s.getTrimmed().getType();
+				if (type == TLineType.STARTSUB) {
+					final EaterStartsub eater = new EaterStartsub(s.getTrimmed());
+					eater.analyze(null, null);
+					if (eater.getSubname().equals(blocname)) {
+						skip = false;
+						started = true;
+					}
+					continue;
+				}
+				if (type == TLineType.ENDSUB && started)
+					skip = true;
+
+				if (started && skip == false)
+					found.add(i);
+			}
+			if (started == false)
+				return NO_SUB;
+
+			final int[] result = new int[found.size()];
+			for (int i = 0; i < result.length; i++)
+				result[i] = found.get(i);
+			return result;
+		}
+
+	}
+
+	/**
+	 * Returns the content of a file found by {@link ImportedFiles}, or
+	 * <code>null</code> if it cannot be opened.
+	 */
+	public Entry get(FileWithSuffix file, Charset charset) throws IOException {
+		final AFile afile = file.getAFile();
+		final SFile underlying = afile.getUnderlyingFile();
+		final String key = underlying.getCanonicalFile().getAbsolutePath() + "|" + afile + "|" + file.getEntry() + "|"
+				+ charset.name();
+		final String stamp = underlying.lastModified() + "/" + underlying.length();
+
+		final Entry cached = map.get(key);
+		if (cached != null && cached.stamp.equals(stamp)) {
+			hits.increment();
+			return cached;
+		}
+		misses.increment();
+		final Reader reader = file.getReader(charset);
+		if (reader == null)
+			return null;
+
+		return put(key, new Entry(stamp, readAll(reader, file.getDescription())));
+	}
+
+	/**
+	 * Returns the content of a resource of the jar, or <code>null</code> if there
+	 * is no such resource.
+	 */
+	public Entry getResource(String resource) throws IOException {
+		final String key = "resource:" + resource;
+		final Entry cached = map.get(key);
+		if (cached != null) {
+			hits.increment();
+			return cached;
+		}
+		misses.increment();
+		final InputStream is = Stdlib.class.getResourceAsStream(resource);
+		if (is == null)
+			return null;
+
+		return put(key, new Entry("", readAll(new InputStreamReader(is), resource)));
+	}
+
+	private Entry put(String key, Entry entry) {
+		if (map.size() >= CAPACITY) {
+			Log.info("Clearing include cache");
+			map.clear();
+		}
+		map.put(key, entry);
+		return entry;
+	}
+
+	public void clear() {
+		map.clear();
+	}
+
+	public String getStatistics() {
+		return "Include cache size=" + map.size() + "/" + CAPACITY + " hits=" + hits.sum() + " misses=" + misses.sum();
+	}
+
+	private static List<String> readAll(Reader reader, String description) throws IOException {
+		final List<String> result = new ArrayList<>();
+		final ReadLine readLine = ReadLineReader.create(reader, description);
+		try {
+			StringLocated s;
+			while ((s = readLine.readLine()) != null)
+				result.add(s.getString());
+		} finally {
+			readLine.close();
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	static class ReadLineCached implements ReadLine {
+
+		private final List<String> lines;
+		private LineLocationImpl location;
+		private int i;
+
+		private ReadLineCached(List<String> lines, String description, LineLocation parent) {
+			this.lines = lines;
+			this.location = new LineLocationImpl(description == null ? "?" : description, parent);
+		}
+
+		public StringLocated readLine() {
+			location = location.oneLineRead();
+			if (i >= lines.size())
+				return null;
+
+			return new StringLocated(lines.get(i++), location);
+		}
+
+		public void close() {
+		}
+
+	}
+
+}
@@ -65,6 +65,10 @@ public class StartDiagramExtractReader implements ReadLine {
 		return new StartDiagramExtractReader(getReadLine(is, s, desc), null);
 	}
 
+	static StartDiagramExtractReader build(ReadLine raw, String suf) {
+		return new StartDiagramExtractReader(uncommentAndMerge(raw), suf);
+	}
+
 	private StartDiagramExtractReader(ReadLine raw, String suf) {
 		int bloc = 0;
 		String uid = null;
@@ -127,7 +131,7 @@ public class StartDiagramExtractReader implements ReadLine {
 		return uncommentAndMerge(ReadLineReader.create(new InputStreamReader(tmp, charset), url.toString()));
 	}
 
-	private static ReadLine uncommentAndMerge(ReadLine reader) {
+	static ReadLine uncommentAndMerge(ReadLine reader) {
 		return new UncommentReadLine(new ReadFilterMergeLines().applyFilter(reader));
 	}
 
@@ -146,7 +150,7 @@ public class StartDiagramExtractReader implements ReadLine {
 		return containsStartDiagram(r);
 	}
 
-	private static boolean containsStartDiagram(final ReadLine r) throws IOException {
+	static boolean containsStartDiagram(final ReadLine r) throws IOException {
 		try {
 			StringLocated s = null;
 			while ((s = r.readLine()) != null)
@@ -8,6 +8,7 @@ import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -68,10 +69,15 @@ public class Stdlib {
 	private final Map<String, SoftReference<String>> cache = new ConcurrentHashMap<String, SoftReference<String>>();
 
 	private final String name;
+	private final String header;
 	private final Map<String, String> info = new HashMap<String, String>();
 
+	private volatile StdlibIndex index;
+	private volatile boolean noIndex;
+
 	private Stdlib(String name, String info) throws IOException {
 		this.name = name;
+		this.header = info;
 		fillMap(info);
 	}
 
@@ -94,7 +100,12 @@ public class Stdlib {
 			if (folder == null || folder.info.size() == 0)
 				return null;
 
-			final String data = folder.loadResource(fullname.substring(last + 1));
+			final String entry = fullname.substring(last + 1);
+			final StdlibIndex index = folder.getIndex();
+			if (index != null)
+				return index.getInputStream(entry);
+
+			final String data = folder.loadResource(entry);
 			if (data == null)
 				return null;
 
@@ -105,6 +116,48 @@ public class Stdlib {
 		}
 	}
 
+	// The index is built on first use, if PLANTUML_STDLIB_CACHE is set
+	private StdlibIndex getIndex() {
+		if (noIndex)
+			return null;
+
+		StdlibIndex result = index;
+		if (result == null)
+			synchronized (this) {
+				result = index;
+				if (result == null && noIndex == false) {
+					result = openIndex();
+					if (result == null)
+						noIndex = true;
+					else
+						index = result;
+				}
+			}
+		return result;
+	}
+
+	private StdlibIndex openIndex() {
+		final File dir = StdlibIndex.getCacheDirectory();
+		if (dir == null)
+			return null;
+
+		final File file = StdlibIndex.getFile(dir, name);
+		try {
+			StdlibIndex result = StdlibIndex.open(file, header);
+			if (result == null) {
+				Log.info("Building stdlib index " + file);
+				StdlibIndex.build(file, header, writer -> expand(null, writer));
+				result = StdlibIndex.open(file, header);
+			}
+			if (result != null)
+				Log.info("Using stdlib index " + file + " (" + result.size() + " entries)");
+			return result;
+		} catch (IOException e) {
+			Log.info("Cannot use stdlib index " + file + ": " + e);
+			return null;
+		}
+	}
+
 	public static Stdlib retrieve(final String name) throws IOException {
 		Stdlib result = all.get(name);
 		if (result == null) {
@@ -154,6 +207,16 @@ public class Stdlib {
 			}
 		}
 		Log.info("No cache for " + file);
+		final String result = expand(file, null);
+		if (result != null)
+			cache.put(file.toLowerCase(), new SoftReference<>(result));
+
+		return result;
+	}
+
+	// Decompresses the folder until the entry is found, or gives every entry to
+	// the writer when file is null
+	private String expand(String file, StdlibIndex.Writer writer) throws IOException {
 		final DataInputStream dataStream = getDataStream();
 		if (dataStream == null)
 			return null;
@@ -171,19 +234,21 @@ public class Stdlib {
 			while (true) {
 				final String filename = dataStream.readUTF();
 				if (filename.equals(SEPARATOR)) {
-					Log.info("Not found " + filename);
+					if (file != null)
+						Log.info("Not found " + filename);
 					return null;
 				}
-				if (filename.equalsIgnoreCase(file))
+				if (file == null || filename.equalsIgnoreCase(file))
 					found = new StringBuilder();
 
 				while (true) {
 					String s = dataStream.readUTF();
 					if (s.equals(SEPARATOR)) {
 						if (found != null) {
-							final String result = found.toString();
-							cache.put(file.toLowerCase(), new SoftReference<>(result));
-							return result;
+							if (file != null)
+								return found.toString();
+
+							writer.add(filename, found.toString());
 						}
 						break;
 					}
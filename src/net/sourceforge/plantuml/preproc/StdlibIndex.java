@@ -0,0 +1,277 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ *
+ * If you like this project or if you find it useful, you can support us at:
+ *
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ *
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ */
+package net.sourceforge.plantuml.preproc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.sourceforge.plantuml.version.Version;
+
+/**
+ * Local index of one stdlib folder, expanded once and then read through a
+ * memory-mapped file.
+ * <p>
+ * Without it, each entry is found by decompressing the <code>.repx</code>
+ * resources from their beginning, which takes seconds for large folders such
+ * as AWS or Azure. The index is only used when <code>PLANTUML_STDLIB_CACHE</code>
+ * (system property or environment variable) names a directory.
+ * <p>
+ * The file name carries the PlantUML version, and the header of the folder is
+ * checked again when the file is opened, so a stale index is never read. The
+ * layout is: magic number, folder header (UTF), the entries as UTF-8 bytes, the
+ * table of contents (count, then name, offset and length of each entry), and
+ * finally the offset of the table of contents on 8 bytes.
+ */
+final class StdlibIndex {
+	// ::remove file when __CORE__
+	// ::remove file when __HAXE__
+
+	private static final int MAGIC = 0x53544458;
+
+	private final ByteBuffer buffer;
+	private final Map<String, int[]> toc;
+
+	private StdlibIndex(ByteBuffer buffer, Map<String, int[]> toc) {
+		this.buffer = buffer;
+		this.toc = toc;
+	}
+
+	static File getCacheDirectory() {
+		String value = System.getProperty("PLANTUML_STDLIB_CACHE");
+		if (value == null)
+			value = System.getenv("PLANTUML_STDLIB_CACHE");
+		if (value == null || value.trim().length() == 0)
+			return null;
+
+		final File dir = new File(value.trim());
+		dir.mkdirs();
+		if (dir.isDirectory() == false)
+			return null;
+
+		return dir;
+	}
+
+	static File getFile(File dir, String name) {
+		final String version = Version.versionString().replaceAll("[^\\w.]", "_");
+		return new File(dir, name + "-" + version + "-" + Version.compileTime() + ".stdx");
+	}
+
+	/**
+	 * Opens an existing index, or returns <code>null</code> if there is none, if
+	 * it was built from another folder header or if it is damaged.
+	 */
+	static StdlibIndex open(File file, String header) throws IOException {
+		if (file.isFile() == false)
+			return null;
+
+		final MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() < 12 || channel.size() > Integer.MAX_VALUE)
+				return null;
+			// The mapping stays valid once the channel is closed
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.getInt(0) != MAGIC)
+			return null;
+
+		// A truncated or corrupted file is handled like a stale one, so that the
+		// caller builds it again
+		final long tocOffset = buffer.getLong(buffer.capacity() - 8);
+		if (tocOffset < 4 || tocOffset > buffer.capacity() - 12)
+			return null;
+
+		try {
+			final DataInputStream head = new DataInputStream(slice(buffer, 4, (int) tocOffset - 4));
+			if (head.readUTF().equals(header) == false)
+				return null;
+
+			final DataInputStream dis = new DataInputStream(
+					slice(buffer, (int) tocOffset, buffer.capacity() - 8 - (int) tocOffset));
+			final int nb = dis.readInt();
+			final Map<String, int[]> toc = new HashMap<>();
+			for (int i = 0; i < nb; i++) {
+				final String name = dis.readUTF();
+				final int offset = dis.readInt();
+				final int length = dis.readInt();
+				if (offset < 4 || length < 0 || offset > tocOffset - length)
+					return null;
+				toc.put(name, new int[] { offset, length });
+			}
+			return new StdlibIndex(buffer, toc);
+		} catch (EOFException | UTFDataFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the content of an entry, or <code>null</code> if the folder does not
+	 * contain it.
+	 */
+	InputStream getInputStream(String entry) {
+		final int[] pos = toc.get(entry.toLowerCase());
+		if (pos == null)
+			return null;
+
+		return slice(buffer, pos[0], pos[1]);
+	}
+
+	int size() {
+		return toc.size();
+	}
+
+	interface Filler {
+		void fill(Writer writer) throws IOException;
+	}
+
+	/**
+	 * Writes a new index. The file is written under a temporary name and renamed
+	 * at the end, so that a concurrent reader never sees a partial index.
+	 */
+	static void build(File file, String header, Filler filler) throws IOException {
+		final File tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+		try {
+			try (Writer writer = new Writer(tmp, header)) {
+				filler.fill(writer);
+			}
+			file.delete();
+			if (tmp.renameTo(file) == false)
+				throw new IOException("Cannot rename " + tmp);
+		} finally {
+			tmp.delete();
+		}
+	}
+
+	static final class Writer implements AutoCloseable {
+
+		private final DataOutputStream dos;
+		private final Map<String, int[]> toc = new LinkedHashMap<>();
+
+		private Writer(File file, String header) throws IOException {
+			this.dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			dos.writeInt(MAGIC);
+			dos.writeUTF(header);
+		}
+
+		void add(String name, String data) throws IOException {
+			final String key = name.toLowerCase();
+			// Like the sequential scan, the first entry of a given name wins
+			if (toc.containsKey(key))
+				return;
+
+			final byte[] bytes = data.getBytes(UTF_8);
+			toc.put(key, new int[] { dos.size(), bytes.length });
+			dos.write(bytes);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				final int tocOffset = dos.size();
+				dos.writeInt(toc.size());
+				for (Map.Entry<String, int[]> ent : toc.entrySet()) {
+					dos.writeUTF(ent.getKey());
+					dos.writeInt(ent.getValue()[0]);
+					dos.writeInt(ent.getValue()[1]);
+				}
+				dos.writeLong(tocOffset);
+			} finally {
+				dos.close();
+			}
+		}
+	}
+
+	private static InputStream slice(ByteBuffer buffer, int offset, int length) {
+		final ByteBuffer dup = buffer.duplicate();
+		dup.position(offset);
+		dup.limit(offset + length);
+		return new ByteBufferInputStream(dup.slice());
+	}
+
+	static final class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			if (buffer.hasRemaining() == false)
+				return -1;
+			return buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0)
+				return 0;
+			if (buffer.hasRemaining() == false)
+				return -1;
+			final int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public long skip(long n) {
+			final int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + skipped);
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+}
@@ -51,4 +51,12 @@ public interface IRegex {
 	public boolean match(StringLocated full);
 
 	public RegexResult matcher(String full);
+
+	/**
+	 * Tell if some string starting with this character may match. Returning
+	 * <code>true</code> is always safe.
+	 */
+	default boolean mayStartWith(char firstChar) {
+		return true;
+	}
 }
\ No newline at end of file
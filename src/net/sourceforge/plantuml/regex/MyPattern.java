@@ -35,27 +35,30 @@
  */
 package net.sourceforge.plantuml.regex;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.regex.Pattern;
 
-class MaxSizeHashMap<K, V> extends LinkedHashMap<K, V> {
-	private final int maxSize;
-
-	public MaxSizeHashMap(int maxSize) {
-		this.maxSize = maxSize;
-	}
-
-	@Override
-	protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-		return size() > maxSize;
-	}
-}
-
 // Splitter.java to be finished
 public abstract class MyPattern {
 
-	private static final Map<String, Pattern2> cache = new MaxSizeHashMap<>(512);
+	private static final int DEFAULT_CACHE_SIZE = 512;
+
+	private static final Pattern2Cache cache = new Pattern2Cache(getCacheSize());
+
+	// The size can be tuned with PLANTUML_REGEX_CACHE_SIZE
+	private static int getCacheSize() {
+		String value = System.getProperty("PLANTUML_REGEX_CACHE_SIZE");
+		if (value == null)
+			value = System.getenv("PLANTUML_REGEX_CACHE_SIZE");
+		if (value != null)
+			try {
+				final int size = Integer.parseInt(value.trim());
+				if (size > 0)
+					return size;
+			} catch (NumberFormatException e) {
+				// Keep the default size
+			}
+		return DEFAULT_CACHE_SIZE;
+	}
 
 	private static final Pattern2 EMPTY = new Pattern2(Pattern.compile(""));
 
@@ -66,24 +69,15 @@ public abstract class MyPattern {
 		if (p == null || p.length() == 0) {
 			return EMPTY;
 		}
-//		CPT1++;
-		Pattern2 result = null;
-		synchronized (cache) {
-			result = cache.get(p);
-			if (result != null) {
-				return result;
-			}
-		}
-		assert result == null;
-		result = new Pattern2(Pattern.compile(transform(p), Pattern.CASE_INSENSITIVE));
+		final Pattern2 result = cache.get(p);
+		if (result != null)
+			return result;
 
-		synchronized (cache) {
-			cache.put(p, result);
-//			CPT2++;
-//			System.err.println("CPT= " + CPT1 + " / " + CPT2 + " " + cache.size());
-		}
+		return cache.put(p, new Pattern2(Pattern.compile(transform(p), Pattern.CASE_INSENSITIVE)));
+	}
 
-		return result;
+	public static String getCacheStatistics() {
+		return cache.getStatistics();
 	}
 
 	private static String transform(String p) {
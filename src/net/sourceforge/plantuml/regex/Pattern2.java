@@ -35,6 +35,7 @@
  */
 package net.sourceforge.plantuml.regex;
 
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class Pattern2 {
@@ -49,6 +50,13 @@ public class Pattern2 {
 		return Matcher2.build(pattern, input);
 	}
 
+	// The matcher needs more input than the single character only if the pattern
+	// can match something starting with it
+	public boolean mayStartWith(char firstChar) {
+		final Matcher m = pattern.matcher(String.valueOf(firstChar));
+		return m.lookingAt() || m.hitEnd();
+	}
+
 	public String pattern() {
 		return pattern.pattern();
 	}
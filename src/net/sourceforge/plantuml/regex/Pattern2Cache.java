@@ -0,0 +1,130 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ *
+ */
+package net.sourceforge.plantuml.regex;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded and lock-free cache of compiled patterns, used by {@link MyPattern}.
+ * <p>
+ * Lookups only read a {@link ConcurrentHashMap} and set a flag, so threads
+ * rendering in parallel never wait for each other. Eviction uses the CLOCK
+ * policy: entries live in a ring, and a hand skips (and clears the flag of) the
+ * entries used since its last pass, removing the first one that was not.
+ * <p>
+ * Under contention the map may briefly hold a few more entries than the
+ * capacity.
+ */
+final class Pattern2Cache {
+
+	static class Entry {
+		private final String key;
+		private final Pattern2 value;
+		private volatile boolean referenced;
+
+		private Entry(String key, Pattern2 value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	private final ConcurrentMap<String, Entry> map = new ConcurrentHashMap<>();
+	private final AtomicReferenceArray<Entry> ring;
+	private final AtomicInteger hand = new AtomicInteger();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	Pattern2Cache(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException();
+		this.ring = new AtomicReferenceArray<>(capacity);
+	}
+
+	Pattern2 get(String key) {
+		final Entry entry = map.get(key);
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		// Avoid writing to a shared cache line when not needed
+		if (entry.referenced == false)
+			entry.referenced = true;
+		return entry.value;
+	}
+
+	Pattern2 put(String key, Pattern2 value) {
+		final Entry entry = new Entry(key, value);
+		final Entry already = map.putIfAbsent(key, entry);
+		if (already != null)
+			return already.value;
+
+		while (true) {
+			final int idx = Math.floorMod(hand.getAndIncrement(), ring.length());
+			final Entry current = ring.get(idx);
+			if (current == null) {
+				if (ring.compareAndSet(idx, null, entry))
+					return value;
+			} else if (current.referenced) {
+				current.referenced = false;
+			} else if (ring.compareAndSet(idx, current, entry)) {
+				map.remove(current.key, current);
+				evictions.increment();
+				return value;
+			}
+		}
+	}
+
+	int size() {
+		return map.size();
+	}
+
+	int capacity() {
+		return ring.length();
+	}
+
+	String getStatistics() {
+		return "Regex cache size=" + size() + "/" + capacity() + " hits=" + hits.sum() + " misses=" + misses.sum()
+				+ " evictions=" + evictions.sum();
+	}
+
+}
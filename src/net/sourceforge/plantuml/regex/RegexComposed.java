@@ -118,6 +118,16 @@ public abstract class RegexComposed implements IRegex {
 		return matcher.find();
 	}
 
+	@Override
+	public boolean mayStartWith(char firstChar) {
+		final Pattern2 pattern2 = getPattern2();
+		// Only anchored patterns can be checked on their first character
+		if (pattern2.pattern().startsWith("^") == false)
+			return true;
+
+		return pattern2.mayStartWith(firstChar);
+	}
+
 	final public String getPattern() {
 		return getPattern2().pattern();
 	}
@@ -37,7 +37,9 @@ package net.sourceforge.plantuml.regex;
 
 import java.util.concurrent.atomic.AtomicLong;
 
+import net.sourceforge.plantuml.OptionFlags;
 import net.sourceforge.plantuml.text.StringLocated;
+import net.sourceforge.plantuml.utils.Log;
 
 public final class RegexConcat extends RegexComposed implements IRegex {
 
@@ -47,6 +49,9 @@ public final class RegexConcat extends RegexComposed implements IRegex {
 	// private static final Set<String> PRINTED2 = new HashSet<>();
 
 	public static void printCacheInfo() {
+		if (OptionFlags.getInstance().isVerbose())
+			Log.info(MyPattern.getCacheStatistics());
+
 //		if (OptionFlags.getInstance().isVerbose())
 //			synchronized (cache) {
 //
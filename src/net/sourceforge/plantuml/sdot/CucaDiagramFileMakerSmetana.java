@@ -64,6 +64,8 @@ import net.sourceforge.plantuml.FileFormatOption;
 import net.sourceforge.plantuml.StringUtils;
 import net.sourceforge.plantuml.UmlDiagram;
 import net.sourceforge.plantuml.abel.CucaNote;
+import net.sourceforge.plantuml.api.CancellationToken;
+import net.sourceforge.plantuml.api.RenderCancelledException;
 import net.sourceforge.plantuml.abel.Entity;
 import net.sourceforge.plantuml.abel.GroupType;
 import net.sourceforge.plantuml.abel.LeafType;
@@ -112,6 +114,7 @@ import net.sourceforge.plantuml.svek.IEntityImage;
 import net.sourceforge.plantuml.svek.SvekNode;
 import net.sourceforge.plantuml.svek.image.EntityImageNote;
 import net.sourceforge.plantuml.svek.image.EntityImageNoteLink;
+import net.sourceforge.plantuml.utils.Log;
 import net.sourceforge.plantuml.utils.Position;
 import smetana.core.CString;
 import smetana.core.Globals;
@@ -427,13 +430,16 @@ public class CucaDiagramFileMakerSmetana extends CucaDiagramFileMaker {
 	@Override
 	public void createOneGraphic(UGraphic ug) {
 		final Globals zz = Globals.open();
+		zz.setCheckpoint(CancellationToken.current()::check);
 		try {
 			final TextBlock textBlock = getTextBlock(zz);
 			textBlock.drawU(ug);
+		} catch (RenderCancelledException e) {
+			throw e;
 		} catch (Throwable e) {
 			SmetanaDebug.printMe();
 		} finally {
-			Globals.close();
+			Globals.close(zz);
 		}
 	}
 
@@ -441,16 +447,20 @@ public class CucaDiagramFileMakerSmetana extends CucaDiagramFileMaker {
 			throws IOException {
 
 		final Globals zz = Globals.open();
+		zz.setCheckpoint(CancellationToken.current()::check);
 		try {
 			final TextBlock drawable = getTextBlock(zz);
 			return diagram.createImageBuilder(fileFormatOption).drawable(drawable).write(os);
+		} catch (RenderCancelledException e) {
+			throw e;
 		} catch (Throwable e) {
 			SmetanaDebug.printMe();
 			UmlDiagram.exportDiagramError(os, e, fileFormatOption, diagram.seed(), diagram.getMetadata(),
 					diagram.getFlashData(), getFailureText3(e));
 			return ImageDataSimple.error();
 		} finally {
-			Globals.close();
+			Globals.close(zz);
+			Log.info(Globals.getStatistics());
 		}
 	}
 
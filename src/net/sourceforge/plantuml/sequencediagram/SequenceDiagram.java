@@ -54,6 +54,7 @@ import net.sourceforge.plantuml.FileFormatOption;
 import net.sourceforge.plantuml.OptionFlags;
 import net.sourceforge.plantuml.UmlDiagram;
 import net.sourceforge.plantuml.abel.EntityPortion;
+import net.sourceforge.plantuml.api.RenderCancelledException;
 import net.sourceforge.plantuml.command.CommandExecutionResult;
 import net.sourceforge.plantuml.core.DiagramDescription;
 import net.sourceforge.plantuml.core.ImageData;
@@ -464,10 +465,16 @@ public class SequenceDiagram extends UmlDiagram {
 
 	@Override
 	public int getNbImages() {
+		// Without newpage, there is no need to lay the diagram out to count pages
+		if (autonewpage <= 0 && hasNewpage() == false)
+			return 1;
+
 		// ::comment when __CORE__
 		try {
 			// The DEBUG StringBounder is ok just to compute the number of pages here.
 			return getSequenceDiagramPngMaker(1, new FileFormatOption(FileFormat.DEBUG)).getNbPages();
+		} catch (RenderCancelledException e) {
+			throw e;
 		} catch (Throwable t) {
 			Logme.error(t);
 			// ::done
@@ -477,6 +484,14 @@ public class SequenceDiagram extends UmlDiagram {
 		// ::done
 	}
 
+	private boolean hasNewpage() {
+		for (Event ev : events)
+			if (ev instanceof Newpage)
+				return true;
+
+		return false;
+	}
+
 	public void removeHiddenParticipants() {
 		for (Participant p : new ArrayList<>(participantsList))
 			if (isAlone(p))
@@ -135,7 +135,7 @@ public class SequenceDiagramFileMakerTeoz implements FileMaker {
 		if (this.index != index)
 			throw new IllegalStateException();
 
-		return diagram.createImageBuilder(fileFormatOption).drawable(new Foo(index)).write(os);
+		return diagram.createImageBuilder(fileFormatOption).drawable(new Foo(index)).drawTwice().write(os);
 	}
 
 	class Foo implements UDrawable {
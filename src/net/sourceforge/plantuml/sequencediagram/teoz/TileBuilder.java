@@ -40,6 +40,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+import net.sourceforge.plantuml.api.CancellationToken;
 import net.sourceforge.plantuml.klimt.font.StringBounder;
 import net.sourceforge.plantuml.real.Real;
 import net.sourceforge.plantuml.sequencediagram.Delay;
@@ -65,7 +66,9 @@ public class TileBuilder {
 	public static List<Tile> buildSeveral(Iterator<Event> it, TileArguments tileArguments, Tile parent,
 			YGauge currentY) {
 		final List<Tile> tiles = new ArrayList<>();
+		final CancellationToken cancellation = CancellationToken.current();
 		while (it.hasNext()) {
+			cancellation.check();
 			final Event ev = it.next();
 			for (Tile tile : TileBuilder.buildOne(it, tileArguments, ev, parent, currentY)) {
 				tiles.add(tile);
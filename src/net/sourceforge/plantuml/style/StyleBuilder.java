@@ -35,12 +35,16 @@
  */
 package net.sourceforge.plantuml.style;
 
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.sourceforge.plantuml.skin.SkinParam;
 import net.sourceforge.plantuml.utils.Log;
@@ -48,17 +52,47 @@ import net.sourceforge.plantuml.utils.Log;
 public class StyleBuilder implements AutomaticCounter {
     // ::remove file when __HAXE__
 
-	private final Map<StyleSignatureBasic, Style> stylesMap = new LinkedHashMap<StyleSignatureBasic, Style>();
+	private Map<StyleSignatureBasic, Style> stylesMap = new LinkedHashMap<StyleSignatureBasic, Style>();
+	// Styles changed by muteStyle(), on top of stylesMap. A changed style keeps
+	// the position of the style it replaces, new ones come after stylesMap.
+	private Map<StyleSignatureBasic, Style> overlay = Collections.emptyMap();
 	private final Set<StyleSignatureBasic> printedForLog;
 	private final SkinParam skinParam;
 	private int counter;
 
+	// Both are cleared or rebuilt whenever stylesMap changes. They are never
+	// shared, so that they only hold the signatures of one diagram.
+	private final Map<StyleSignatureBasic, Style> mergedCache = new ConcurrentHashMap<>();
+	private final Map<SpecialKey, Style> mergedSpecialCache = new ConcurrentHashMap<>();
+	private volatile Index index;
+
+	// When true, stylesMap may be used by other StyleBuilders, and must be copied
+	// before any change. The overlay is never changed in place.
+	private boolean shared;
+
 	public void printMe() {
-		for (Entry<StyleSignatureBasic, Style> ent : stylesMap.entrySet())
+		for (Entry<StyleSignatureBasic, Style> ent : getAllStyles().entrySet())
 			ent.getValue().printMe();
 
 	}
 
+	private Map<StyleSignatureBasic, Style> getAllStyles() {
+		if (overlay.isEmpty())
+			return stylesMap;
+
+		final Map<StyleSignatureBasic, Style> result = new LinkedHashMap<StyleSignatureBasic, Style>(stylesMap);
+		result.putAll(overlay);
+		return result;
+	}
+
+	private Style getStyle(StyleSignatureBasic signature) {
+		final Style result = overlay.get(signature);
+		if (result != null)
+			return result;
+
+		return stylesMap.get(signature);
+	}
+
 	private StyleBuilder(SkinParam skinParam, Set<StyleSignatureBasic> printedForLog) {
 		this.skinParam = skinParam;
 		this.printedForLog = new LinkedHashSet<>();
@@ -68,6 +102,22 @@ public class StyleBuilder implements AutomaticCounter {
 		this(skinParam, new LinkedHashSet<StyleSignatureBasic>());
 	}
 
+	/**
+	 * Returns a StyleBuilder with the same styles, bound to another SkinParam.
+	 * Styles and their index are shared with this StyleBuilder until the copy is
+	 * changed by loadInternal(), so this StyleBuilder must not be changed once it
+	 * has been copied. The copy starts with empty merged styles.
+	 */
+	public StyleBuilder copyFor(SkinParam skinParam) {
+		final StyleBuilder result = new StyleBuilder(skinParam);
+		result.stylesMap = this.stylesMap;
+		result.overlay = this.overlay;
+		result.index = this.getIndex();
+		result.counter = this.counter;
+		result.shared = true;
+		return result;
+	}
+
 	public final SkinParam getSkinParam() {
 		return skinParam;
 	}
@@ -78,26 +128,44 @@ public class StyleBuilder implements AutomaticCounter {
 
 		name = name.toLowerCase();
 		final StyleSignatureBasic signature = new StyleSignatureBasic(name);
-		final Style result = stylesMap.get(signature);
+		final Style result = getStyle(signature);
 		if (result == null)
 			return new Style(signature, new EnumMap<PName, Value>(PName.class));
 
 		return result;
 	}
 
+	/**
+	 * Returns a StyleBuilder with one more style. Only the changed styles are
+	 * copied: the others stay shared with this StyleBuilder, and so do the index
+	 * and the merged styles that the change does not affect.
+	 */
 	public StyleBuilder muteStyle(Style modifiedStyle) {
-		final Map<StyleSignatureBasic, Style> copy = new LinkedHashMap<StyleSignatureBasic, Style>(stylesMap);
 		final StyleSignatureBasic signature = modifiedStyle.getSignature();
-		final Style orig = copy.get(signature);
-		if (orig == null) {
-			copy.put(signature, modifiedStyle);
-		} else {
-			final Style tmp = orig.mergeWith(modifiedStyle, MergeStrategy.OVERWRITE_EXISTING_VALUE);
-			copy.put(signature, tmp);
-		}
+		final Style orig = getStyle(signature);
+		final Style style = orig == null ? modifiedStyle
+				: orig.mergeWith(modifiedStyle, MergeStrategy.OVERWRITE_EXISTING_VALUE);
+
 		final StyleBuilder result = new StyleBuilder(skinParam, this.printedForLog);
-		result.stylesMap.putAll(copy);
+		this.shared = true;
+		result.shared = true;
+		result.stylesMap = this.stylesMap;
+		result.overlay = new LinkedHashMap<StyleSignatureBasic, Style>(this.overlay);
+		result.overlay.put(signature, style);
 		result.counter = this.counter;
+
+		final Index current = this.index;
+		if (current != null && orig != null)
+			result.index = current.withStyle(signature, style);
+
+		for (Entry<StyleSignatureBasic, Style> ent : mergedCache.entrySet())
+			if (signature.matchAll(ent.getKey()) == false)
+				result.mergedCache.put(ent.getKey(), ent.getValue());
+
+		for (Entry<SpecialKey, Style> ent : mergedSpecialCache.entrySet())
+			if (signature.matchAll(ent.getKey().signature) == false)
+				result.mergedSpecialCache.put(ent.getKey(), ent.getValue());
+
 		return result;
 	}
 
@@ -105,6 +173,12 @@ public class StyleBuilder implements AutomaticCounter {
 		if (signature.isStarred())
 			throw new IllegalArgumentException();
 
+		if (shared) {
+			this.stylesMap = new LinkedHashMap<StyleSignatureBasic, Style>(getAllStyles());
+			this.overlay = Collections.emptyMap();
+			this.shared = false;
+		}
+
 		final Style orig = this.stylesMap.get(signature);
 		if (orig == null) {
 			this.stylesMap.put(signature, newStyle);
@@ -112,6 +186,9 @@ public class StyleBuilder implements AutomaticCounter {
 			final Style tmp = orig.mergeWith(newStyle, MergeStrategy.OVERWRITE_EXISTING_VALUE);
 			this.stylesMap.put(signature, tmp);
 		}
+		this.index = null;
+		this.mergedCache.clear();
+		this.mergedSpecialCache.clear();
 	}
 
 	public int getNextInt() {
@@ -123,18 +200,26 @@ public class StyleBuilder implements AutomaticCounter {
 		if (added)
 			Log.info("Using style " + signature);
 
-		Style result = null;
-		for (Entry<StyleSignatureBasic, Style> ent : stylesMap.entrySet()) {
-			final StyleSignatureBasic key = ent.getKey();
+		Style result = mergedCache.get(signature);
+		if (result != null)
+			return result;
+
+		final Index current = getIndex();
+		final BitSet candidates = current.getCandidates(signature);
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			final StyleSignatureBasic key = current.keys[i];
 			if (key.matchAll(signature) == false)
 				continue;
 
 			if (result == null)
-				result = ent.getValue();
+				result = current.styles[i];
 			else
-				result = result.mergeWith(ent.getValue(), MergeStrategy.OVERWRITE_EXISTING_VALUE);
+				result = result.mergeWith(current.styles[i], MergeStrategy.OVERWRITE_EXISTING_VALUE);
 
 		}
+		if (result != null)
+			mergedCache.put(signature, result);
+
 		return result;
 	}
 
@@ -143,13 +228,19 @@ public class StyleBuilder implements AutomaticCounter {
 		if (added)
 			Log.info("Using style " + signature);
 
-		Style result = null;
-		for (Entry<StyleSignatureBasic, Style> ent : stylesMap.entrySet()) {
-			final StyleSignatureBasic key = ent.getKey();
+		final SpecialKey cacheKey = new SpecialKey(signature, deltaPriority);
+		Style result = mergedSpecialCache.get(cacheKey);
+		if (result != null)
+			return result;
+
+		final Index current = getIndex();
+		final BitSet candidates = current.getCandidates(signature);
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			final StyleSignatureBasic key = current.keys[i];
 			if (key.matchAll(signature) == false)
 				continue;
 
-			Style tmp = ent.getValue();
+			Style tmp = current.styles[i];
 			if (key.isStarred())
 				tmp = tmp.deltaPriority(deltaPriority);
 
@@ -159,7 +250,136 @@ public class StyleBuilder implements AutomaticCounter {
 				result = result.mergeWith(tmp, MergeStrategy.OVERWRITE_EXISTING_VALUE);
 
 		}
+		if (result != null)
+			mergedSpecialCache.put(cacheKey, result);
+
+		return result;
+	}
+
+	private Index getIndex() {
+		Index result = index;
+		if (result == null) {
+			result = new Index(getAllStyles());
+			index = result;
+		}
 		return result;
 	}
 
+	/**
+	 * Snapshot of stylesMap, with each style indexed by the one of its names that
+	 * is the least used by the other styles. A style can only match a signature
+	 * that contains all its names, so the styles indexed by the names of the
+	 * signature are the only candidates, and matchAll() is run on those only.
+	 */
+	private static class Index {
+
+		private final StyleSignatureBasic[] keys;
+		private final Style[] styles;
+		private final Map<StyleSignatureBasic, Integer> positions;
+		private final Map<String, BitSet> byName;
+		// Styles without any name that must be present in the signature
+		private final BitSet always;
+
+		private Index(Index other, Style[] styles) {
+			this.keys = other.keys;
+			this.styles = styles;
+			this.positions = other.positions;
+			this.byName = other.byName;
+			this.always = other.always;
+		}
+
+		Index(Map<StyleSignatureBasic, Style> stylesMap) {
+			final int size = stylesMap.size();
+			this.keys = new StyleSignatureBasic[size];
+			this.styles = new Style[size];
+			this.positions = new HashMap<>();
+			this.byName = new HashMap<>();
+			this.always = new BitSet();
+
+			final Map<String, Integer> frequencies = new HashMap<>();
+			int i = 0;
+			for (Entry<StyleSignatureBasic, Style> ent : stylesMap.entrySet()) {
+				keys[i] = ent.getKey();
+				styles[i] = ent.getValue();
+				positions.put(keys[i], i);
+				for (String name : ent.getKey().getNames()) {
+					final Integer freq = frequencies.get(name);
+					frequencies.put(name, freq == null ? 1 : freq + 1);
+				}
+				i++;
+			}
+
+			for (i = 0; i < size; i++) {
+				String best = null;
+				for (String name : keys[i].getNames())
+					if (isRequired(keys[i], name) && (best == null || frequencies.get(name) < frequencies.get(best)))
+						best = name;
+
+				if (best == null) {
+					always.set(i);
+				} else {
+					BitSet bits = byName.get(best);
+					if (bits == null) {
+						bits = new BitSet();
+						byName.put(best, bits);
+					}
+					bits.set(i);
+				}
+			}
+		}
+
+		// The names of the style do not change, so only the styles are copied
+		Index withStyle(StyleSignatureBasic signature, Style style) {
+			final Style[] copy = styles.clone();
+			copy[positions.get(signature)] = style;
+			return new Index(this, copy);
+		}
+
+		// See StyleSignatureBasic.matchAll()
+		private static boolean isRequired(StyleSignatureBasic key, String name) {
+			if (name.equals(StyleSignatureBasic.STAR))
+				return false;
+
+			// Depth is compared rather than looked up
+			if (key.isStarred() && name.startsWith("depth("))
+				return false;
+
+			return true;
+		}
+
+		BitSet getCandidates(StyleSignatureBasic signature) {
+			final BitSet result = (BitSet) always.clone();
+			for (String name : signature.getNames()) {
+				final BitSet bits = byName.get(name);
+				if (bits != null)
+					result.or(bits);
+			}
+			return result;
+		}
+
+	}
+
+	private static class SpecialKey {
+
+		private final StyleSignatureBasic signature;
+		private final int deltaPriority;
+
+		SpecialKey(StyleSignatureBasic signature, int deltaPriority) {
+			this.signature = signature;
+			this.deltaPriority = deltaPriority;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			final SpecialKey other = (SpecialKey) obj;
+			return deltaPriority == other.deltaPriority && signature.equals(other.signature);
+		}
+
+		@Override
+		public int hashCode() {
+			return signature.hashCode() * 31 + deltaPriority;
+		}
+
+	}
+
 }
@@ -40,6 +40,7 @@ import java.io.InputStream;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.sourceforge.plantuml.FileSystem;
 import net.sourceforge.plantuml.security.SFile;
@@ -61,7 +62,68 @@ public class StyleLoader {
 
 	private StyleBuilder styleBuilder;
 
+	// Parsed skins, shared by all diagrams. They are never changed: each diagram
+	// works on a copy (see StyleBuilder.copyFor()). The map is emptied when it
+	// grows larger than its capacity.
+	private static final int SKINS_CAPACITY = 64;
+	private static final Map<String, CachedSkin> skins = new ConcurrentHashMap<>();
+
+	private static class CachedSkin {
+		// Modification time and size of a local file, empty otherwise
+		private final String stamp;
+		private final StyleBuilder styleBuilder;
+
+		CachedSkin(String stamp, StyleBuilder styleBuilder) {
+			this.stamp = stamp;
+			this.styleBuilder = styleBuilder;
+		}
+	}
+
 	public StyleBuilder loadSkin(String filename) throws IOException, StyleParsingException {
+		String key = filename;
+		String stamp = "";
+		// ::comment when __CORE__
+		// A local file is keyed by its path, and parsed again whenever it changes
+		final SFile localFile = getLocalFile(filename);
+		if (localFile != null) {
+			key = localFile.getAbsolutePath();
+			stamp = localFile.lastModified() + "/" + localFile.length();
+		}
+		// ::done
+
+		final CachedSkin cached = skins.get(key);
+		final StyleBuilder base;
+		if (cached != null && cached.stamp.equals(stamp)) {
+			base = cached.styleBuilder;
+		} else {
+			base = new StyleLoader(null).parseSkin(filename);
+			if (skins.size() >= SKINS_CAPACITY) {
+				Log.info("Clearing skin cache");
+				skins.clear();
+			}
+			skins.put(key, new CachedSkin(stamp, base));
+		}
+		this.styleBuilder = base.copyFor(skinParam);
+		return this.styleBuilder;
+	}
+
+	// ::comment when __CORE__
+	private static SFile getLocalFile(String filename) {
+		SFile localFile = new SFile(filename);
+		try {
+			if (localFile.exists() == false)
+				localFile = FileSystem.getInstance().getFile(filename);
+		} catch (IOException e) {
+			return null;
+		}
+		if (localFile.exists())
+			return localFile;
+
+		return null;
+	}
+	// ::done
+
+	private StyleBuilder parseSkin(String filename) throws IOException, StyleParsingException {
 		this.styleBuilder = new StyleBuilder(skinParam);
 
 		final InputStream internalIs = getInputStreamForStyle(filename);
@@ -0,0 +1,149 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ * 
+ */
+package net.sourceforge.plantuml.svek;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Positions of the colors and titles in the SVG produced by Graphviz.
+ * <p>
+ * Nodes, clusters and edges are found in this SVG through their unique color
+ * or their title. Instead of one search through the whole SVG per element, the
+ * SVG is read once, the first time a position is needed, and every occurrence
+ * of the following strings is recorded:
+ * <ul>
+ * <li><code>&lt;title&gt;...&lt;/title&gt;</code></li>
+ * <li><code>="#..."</code>, <code>stroke="#..."</code> and
+ * <code>fill="#..."</code></li>
+ * <li><code>stroke:#...;</code> and <code>;stroke:#...;</code></li>
+ * </ul>
+ * {@link #indexOf(String, int, int)} then gives the same result as
+ * {@link String#indexOf(String, int)} for those strings.
+ */
+final class SvgIndex {
+
+	private final String svg;
+	private Map<String, Positions> positions;
+
+	SvgIndex(String svg) {
+		this.svg = svg;
+	}
+
+	/**
+	 * Returns the first position of <code>searched</code> between
+	 * <code>from</code> and <code>to</code>, or -1. <code>searched</code> must be
+	 * one of the indexed strings.
+	 */
+	synchronized int indexOf(String searched, int from, int to) {
+		if (positions == null)
+			positions = build();
+
+		final Positions pos = positions.get(searched);
+		if (pos == null)
+			return -1;
+
+		final int result = pos.first(from);
+		if (result == -1 || result + searched.length() > to)
+			return -1;
+
+		return result;
+	}
+
+	private Map<String, Positions> build() {
+		final Map<String, Positions> result = new HashMap<>();
+		for (int p = svg.indexOf("<title>"); p != -1; p = svg.indexOf("<title>", p + 1)) {
+			final int end = svg.indexOf("</title>", p);
+			if (end == -1)
+				break;
+			add(result, svg.substring(p, end + "</title>".length()), p);
+		}
+		for (int p = svg.indexOf("=\"#"); p != -1; p = svg.indexOf("=\"#", p + 1)) {
+			final int end = svg.indexOf('"', p + 2);
+			if (end == -1)
+				break;
+			final String value = svg.substring(p, end + 1);
+			add(result, value, p);
+			if (svg.startsWith("stroke", p - "stroke".length()))
+				add(result, "stroke" + value, p - "stroke".length());
+			else if (svg.startsWith("fill", p - "fill".length()))
+				add(result, "fill" + value, p - "fill".length());
+		}
+		for (int p = svg.indexOf("stroke:#"); p != -1; p = svg.indexOf("stroke:#", p + 1)) {
+			final int end = svg.indexOf(';', p);
+			if (end == -1)
+				break;
+			final String value = svg.substring(p, end + 1);
+			add(result, value, p);
+			if (p > 0 && svg.charAt(p - 1) == ';')
+				add(result, ";" + value, p - 1);
+		}
+		return result;
+	}
+
+	private static void add(Map<String, Positions> map, String key, int position) {
+		Positions pos = map.get(key);
+		if (pos == null) {
+			pos = new Positions();
+			map.put(key, pos);
+		}
+		pos.add(position);
+	}
+
+	// Filled in increasing order
+	static class Positions {
+
+		private int[] data = new int[1];
+		private int size;
+
+		void add(int position) {
+			if (size == data.length)
+				data = Arrays.copyOf(data, size * 2);
+			data[size++] = position;
+		}
+
+		int first(int from) {
+			int idx = Arrays.binarySearch(data, 0, size, from);
+			if (idx < 0)
+				idx = -idx - 1;
+			if (idx == size)
+				return -1;
+			return data[idx];
+		}
+	}
+
+}
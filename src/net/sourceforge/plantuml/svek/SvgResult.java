@@ -46,16 +46,32 @@ import net.sourceforge.plantuml.klimt.geom.XCubicCurve2D;
 import net.sourceforge.plantuml.klimt.geom.XPoint2D;
 import net.sourceforge.plantuml.klimt.shape.DotPath;
 
+/**
+ * A part of the SVG produced by Graphviz.
+ * <p>
+ * {@link #substring(int)} does not copy the SVG: all the parts share the same
+ * string, and the same {@link SvgIndex} to find colors and titles.
+ */
 public class SvgResult {
 
 	public static final String D_EQUALS = "d=\"";
 	public static final String POINTS_EQUALS = "points=\"";
 
 	private final String svg;
+	private final int start;
+	private final int end;
+	private final SvgIndex index;
 	private final Point2DFunction function;
 
 	public SvgResult(String svg, Point2DFunction function) {
+		this(svg, 0, svg.length(), new SvgIndex(svg), function);
+	}
+
+	private SvgResult(String svg, int start, int end, SvgIndex index, Point2DFunction function) {
 		this.svg = svg;
+		this.start = start;
+		this.end = end;
+		this.index = index;
 		this.function = function;
 	}
 
@@ -77,17 +93,17 @@ public class SvgResult {
 
 	public int getIndexFromColor(int color) {
 		String s = "stroke=\"" + StringUtils.goLowerCase(StringUtils.sharp000000(color)) + "\"";
-		int idx = svg.indexOf(s);
+		int idx = indexOfIndexed(s);
 		if (idx != -1)
 			return idx;
 
 		s = ";stroke:" + StringUtils.goLowerCase(StringUtils.sharp000000(color)) + ";";
-		idx = svg.indexOf(s);
+		idx = indexOfIndexed(s);
 		if (idx != -1)
 			return idx;
 
 		s = "fill=\"" + StringUtils.goLowerCase(StringUtils.sharp000000(color)) + "\"";
-		idx = svg.indexOf(s);
+		idx = indexOfIndexed(s);
 		if (idx != -1)
 			return idx;
 
@@ -97,9 +113,22 @@ public class SvgResult {
 
 	}
 
+	public int getIndexFromTitle(String title) {
+		return indexOfIndexed("<title>" + title + "</title>");
+	}
+
+	// Same as indexOf(searched, 0) for the strings known by SvgIndex
+	int indexOfIndexed(String searched) {
+		final int idx = index.indexOf(searched, start, end);
+		if (idx == -1)
+			return -1;
+
+		return idx - start;
+	}
+
 	public List<XPoint2D> getPoints(String separator) {
 		try {
-			final StringTokenizer st = new StringTokenizer(svg, separator);
+			final StringTokenizer st = new StringTokenizer(getSvg(), separator);
 			final List<XPoint2D> result = new ArrayList<XPoint2D>();
 			while (st.hasMoreTokens())
 				result.add(getFirstPoint(st.nextToken()));
@@ -111,7 +140,7 @@ public class SvgResult {
 	}
 
 	public XPoint2D getNextPoint() {
-		return getFirstPoint(svg);
+		return getFirstPoint(getSvg());
 	}
 
 	private XPoint2D getFirstPoint(final String tmp) {
@@ -122,19 +151,26 @@ public class SvgResult {
 	}
 
 	public int indexOf(String s, int pos) {
-		return svg.indexOf(s, pos);
+		final int idx = svg.indexOf(s, start + Math.max(pos, 0));
+		if (idx == -1 || idx + s.length() > end)
+			return -1;
+
+		return idx - start;
 	}
 
 	public SvgResult substring(int pos) {
-		return new SvgResult(svg.substring(pos), function);
+		return substring(pos, end - start);
 	}
 
 	public SvgResult substring(int start, int end) {
-		return new SvgResult(svg.substring(start, end), function);
+		if (start < 0 || end > this.end - this.start || start > end)
+			throw new StringIndexOutOfBoundsException("begin " + start + ", end " + end);
+
+		return new SvgResult(svg, this.start + start, this.start + end, index, function);
 	}
 
 	public final String getSvg() {
-		return svg;
+		return svg.substring(start, end);
 	}
 
 	public DotPath toDotPath() {
@@ -169,7 +205,7 @@ public class SvgResult {
 	}
 
 	public boolean isPathConsistent() {
-		if (this.getSvg().startsWith("M") == false)
+		if (start == end || svg.charAt(start) != 'M')
 			return false;
 
 		return true;
@@ -45,6 +45,8 @@ import java.util.List;
 import java.util.Objects;
 
 import net.sourceforge.plantuml.klimt.sprite.ResourcesUtils;
+import net.sourceforge.plantuml.log.Logme;
+import net.sourceforge.plantuml.preproc.IncludeCache;
 import net.sourceforge.plantuml.preproc.ReadLine;
 import net.sourceforge.plantuml.preproc.ReadLineReader;
 import net.sourceforge.plantuml.preproc.Stdlib;
@@ -94,11 +96,16 @@ public class ThemeUtils {
 		Log.info("Loading theme " + filename);
 		final String res = "/" + THEME_PATH + "/" + THEME_FILE_PREFIX + filename + THEME_FILE_SUFFIX;
 		final String description = "<" + res + ">";
-		final InputStream is = Stdlib.class.getResourceAsStream(res);
-		if (is == null)
+		try {
+			final IncludeCache.Entry cached = IncludeCache.getInstance().getResource(res);
+			if (cached == null)
+				return null;
+
+			return cached.getReadLine(description, null);
+		} catch (IOException e) {
+			Logme.error(e);
 			return null;
-
-		return ReadLineReader.create(new InputStreamReader(is), description);
+		}
 	}
 
 	public static List<String> getAllThemeNames() throws IOException {
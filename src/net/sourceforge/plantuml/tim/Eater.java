@@ -41,6 +41,8 @@ import net.sourceforge.plantuml.json.Json;
 import net.sourceforge.plantuml.json.JsonValue;
 import net.sourceforge.plantuml.text.StringLocated;
 import net.sourceforge.plantuml.text.TLineType;
+import net.sourceforge.plantuml.tim.expression.CompiledExpression;
+import net.sourceforge.plantuml.tim.expression.CompiledExpressionCache;
 import net.sourceforge.plantuml.tim.expression.TValue;
 import net.sourceforge.plantuml.tim.expression.Token;
 import net.sourceforge.plantuml.tim.expression.TokenStack;
@@ -85,8 +87,7 @@ public abstract class Eater {
 			// System.err.println("json=" + json);
 			return TValue.fromJson(json);
 		}
-		final TokenStack tokenStack = eatTokenStack();
-		return tokenStack.getResult(getStringLocated(), context, memory);
+		return eatCompiledExpression(ExpressionEnd.END_OF_LINE).getResult(getStringLocated(), context, memory);
 	}
 
 	final protected TokenStack eatTokenStack() throws EaterException {
@@ -99,9 +100,35 @@ public abstract class Eater {
 	}
 
 	final protected TValue eatExpressionStopAtColon(TContext context, TMemory memory) throws EaterException {
-		final TokenStack tokenStack = new TokenStack();
-		addIntoTokenStack(tokenStack, true);
-		return tokenStack.getResult(getStringLocated(), context, memory);
+		return eatCompiledExpression(ExpressionEnd.COLON).getResult(getStringLocated(), context, memory);
+	}
+
+	protected enum ExpressionEnd {
+		END_OF_LINE, COLON, COMMA_OR_CLOSE_PARENTHESIS
+	}
+
+	final protected CompiledExpression eatCompiledExpression(ExpressionEnd end) throws EaterException {
+		final CompiledExpressionCache cache = CompiledExpressionCache.getInstance();
+		final String line = stringLocated.getString();
+		final int start = i;
+		final CompiledExpressionCache.Entry cached = cache.get(line, start, end.ordinal());
+		if (cached != null) {
+			i += cached.getLength();
+			return cached.getExpression();
+		}
+
+		final TokenStack tokenStack;
+		if (end == ExpressionEnd.END_OF_LINE) {
+			tokenStack = eatTokenStack();
+		} else if (end == ExpressionEnd.COLON) {
+			tokenStack = new TokenStack();
+			addIntoTokenStack(tokenStack, true);
+		} else {
+			tokenStack = TokenStack.eatUntilCloseParenthesisOrComma(this);
+		}
+		final CompiledExpression result = CompiledExpression.compile(tokenStack, stringLocated);
+		cache.put(line, start, end.ordinal(), result, i - start);
+		return result;
 	}
 
 	final protected void addIntoTokenStack(TokenStack tokenStack, boolean stopAtColon) throws EaterException {
@@ -317,9 +344,8 @@ public abstract class Eater {
 				final TValue defValue;
 				if (peekChar() == '=') {
 					eatOneChar();
-					final TokenStack def = TokenStack.eatUntilCloseParenthesisOrComma(this);
-					def.guessFunctions(location);
-					defValue = def.getResult(getStringLocated(), context, memory);
+					defValue = eatCompiledExpression(ExpressionEnd.COMMA_OR_CLOSE_PARENTHESIS)
+							.getResult(getStringLocated(), context, memory);
 					// System.err.println("result=" + defValue);
 				} else {
 					defValue = null;
@@ -38,13 +38,13 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 
 import net.sourceforge.plantuml.file.AFile;
 import net.sourceforge.plantuml.log.Logme;
 import net.sourceforge.plantuml.preproc.FileWithSuffix;
 import net.sourceforge.plantuml.preproc.ImportedFiles;
+import net.sourceforge.plantuml.preproc.IncludeCache;
 import net.sourceforge.plantuml.preproc.ReadLine;
 import net.sourceforge.plantuml.preproc.ReadLineReader;
 import net.sourceforge.plantuml.preproc2.PreprocessorUtils;
@@ -124,11 +124,11 @@ public class EaterTheme extends Eater {
 
 		try {
 			final FileWithSuffix file = context.getFileWithSuffix(from, realName);
-			final Reader tmp = file.getReader(UTF_8);
-			if (tmp == null)
+			final IncludeCache.Entry cached = file.fileOk() ? IncludeCache.getInstance().get(file, UTF_8) : null;
+			if (cached == null)
 				throw new EaterException("No such theme " + realName, getStringLocated());
 
-			return ReadLineReader.create(tmp, "theme " + realName);
+			return cached.getReadLine("theme " + realName, null);
 		} catch (IOException e) {
 			Logme.error(e);
 			throw new EaterException("Cannot load " + realName, getStringLocated());
@@ -35,11 +35,11 @@
 package net.sourceforge.plantuml.tim;
 
 import net.sourceforge.plantuml.text.StringLocated;
-import net.sourceforge.plantuml.tim.expression.TokenStack;
+import net.sourceforge.plantuml.tim.expression.CompiledExpression;
 
 public class EaterWhile extends Eater {
 
-	private TokenStack expression;
+	private CompiledExpression expression;
 
 	public EaterWhile(StringLocated s) {
 		super(s);
@@ -50,10 +50,10 @@ public class EaterWhile extends Eater {
 		skipSpaces();
 		checkAndEatChar("!while");
 		skipSpaces();
-		this.expression = eatTokenStack();
+		this.expression = eatCompiledExpression(ExpressionEnd.END_OF_LINE);
 	}
 
-	public final TokenStack getWhileExpression() {
+	public final CompiledExpression getWhileExpression() {
 		return expression;
 	}
 }
@@ -35,18 +35,18 @@
 package net.sourceforge.plantuml.tim;
 
 import net.sourceforge.plantuml.text.StringLocated;
+import net.sourceforge.plantuml.tim.expression.CompiledExpression;
 import net.sourceforge.plantuml.tim.expression.TValue;
-import net.sourceforge.plantuml.tim.expression.TokenStack;
 import net.sourceforge.plantuml.tim.iterator.CodePosition;
 import net.sourceforge.plantuml.utils.LineLocation;
 
 public class ExecutionContextWhile {
 
-	private final TokenStack whileExpression;
+	private final CompiledExpression whileExpression;
 	private final CodePosition codePosition;
 	private boolean skipMe;
 
-	private ExecutionContextWhile(TokenStack whileExpression, CodePosition codePosition) {
+	private ExecutionContextWhile(CompiledExpression whileExpression, CodePosition codePosition) {
 		this.whileExpression = whileExpression;
 		this.codePosition = codePosition;
 	}
@@ -56,7 +56,7 @@ public class ExecutionContextWhile {
 		return whileExpression.toString() + " " + codePosition;
 	}
 
-	public static ExecutionContextWhile fromValue(TokenStack whileExpression, CodePosition codePosition) {
+	public static ExecutionContextWhile fromValue(CompiledExpression whileExpression, CodePosition codePosition) {
 		return new ExecutionContextWhile(whileExpression, codePosition);
 	}
 
@@ -37,7 +37,6 @@ package net.sourceforge.plantuml.tim;
 import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
-import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -49,6 +48,8 @@ import java.util.Set;
 
 import net.sourceforge.plantuml.DefinitionsContainer;
 import net.sourceforge.plantuml.FileSystem;
+import net.sourceforge.plantuml.api.CancellationToken;
+import net.sourceforge.plantuml.api.RenderCancelledException;
 import net.sourceforge.plantuml.command.CommandExecutionResult;
 import net.sourceforge.plantuml.json.Json;
 import net.sourceforge.plantuml.json.JsonValue;
@@ -56,12 +57,10 @@ import net.sourceforge.plantuml.log.Logme;
 import net.sourceforge.plantuml.preproc.Defines;
 import net.sourceforge.plantuml.preproc.FileWithSuffix;
 import net.sourceforge.plantuml.preproc.ImportedFiles;
+import net.sourceforge.plantuml.preproc.IncludeCache;
 import net.sourceforge.plantuml.preproc.ReadLine;
 import net.sourceforge.plantuml.preproc.ReadLineList;
-import net.sourceforge.plantuml.preproc.ReadLineReader;
-import net.sourceforge.plantuml.preproc.StartDiagramExtractReader;
 import net.sourceforge.plantuml.preproc.Sub;
-import net.sourceforge.plantuml.preproc.UncommentReadLine;
 import net.sourceforge.plantuml.preproc2.PreprocessorIncludeStrategy;
 import net.sourceforge.plantuml.preproc2.PreprocessorUtils;
 import net.sourceforge.plantuml.security.SFile;
@@ -322,10 +321,13 @@ public class TContext {
 			throws EaterException {
 		try {
 			this.debug.add(s);
+			CancellationToken.current().check();
 			return executeOneLineNotSafe(memory, s, ftype, modeSpecial);
 		} catch (Exception e) {
 			if (e instanceof EaterException)
 				throw (EaterException) e;
+			if (e instanceof RenderCancelledException)
+				throw new EaterException(e.getMessage(), s);
 			Logme.error(e);
 			throw new EaterException("Fatal parsing error", s);
 		}
@@ -557,17 +559,11 @@ public class TContext {
 					if (f2.fileOk()) {
 						saveImportedFiles = this.importedFiles;
 						this.importedFiles = this.importedFiles.withCurrentDir(f2.getParentFile());
-						final Reader reader = f2.getReader(charset);
-						if (reader == null)
+						final IncludeCache.Entry cached = IncludeCache.getInstance().get(f2, charset);
+						if (cached == null)
 							throw new EaterException("cannot include " + what, s);
 
-						try {
-							ReadLine readerline = ReadLineReader.create(reader, what, s.getLocation());
-							readerline = new UncommentReadLine(readerline);
-							sub = Sub.fromFile(readerline, blocname, this, memory);
-						} finally {
-							reader.close();
-						}
+						sub = cached.getSub(blocname, what, s.getLocation());
 					}
 				} catch (IOException e) {
 					Logme.error(e);
@@ -682,15 +678,15 @@ public class TContext {
 					if (strategy == PreprocessorIncludeStrategy.ONCE && filesUsedCurrent.contains(f2))
 						throw new EaterException("This file has already been included", s);
 
-					if (StartDiagramExtractReader.containsStartDiagram(f2, s, charset)) {
-						reader = StartDiagramExtractReader.build(f2, s, charset);
-					} else {
-						final Reader tmp = f2.getReader(charset);
-						if (tmp == null)
-							throw new EaterException("Cannot include file", s);
+					final IncludeCache.Entry cached = IncludeCache.getInstance().get(f2, charset);
+					if (cached == null)
+						throw new EaterException("Cannot include file", s);
+
+					if (cached.containsStartDiagram())
+						reader = cached.getStartDiagramReader(f2.getDescription(), f2.getSuffix());
+					else
+						reader = cached.getReadLine(location, s.getLocation());
 
-						reader = ReadLineReader.create(tmp, location, s.getLocation());
-					}
 					saveImportedFiles = this.importedFiles;
 					this.importedFiles = this.importedFiles.withCurrentDir(f2.getParentFile());
 					assert reader != null;
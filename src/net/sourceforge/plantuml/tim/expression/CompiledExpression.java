@@ -0,0 +1,80 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ *
+ * If you like this project or if you find it useful, you can support us at:
+ *
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ *
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ */
+package net.sourceforge.plantuml.tim.expression;
+
+import net.sourceforge.plantuml.text.StringLocated;
+import net.sourceforge.plantuml.tim.EaterException;
+import net.sourceforge.plantuml.tim.TContext;
+import net.sourceforge.plantuml.tim.TMemory;
+
+/**
+ * An expression converted once to reverse polish notation, that can be
+ * evaluated many times, for example at each iteration of a loop.
+ * <p>
+ * Variables are kept by name in the queue, and are only looked up at
+ * evaluation. Instances are immutable and can be shared between threads.
+ */
+public class CompiledExpression {
+
+	private final TokenStack queue;
+	private final boolean withVariables;
+
+	private CompiledExpression(TokenStack queue) {
+		this.queue = queue;
+		this.withVariables = queue.containsPlainText();
+	}
+
+	public static CompiledExpression compile(TokenStack tokenStack, StringLocated location) throws EaterException {
+		final TokenStack tmp = tokenStack.withoutSpace();
+		tmp.guessFunctions(location);
+		final ShuntingYard shuntingYard = new ShuntingYard(tmp.tokenIterator(), location);
+		return new CompiledExpression(shuntingYard.getQueue());
+	}
+
+	public TValue getResult(StringLocated location, TContext context, TMemory memory) throws EaterException {
+		final Knowledge knowledge = context.asKnowledge(memory, location.getLocation());
+		// All variables are read before any function is called
+		final TokenStack resolved = withVariables ? queue.withVariables(knowledge, location) : queue;
+		final ReversePolishInterpretor rpn = new ReversePolishInterpretor(location, resolved, knowledge, memory,
+				context);
+		return rpn.getResult();
+	}
+
+	@Override
+	public String toString() {
+		return queue.toString();
+	}
+
+}
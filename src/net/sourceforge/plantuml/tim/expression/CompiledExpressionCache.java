@@ -0,0 +1,144 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2024, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ *
+ * If you like this project or if you find it useful, you can support us at:
+ *
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ *
+ * This file is part of PlantUML.
+ *
+ * PlantUML is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PlantUML distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ *
+ */
+package net.sourceforge.plantuml.tim.expression;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.sourceforge.plantuml.utils.Log;
+
+/**
+ * JVM-wide cache of the expressions read by the preprocessor.
+ * <p>
+ * The key is the whole line the expression was read from, the position where
+ * reading started and the kind of end expected. Reading tokens only depends on
+ * them, and so does compiling them, so the same line met again in a loop, in a
+ * function body or in another diagram including the same library is neither
+ * tokenized nor compiled again. All the expressions of a line share its text,
+ * so a line with many arguments does not cost more than its own length.
+ * <p>
+ * The cache is emptied when it grows larger than its capacity.
+ */
+public final class CompiledExpressionCache {
+
+	private static final int CAPACITY = 8192;
+
+	private static final CompiledExpressionCache singleton = new CompiledExpressionCache();
+
+	public static class Entry {
+		private final CompiledExpression expression;
+		private final int length;
+
+		private Entry(CompiledExpression expression, int length) {
+			this.expression = expression;
+			this.length = length;
+		}
+
+		public CompiledExpression getExpression() {
+			return expression;
+		}
+
+		/**
+		 * Number of characters of the source text used by the expression.
+		 */
+		public int getLength() {
+			return length;
+		}
+	}
+
+	static final class Key {
+		private final String line;
+		private final int start;
+		private final int end;
+
+		Key(String line, int start, int end) {
+			this.line = line;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int hashCode() {
+			return line.hashCode() * 31 * 31 + start * 31 + end;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			final Key other = (Key) obj;
+			return start == other.start && end == other.end && line.equals(other.line);
+		}
+	}
+
+	private final ConcurrentMap<Key, Entry> map = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	private CompiledExpressionCache() {
+	}
+
+	public static CompiledExpressionCache getInstance() {
+		return singleton;
+	}
+
+	/**
+	 * Returns the expression read from <code>line</code> at <code>start</code>,
+	 * <code>end</code> telling where it stops, or <code>null</code> if it is not
+	 * known yet.
+	 */
+	public Entry get(String line, int start, int end) {
+		final Entry result = map.get(new Key(line, start, end));
+		if (result == null)
+			misses.increment();
+		else
+			hits.increment();
+		return result;
+	}
+
+	public void put(String line, int start, int end, CompiledExpression expression, int length) {
+		if (map.size() >= CAPACITY) {
+			Log.info("Clearing expression cache");
+			map.clear();
+		}
+		map.put(new Key(line, start, end), new Entry(expression, length));
+	}
+
+	public String getStatistics() {
+		return "Expression cache size=" + map.size() + "/" + CAPACITY + " hits=" + hits.sum() + " misses="
+				+ misses.sum();
+	}
+
+}
@@ -58,7 +58,7 @@ public class ShuntingYard {
 		System.err.println("");
 	}
 
-	public ShuntingYard(TokenIterator it, Knowledge knowledge, StringLocated location) throws EaterException {
+	public ShuntingYard(TokenIterator it, StringLocated location) throws EaterException {
 
 		while (it.hasMoreTokens()) {
 			final Token token = it.nextToken();
@@ -70,16 +70,8 @@ public class ShuntingYard {
 			} else if (token.getTokenType() == TokenType.FUNCTION_NAME) {
 				operatorStack.addFirst(token);
 			} else if (token.getTokenType() == TokenType.PLAIN_TEXT) {
-				final String name = token.getSurface();
-				final TValue variable = knowledge.getVariable(name);
-				if (variable == null) {
-					if (isVariableName(name) == false)
-						throw new EaterException("Parsing syntax error about " + name, location);
-
-					ouputQueue.add(new Token(name, TokenType.QUOTED_STRING, null));
-				} else {
-					ouputQueue.add(variable.toToken());
-				}
+				// Variables are resolved by TokenStack.withVariables() at evaluation
+				ouputQueue.add(token);
 			} else if (token.getTokenType() == TokenType.OPERATOR) {
 				while ((thereIsAFunctionAtTheTopOfTheOperatorStack() //
 						|| thereIsAnOperatorAtTheTopOfTheOperatorStackWithGreaterPrecedence(token) //
@@ -124,10 +116,6 @@ public class ShuntingYard {
 		// System.err.println("ouputQueue=" + ouputQueue);
 	}
 
-	private boolean isVariableName(String name) {
-		return name.matches("[a-zA-Z0-9.$_]+");
-	}
-
 	private boolean thereIsAFunctionAtTheTopOfTheOperatorStack() {
 		final Token top = operatorStack.peekFirst();
 		return top != null && top.getTokenType() == TokenType.FUNCTION_NAME;
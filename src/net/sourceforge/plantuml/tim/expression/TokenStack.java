@@ -211,15 +211,40 @@ public class TokenStack {
 	}
 
 	public TValue getResult(StringLocated location, TContext context, TMemory memory) throws EaterException {
-		final Knowledge knowledge = context.asKnowledge(memory, location.getLocation());
-		final TokenStack tmp = withoutSpace();
-		tmp.guessFunctions(location);
-		final TokenIterator it = tmp.tokenIterator();
-		final ShuntingYard shuntingYard = new ShuntingYard(it, knowledge, location);
-		final ReversePolishInterpretor rpn = new ReversePolishInterpretor(location, shuntingYard.getQueue(), knowledge,
-				memory, context);
-		return rpn.getResult();
+		return CompiledExpression.compile(this, location).getResult(location, context, memory);
+	}
+
+	boolean containsPlainText() {
+		for (Token token : tokens)
+			if (token.getTokenType() == TokenType.PLAIN_TEXT)
+				return true;
+
+		return false;
+	}
+
+	TokenStack withVariables(Knowledge knowledge, StringLocated location) throws EaterException {
+		final TokenStack result = new TokenStack(new ArrayList<Token>(tokens.size()));
+		for (Token token : tokens) {
+			if (token.getTokenType() != TokenType.PLAIN_TEXT) {
+				result.add(token);
+				continue;
+			}
+			final String name = token.getSurface();
+			final TValue variable = knowledge.getVariable(name);
+			if (variable == null) {
+				if (isVariableName(name) == false)
+					throw new EaterException("Parsing syntax error about " + name, location);
+
+				result.add(new Token(name, TokenType.QUOTED_STRING, null));
+			} else {
+				result.add(variable.toToken());
+			}
+		}
+		return result;
+	}
 
+	private static boolean isVariableName(String name) {
+		return name.matches("[a-zA-Z0-9.$_]+");
 	}
 
 }
@@ -43,8 +43,8 @@ import net.sourceforge.plantuml.tim.EaterWhile;
 import net.sourceforge.plantuml.tim.ExecutionContextWhile;
 import net.sourceforge.plantuml.tim.TContext;
 import net.sourceforge.plantuml.tim.TMemory;
+import net.sourceforge.plantuml.tim.expression.CompiledExpression;
 import net.sourceforge.plantuml.tim.expression.TValue;
-import net.sourceforge.plantuml.tim.expression.TokenStack;
 
 public class CodeIteratorWhile extends AbstractCodeIterator {
 
@@ -108,7 +108,7 @@ public class CodeIteratorWhile extends AbstractCodeIterator {
 	private void executeWhile(TMemory memory, StringLocated s) throws EaterException {
 		final EaterWhile condition = new EaterWhile(s);
 		condition.analyze(context, memory);
-		final TokenStack whileExpression = condition.getWhileExpression();
+		final CompiledExpression whileExpression = condition.getWhileExpression();
 		final ExecutionContextWhile theWhile = ExecutionContextWhile.fromValue(whileExpression,
 				source.getCodePosition());
 		final TValue value = theWhile.conditionValue(s, context, memory);
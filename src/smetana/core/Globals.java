@@ -45,8 +45,10 @@ import static smetana.core.Macro.ARR_TYPE_GAP;
 import static smetana.core.Macro.ARR_TYPE_NORM;
 import static smetana.core.Macro.ARR_TYPE_TEE;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.plantuml.api.cheerpj.WasmLog;
 
@@ -94,13 +96,61 @@ import h.ST_triangle_t;
 
 final public class Globals {
 
+	// Each thread keeps one instance, which is reset between two layouts. The
+	// constant tables are built once, and the work buffers keep their capacity,
+	// as the static variables of Graphviz do from one graph to the next.
+	private static final ThreadLocal<Globals> pool = new ThreadLocal<Globals>();
+	private static final AtomicLong created = new AtomicLong();
+	private static final AtomicLong reused = new AtomicLong();
+
+	private boolean inUse;
+
+	private static final Runnable NO_CHECKPOINT = new Runnable() {
+		public void run() {
+		}
+	};
+
+	private Runnable checkpoint = NO_CHECKPOINT;
+
 	public static Globals open() {
 		WasmLog.log("Starting smetana instance");
-		return new Globals();
+		Globals result = pool.get();
+		if (result == null || result.inUse) {
+			// Nested layouts get their own instance
+			result = new Globals();
+			created.incrementAndGet();
+			if (pool.get() == null)
+				pool.set(result);
+		} else {
+			reused.incrementAndGet();
+		}
+		result.inUse = true;
+		return result;
 	}
 
-	public static void close() {
+	public static void close(Globals zz) {
 		WasmLog.log("Ending smetana instance");
+		// Done now, so that the pooled instance does not keep the graph alive
+		if (pool.get() == zz)
+			zz.reset();
+		zz.checkpoint = NO_CHECKPOINT;
+		zz.inUse = false;
+	}
+
+	/**
+	 * Called regularly by the long loops of the layout, so that the caller can
+	 * stop a layout that takes too long by throwing an exception.
+	 */
+	public void setCheckpoint(Runnable checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
+	public void checkpoint() {
+		checkpoint.run();
+	}
+
+	public static String getStatistics() {
+		return "Smetana instances: " + created.get() + " created, " + reused.get() + " reused";
 	}
 
 	public final Map<Integer, CString> all = new HashMap<Integer, CString>();
@@ -326,6 +376,116 @@ final public class Globals {
 	public int isz;
 	public CArray<ST_pointf> ispline;
 
+	// Brings back the state of a new instance, apart from the work buffers
+	// (polypoints, edges, tris, pnls, tnas, pointfs, Count, ops_route,
+	// ops_shortest, ispline, boxes) whose content is always written before
+	// being read. Their size is kept, but the references they hold to the last
+	// graph are dropped.
+	private void reset() {
+		all.clear();
+		ProtoGraph = null;
+		HTML_BIT = 0;
+		CNT_BITS = 0;
+		Refdict_default = null;
+		Ag_dictop_G = null;
+		Show_boxes = null;
+		CL_type = 0;
+		Concentrate = false;
+		MaxIter = 0;
+		State = 0;
+		EdgeLabelsDone = 0;
+		Initial_dist = 0;
+
+		G_activepencolor = G_activefillcolor = G_selectedpencolor = G_selectedfillcolor = G_visitedpencolor = null;
+		G_visitedfillcolor = G_deletedpencolor = G_deletedfillcolor = G_ordering = G_peripheries = null;
+		G_penwidth = G_gradientangle = G_margin = null;
+
+		N_height = N_width = N_shape = N_color = N_fillcolor = N_activepencolor = N_activefillcolor = null;
+		N_selectedpencolor = N_selectedfillcolor = N_visitedpencolor = N_visitedfillcolor = null;
+		N_deletedpencolor = N_deletedfillcolor = N_fontsize = N_fontname = N_fontcolor = N_margin = null;
+		N_label = N_xlabel = N_nojustify = N_style = N_showboxes = N_sides = N_peripheries = null;
+		N_ordering = N_orientation = N_skew = N_distortion = N_fixed = N_imagescale = N_layer = null;
+		N_group = N_comment = N_vertices = N_z = N_penwidth = N_gradientangle = null;
+
+		E_weight = E_minlen = E_color = E_fillcolor = E_activepencolor = E_activefillcolor = null;
+		E_selectedpencolor = E_selectedfillcolor = E_visitedpencolor = E_visitedfillcolor = null;
+		E_deletedpencolor = E_deletedfillcolor = E_fontsize = E_fontname = E_fontcolor = E_label = null;
+		E_xlabel = E_dir = E_style = E_decorate = E_showboxes = E_arrowsz = E_constr = E_layer = null;
+		E_comment = E_label_float = E_samehead = E_sametail = E_arrowhead = E_arrowtail = null;
+		E_headlabel = E_taillabel = E_labelfontsize = E_labelfontname = E_labelfontcolor = null;
+		E_labeldistance = E_labelangle = E_tailclip = E_headclip = E_penwidth = null;
+
+		N_nodes = N_edges = 0;
+		Minrank = Maxrank = 0;
+		S_i = 0;
+		Search_size = 0;
+		Tree_node.list = null;
+		Tree_node.size = 0;
+		Tree_edge.list = null;
+		Tree_edge.size = 0;
+		Enter = null;
+		Low = Lim = Slack = 0;
+		Rankdir = 0;
+		Flip = false;
+		Offset.x = 0;
+		Offset.y = 0;
+		// routesplinesinit() and routesplinesterm() count routeinit up and down, and
+		// allocate ps when it leaves 0. A layout stopped by an exception leaves it
+		// raised, so both are reset.
+		routeinit = 0;
+		ps = null;
+		maxpn = 0;
+		nedges = nboxes = 0;
+		MinQuit = 0;
+		Convergence = 0;
+		Root = null;
+		GlobalMinRank = GlobalMaxRank = 0;
+		ReMincross = false;
+		TE_list = null;
+		TI_list = null;
+		Last_node_decomp = null;
+		Last_node_rank = null;
+		Cmark = 0;
+		tril = 0;
+		pnll = 0;
+		lastn = null;
+		poly = null;
+		last = outp = sides = 0;
+		vertex = null;
+		xsize = ysize = scalex = scaley = box_URx = box_URy = 0;
+		ctr = 1;
+		G_ns = null;
+		G_decomp = null;
+		opl = 0;
+		reclblp = null;
+		if (pnls != null)
+			for (ST_pointnlink_t pnl : pnls)
+				if (pnl != null) {
+					pnl.pp = null;
+					pnl.link = null;
+				}
+		if (pnlps != null)
+			Arrays.fill(pnlps, null);
+		if (dq.pnlps != null)
+			Arrays.fill(dq.pnlps, null);
+		dq.fpnlpi = dq.lpnlpi = dq.apex = 0;
+		tf.name = null;
+		tf.size = 0;
+		clear(template);
+		clear(dummy.mainsub);
+		dummy.root = null;
+		dummy.data = null;
+		dummy.NAME = null;
+		dummy.tag.objtype = dummy.tag.mtflock = dummy.tag.attrwf = dummy.tag.seq = dummy.tag.id = 0;
+	}
+
+	private static void clear(ST_Agsubnode_s sn) {
+		sn.node = null;
+		sn.in_id = sn.out_id = sn.in_seq = sn.out_seq = null;
+		sn.seq_link.right = sn.seq_link._left = null;
+		sn.id_link.right = sn.id_link._left = null;
+	}
+
 	private ST_shape_desc __Shapes__(String s, ST_shape_functions shape_functions, ST_polygon_t polygon) {
 		ST_shape_desc result = new ST_shape_desc();
 		result.name = s == null ? null : new CString(s);
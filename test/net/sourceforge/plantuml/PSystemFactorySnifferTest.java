@@ -0,0 +1,64 @@
+package net.sourceforge.plantuml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.plantuml.classdiagram.ClassDiagramFactory;
+import net.sourceforge.plantuml.core.DiagramType;
+import net.sourceforge.plantuml.text.StringLocated;
+import net.sourceforge.plantuml.timingdiagram.TimingDiagramFactory;
+
+class PSystemFactorySnifferTest {
+
+	private static List<StringLocated> source(String... lines) {
+		final List<StringLocated> result = new ArrayList<>();
+		for (String s : lines)
+			result.add(new StringLocated(s, null));
+
+		return result;
+	}
+
+	@Test
+	void guess_from_keywords() {
+		final List<StringLocated> timing = source("@startuml", "skinparam monochrome true", "robust \"Web\" as WB",
+				"concise \"User\" as WU", "@0", "WU is Idle", "@enduml");
+		assertEquals(TimingDiagramFactory.class,
+				PSystemFactorySniffer.guess(PSystemFactorySniffer.signature(DiagramType.UML, timing), timing));
+
+		final List<StringLocated> clazz = source("@startuml", "  class Foo", "interface Bar", "Foo ..|> Bar",
+				"@enduml");
+		assertEquals(ClassDiagramFactory.class,
+				PSystemFactorySniffer.guess(PSystemFactorySniffer.signature(DiagramType.UML, clazz), clazz));
+	}
+
+	@Test
+	void no_clue() {
+		final List<StringLocated> arrows = source("@startuml", "a -> b", "b --> c", "@enduml");
+		assertNull(PSystemFactorySniffer.guess(PSystemFactorySniffer.signature(DiagramType.UML, arrows), arrows));
+	}
+
+	@Test
+	void signature_depends_on_lines() {
+		assertEquals(PSystemFactorySniffer.signature(DiagramType.UML, source("@startuml", "a -> b", "@enduml")),
+				PSystemFactorySniffer.signature(DiagramType.UML, source("@startuml", "a -> b", "@enduml")));
+		assertNotEquals(PSystemFactorySniffer.signature(DiagramType.UML, source("@startuml", "a -> b", "@enduml")),
+				PSystemFactorySniffer.signature(DiagramType.UML, source("@startuml", "a -> c", "@enduml")));
+	}
+
+	@Test
+	void ambiguous_source_keeps_factory_order() throws Exception {
+		// The keyword points to the class diagram, but the sequence diagram
+		// factory comes first and accepts this source
+		final String src = "@startuml\nBob -> Alice : class\nclass -> Bob\n@enduml\n";
+		for (int i = 0; i < 2; i++)
+			assertEquals("SequenceDiagram",
+					new SourceStringReader(src).getBlocks().get(0).getDiagram().getClass().getSimpleName());
+	}
+
+}
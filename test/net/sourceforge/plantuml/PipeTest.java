@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
@@ -346,6 +347,56 @@ class PipeTest {
 		assertThat(option.getFileFormatOption().getFileFormat()).isEqualTo(FileFormat.UTXT);
 	}
 
+	private static String manyDiagrams() {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 12; i++) {
+			sb.append("@startuml\n");
+			for (int j = 0; j <= i; j++)
+				sb.append("a" + j + " -> b" + j + " : m" + i + "\n");
+			sb.append(i % 5 == 4 ? "bad syntax\n" : "").append("@enduml\n");
+		}
+		return "@@@format utxt\n" + sb;
+	}
+
+	private byte[] runPipe(String input, int nbThreads, boolean framed) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		option.setPipeThreads(nbThreads);
+		option.setPipeFramed(framed);
+		new Pipe(option, new PrintStream(out), new ByteArrayInputStream(input.getBytes(UTF_8)), UTF_8.name())
+				.managePipe(errorStatus);
+		return out.toByteArray();
+	}
+
+	@Test
+	void should_managePipe_keep_input_order_when_rendering_concurrently() throws IOException {
+		final byte[] sequential = runPipe(manyDiagrams(), 0, false);
+		final ErrorStatus sequentialStatus = errorStatus;
+
+		errorStatus = ErrorStatus.init();
+		final byte[] concurrent = runPipe(manyDiagrams(), 4, false);
+
+		assertThat(concurrent).isEqualTo(sequential);
+		assertThat(errorStatus.hasError()).isEqualTo(sequentialStatus.hasError());
+		assertThat(errorStatus.isNoData()).isFalse();
+	}
+
+	@Test
+	void should_managePipe_prefix_each_output_with_its_length_when_framed() throws IOException {
+		final byte[] framed = runPipe(manyDiagrams(), 3, true);
+		final byte[] sequential = runPipe(manyDiagrams(), 0, true);
+		assertThat(framed).isEqualTo(sequential);
+
+		final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(framed));
+		int count = 0;
+		while (dis.available() > 0) {
+			final byte[] frame = new byte[dis.readInt()];
+			dis.readFully(frame);
+			assertThat(new String(frame, UTF_8)).contains("a" + count);
+			count++;
+		}
+		assertThat(count).isEqualTo(12);
+	}
+
 	static class TestCase {
 
 		private final String options;
@@ -0,0 +1,67 @@
+package net.sourceforge.plantuml;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RenderCacheTest {
+
+	//
+	// Test Cases
+	//
+
+	@Test
+	void test_key() throws Exception {
+		final BlockUml block1 = new BlockUml("@startuml", "a -> b", "@enduml");
+		final BlockUml block2 = new BlockUml("@startuml", "a -> c", "@enduml");
+		final FileFormatOption svg = new FileFormatOption(FileFormat.SVG);
+
+		assertThat(RenderCache.getKey(block1, svg))
+				.isEqualTo(RenderCache.getKey(new BlockUml("@startuml", "a -> b", "@enduml"), svg));
+		assertThat(RenderCache.getKey(block1, svg))
+				.isNotEqualTo(RenderCache.getKey(block2, svg));
+		assertThat(RenderCache.getKey(block1, svg))
+				.isNotEqualTo(RenderCache.getKey(block1, new FileFormatOption(FileFormat.PNG)));
+		assertThat(RenderCache.getKey(block1, svg))
+				.isNotEqualTo(RenderCache.getKey(block1, svg.withScale(2)));
+		assertThat(RenderCache.getKey(block1, svg))
+				.isNotEqualTo(RenderCache.getKey(block1, svg.withPngCompression(9)));
+	}
+
+	@Test
+	void test_images_are_reused(@TempDir Path tempDir) throws Exception {
+		final Path source = tempDir.resolve("source.puml");
+		Files.write(source, "@startuml\nAlice -> Bob\nnewpage\nBob -> Alice\n@enduml\n".getBytes(UTF_8));
+		final File cacheDir = tempDir.resolve("cache").toFile();
+
+		final List<GeneratedImage> first = render(source, tempDir.resolve("out1"), cacheDir);
+		assertThat(first).hasSize(2);
+		assertThat(cacheDir.listFiles()).hasSize(1);
+
+		final List<GeneratedImage> second = render(source, tempDir.resolve("out2"), cacheDir);
+		assertThat(second).hasSize(2);
+		for (int i = 0; i < 2; i++)
+			assertThat(second.get(i).getPngFile()).hasSameBinaryContentAs(first.get(i).getPngFile());
+
+		assertThat(cacheDir.listFiles()).hasSize(1);
+	}
+
+	//
+	// Test DSL
+	//
+
+	private static List<GeneratedImage> render(Path source, Path outputDir, File cacheDir) throws Exception {
+		final SourceFileReader reader = new SourceFileReader(source.toFile(), outputDir.toFile(),
+				new FileFormatOption(FileFormat.SVG));
+		reader.setRenderCache(new RenderCache(cacheDir));
+		return reader.getGeneratedImages();
+	}
+
+}
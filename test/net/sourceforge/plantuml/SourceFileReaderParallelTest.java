@@ -0,0 +1,83 @@
+package net.sourceforge.plantuml;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SourceFileReaderParallelTest {
+
+	//
+	// Test Cases
+	//
+
+	@Test
+	void test_same_images_as_sequential(@TempDir Path tempDir) throws Exception {
+		final String source = "" +
+				"@startuml\n" +
+				"Alice -> Bob\n" +
+				"newpage\n" +
+				"Bob -> Alice\n" +
+				"@enduml\n" +
+				"@startuml named\n" +
+				"A -> B\n" +
+				"@enduml\n" +
+				"@startuml\n" +
+				"class C\n" +
+				"newpage\n" +
+				"class D\n" +
+				"@enduml\n" +
+				"@startuml\n" +
+				"C -> D\n" +
+				"@enduml\n";
+		final Path file = tempDir.resolve("source.puml");
+		Files.write(file, source.getBytes(UTF_8));
+
+		final List<String> sequential = names(reader(file, tempDir.resolve("seq")).getGeneratedImages());
+
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final List<String> parallel = pool.submit(new Callable<List<String>>() {
+				public List<String> call() throws Exception {
+					return names(reader(file, tempDir.resolve("par")).getGeneratedImagesInParallel());
+				}
+			}).get();
+
+			assertThat(parallel)
+					.containsExactlyElementsOf(sequential)
+					.containsExactly("source.svg", "source_001.svg", "named.svg", "source_002.svg",
+							"source_003.svg", "source_004.svg");
+		} finally {
+			pool.shutdown();
+		}
+		for (String name : sequential)
+			assertThat(tempDir.resolve("par").resolve(name))
+					.hasSameBinaryContentAs(tempDir.resolve("seq").resolve(name));
+	}
+
+	//
+	// Test DSL
+	//
+
+	private static SourceFileReader reader(Path file, Path outputDir) throws Exception {
+		return new SourceFileReader(file.toFile(), outputDir.toFile(), new FileFormatOption(FileFormat.SVG));
+	}
+
+	private static List<String> names(List<GeneratedImage> images) {
+		final List<String> result = new ArrayList<>();
+		for (GeneratedImage image : images)
+			result.add(image.getPngFile().getName());
+
+		return result;
+	}
+
+}
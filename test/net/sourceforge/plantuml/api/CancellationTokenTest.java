@@ -0,0 +1,160 @@
+package net.sourceforge.plantuml.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
+
+class CancellationTokenTest {
+
+	//
+	// Test Cases
+	//
+
+	@Test
+	void test_none_is_never_cancelled() {
+		CancellationToken.NONE.cancel("ignored");
+
+		assertThat(CancellationToken.current()).isSameAs(CancellationToken.NONE);
+		assertThat(CancellationToken.NONE.isCancelled()).isFalse();
+		CancellationToken.NONE.check();
+	}
+
+	@Test
+	void test_cancel() {
+		final CancellationToken token = CancellationToken.create(0, 0);
+		token.check();
+
+		token.cancel("Stopped by the server");
+
+		assertThat(token.isCancelled()).isTrue();
+		assertThatThrownBy(token::check).isInstanceOf(RenderCancelledException.class)
+				.hasMessage("Stopped by the server");
+	}
+
+	@Test
+	void test_child_is_cancelled_with_its_parent() {
+		final CancellationToken parent = CancellationToken.create(0, 0);
+		try (CancellationToken.Scope scope = parent.install()) {
+			final CancellationToken child = CancellationToken.create(0, 0);
+			parent.cancel("Stopped by the server");
+
+			assertThat(child.isCancelled()).isTrue();
+			assertThatThrownBy(child::check).isInstanceOf(RenderCancelledException.class);
+		}
+	}
+
+	@Test
+	void test_install_restores_previous_token() {
+		final CancellationToken outer = CancellationToken.create(0, 0);
+		final CancellationToken inner = CancellationToken.create(0, 0);
+		try (CancellationToken.Scope scope1 = outer.install()) {
+			try (CancellationToken.Scope scope2 = inner.install()) {
+				assertThat(CancellationToken.current()).isSameAs(inner);
+			}
+			assertThat(CancellationToken.current()).isSameAs(outer);
+		}
+		assertThat(CancellationToken.current()).isSameAs(CancellationToken.NONE);
+	}
+
+	@Test
+	void test_time_budget() throws InterruptedException {
+		final CancellationToken token = CancellationToken.create(1, 0);
+		Thread.sleep(20);
+
+		assertThatThrownBy(token::check).isInstanceOf(RenderCancelledException.class)
+				.hasMessage("Time budget of 1 ms exceeded");
+	}
+
+	@Test
+	void test_worker_thread_gets_the_memory_budget_of_the_caller() {
+		final AtomicReference<String> error = new AtomicReference<>();
+		final MyRunnable allocate = new MyRunnable() {
+			public void runJob() {
+				try {
+					for (int i = 0; i < 100_000; i++) {
+						blackhole = new byte[10_000];
+						CancellationToken.current().check();
+					}
+				} catch (RenderCancelledException e) {
+					error.set(e.getMessage());
+				}
+			}
+
+			public void cancelJob() {
+			}
+		};
+
+		final CancellationToken caller = CancellationToken.create(0, 1024 * 1024);
+		try (CancellationToken.Scope scope = caller.install()) {
+			new TimeoutExecutor(60_000).executeNow(allocate);
+		}
+
+		assertThat(error.get()).isEqualTo("Memory budget of 1024 KB exceeded");
+		assertThat(caller.isCancelled()).isFalse();
+	}
+
+	@Test
+	void test_preprocessor_is_stopped() throws Exception {
+		final String source = String.join("\n", //
+				"@startuml", //
+				"!function $fib($n)", //
+				"!if $n < 2", //
+				"!return 1", //
+				"!endif", //
+				"!return $fib($n - 1) + $fib($n - 2)", //
+				"!endfunction", //
+				"Alice -> Bob : $fib(40)", //
+				"@enduml");
+
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (CancellationToken.Scope scope = CancellationToken.create(100, 0).install()) {
+			new SourceStringReader(source).outputImage(os, new FileFormatOption(FileFormat.UTXT));
+		}
+
+		assertThat(os.toString("UTF-8")).contains("Time budget of 100 ms exceeded");
+	}
+
+	@Test
+	void test_teoz_rendering_is_stopped() throws Exception {
+		final SourceStringReader reader = new SourceStringReader("@startuml\n!pragma teoz true\nAlice -> Bob\n@enduml");
+
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		final CancellationToken token = CancellationToken.create(0, 0);
+		try (CancellationToken.Scope scope = token.install()) {
+			token.cancel("Stopped by the server");
+			reader.outputImage(os, new FileFormatOption(FileFormat.SVG));
+		}
+
+		assertThat(os.toString("UTF-8")).contains("cancelled").contains("Stopped by the server");
+	}
+
+	@Test
+	void test_json_rendering_is_stopped() throws Exception {
+		final SourceStringReader reader = new SourceStringReader("@startjson\n{\"a\": [1, 2, 3]}\n@endjson");
+
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		final CancellationToken token = CancellationToken.create(0, 0);
+		try (CancellationToken.Scope scope = token.install()) {
+			token.cancel("Stopped by the server");
+			reader.outputImage(os, new FileFormatOption(FileFormat.SVG));
+		}
+
+		assertThat(os.toString("UTF-8")).contains("cancelled").contains("Stopped by the server");
+	}
+
+	//
+	// Test DSL
+	//
+
+	// Keeps the allocations from being optimized away
+	static volatile byte[] blackhole;
+
+}
@@ -1,10 +1,16 @@
 package net.sourceforge.plantuml.code;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
 import org.junit.jupiter.api.Test;
 
 import net.sourceforge.plantuml.code.deflate.OutputStreamProtected;
@@ -45,6 +51,48 @@ class CompressionTest {
 		}
 	}
 
+	@Test
+	public void same_output_as_a_fresh_deflater() throws Exception {
+		final byte[] data = repeat("Alice -> Bob : hello\n", 500).getBytes(UTF_8);
+		final Deflater deflater = new Deflater(9, true);
+		deflater.setInput(data);
+		deflater.finish();
+		final byte[] expected = new byte[data.length];
+		final int len = deflater.deflate(expected);
+		deflater.end();
+
+		final Compression compression = new CompressionZlib();
+		for (int i = 0; i < 3; i++)
+			assertArrayEquals(Arrays.copyOf(expected, len), compression.compress(data));
+	}
+
+	@Test
+	public void streaming_round_trip() throws Exception {
+		final CompressionZlib compression = new CompressionZlib();
+		final byte[] data = repeat("class Foo {\n}\n", 50_000).getBytes(UTF_8);
+
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		compression.compress(new ByteArrayInputStream(data), compressed);
+		assertArrayEquals(compression.compress(data), compressed.toByteArray());
+
+		final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+		compression.decompress(new ByteArrayInputStream(compressed.toByteArray()), decompressed);
+		assertArrayEquals(data, decompressed.toByteArray());
+	}
+
+	@Test
+	public void streaming_avoid_zip_bombing_too_big() throws Exception {
+		final CompressionZlib compression = new CompressionZlib();
+		final byte[] compressed = compression
+				.compress(repeat("x", OutputStreamProtected.MAX_OUTPUT_SIZE + 1).getBytes(UTF_8));
+		try {
+			compression.decompress(new ByteArrayInputStream(compressed), new ByteArrayOutputStream());
+			fail("Expected exception.");
+		} catch (final NoPlantumlCompressionException e) {
+			assertEquals("Too big", e.getMessage());
+		}
+	}
+
 	static private String repeat(final String s, final int times) {
 		final StringBuilder sb = new StringBuilder();
 		for (int idx = 0; idx < times; idx += 1) {
@@ -0,0 +1,100 @@
+package net.sourceforge.plantuml.code;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+import net.sourceforge.plantuml.code.deflate.ByteBitInputStream;
+import net.sourceforge.plantuml.code.deflate.Decompressor;
+
+/**
+ * Measures the encoding and the decoding of diagram URLs, comparing the
+ * default transcoder with the previous implementation (a new Deflater for each
+ * call and the pure Java Decompressor). This is not a unit test: run it for
+ * example with
+ * 
+ * <pre>
+ * java -cp build/classes/java/main:build/classes/java/test \
+ *      net.sourceforge.plantuml.code.TranscoderBenchmark 2000
+ * </pre>
+ */
+public class TranscoderBenchmark {
+
+	static class PureJavaZlib implements Compression {
+
+		public byte[] compress(byte[] in) {
+			final Deflater compresser = new Deflater(9, true);
+			compresser.setInput(in);
+			compresser.finish();
+			final byte[] output = new byte[Math.max(1000, in.length * 2)];
+			final int len = compresser.deflate(output);
+			final byte[] result = new byte[len];
+			System.arraycopy(output, 0, result, 0, len);
+			return result;
+		}
+
+		public ByteArray decompress(byte[] input) throws NoPlantumlCompressionException {
+			final byte padded[] = new byte[input.length + 256];
+			System.arraycopy(input, 0, padded, 0, input.length);
+			try {
+				return ByteArray.from(
+						Decompressor.decompress(new ByteBitInputStream(new ByteArrayInputStream(padded))));
+			} catch (Exception e) {
+				throw new NoPlantumlCompressionException(e);
+			}
+		}
+
+	}
+
+	private static String diagram() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("@startuml\n");
+		for (int i = 0; i < 200; i++) {
+			sb.append("class Service" + i + " {\n");
+			sb.append("  +handle(Request r" + i + ") : Response\n");
+			sb.append("}\n");
+			sb.append("Service" + i + " --> Repository" + (i % 17) + " : uses\n");
+		}
+		sb.append("@enduml\n");
+		return sb.toString();
+	}
+
+	interface Action {
+		void run() throws IOException;
+	}
+
+	private static void bench(String name, int iterations, Action action) throws IOException {
+		for (int i = 0; i < Math.max(50, iterations / 5); i++)
+			action.run();
+
+		long total = 0;
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < iterations; i++) {
+			final long start = System.nanoTime();
+			action.run();
+			final long duration = System.nanoTime() - start;
+			total += duration;
+			best = Math.min(best, duration);
+		}
+		System.out.println(String.format(Locale.US, "%-14s mean=%.1f us best=%.1f us", name,
+				total / 1e3 / iterations, best / 1e3));
+	}
+
+	public static void main(String[] args) throws IOException {
+		final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		final String text = diagram();
+		final Transcoder current = TranscoderUtil.getDefaultTranscoder();
+		final Transcoder reference = TranscoderImpl.utf8(new AsciiEncoder(), new ArobaseStringCompressor(),
+				new PureJavaZlib());
+		final String code = current.encode(text);
+		if (reference.decode(code).equals(current.decode(code)) == false)
+			throw new IllegalStateException();
+
+		bench("encode", iterations, () -> current.encode(text));
+		bench("encode (pure)", iterations, () -> reference.encode(text));
+		bench("decode", iterations, () -> current.decode(code));
+		bench("decode (pure)", iterations, () -> reference.decode(code));
+	}
+
+}
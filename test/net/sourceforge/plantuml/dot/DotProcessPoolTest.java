@@ -0,0 +1,151 @@
+package net.sourceforge.plantuml.dot;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.plantuml.OptionFlags;
+
+class DotProcessPoolTest {
+
+	//
+	// Test Cases
+	//
+
+	@Test
+	void test_graphs_are_rendered_by_the_same_process() throws Exception {
+		final DotProcessPool pool = pool();
+
+		assertThat(render(pool, "digraph a {}")).isEqualTo("<svg><!-- digraph a {} --></svg>\n");
+		assertThat(render(pool, "digraph b {}")).isEqualTo("<svg><!-- digraph b {} --></svg>\n");
+	}
+
+	@Test
+	void test_rejected_graph_is_left_to_a_new_process() throws Exception {
+		final DotProcessPool pool = pool();
+		final long start = System.currentTimeMillis();
+
+		assertThat(pool.run("digraph a { ! }".getBytes(UTF_8), new ByteArrayOutputStream())).isNull();
+		assertThat(System.currentTimeMillis() - start).isLessThan(10000L);
+
+		assertThat(render(pool, "digraph b {}")).isEqualTo("<svg><!-- digraph b {} --></svg>\n");
+	}
+
+	@Test
+	void test_crashed_graph_is_left_to_a_new_process() throws Exception {
+		final DotProcessPool pool = pool();
+
+		assertThat(pool.run("digraph crash {}".getBytes(UTF_8), new ByteArrayOutputStream())).isNull();
+
+		assertThat(render(pool, "digraph b {}")).isEqualTo("<svg><!-- digraph b {} --></svg>\n");
+	}
+
+	@Test
+	void test_timeout() throws Exception {
+		final DotProcessPool pool = pool();
+		final long timeoutMs = OptionFlags.getInstance().getTimeoutMs();
+		OptionFlags.getInstance().setTimeoutMs(2000);
+		try {
+			final ProcessState state = pool.run("digraph sleep {}".getBytes(UTF_8), new ByteArrayOutputStream());
+			assertThat(state).isEqualTo(ProcessState.TIMEOUT());
+		} finally {
+			OptionFlags.getInstance().setTimeoutMs(timeoutMs);
+		}
+	}
+
+	@Test
+	void test_busy_pool_falls_back_at_once() throws Exception {
+		final DotProcessPool pool = pool();
+		final long timeoutMs = OptionFlags.getInstance().getTimeoutMs();
+		OptionFlags.getInstance().setTimeoutMs(3000);
+		try {
+			final Thread busy = new Thread(() -> {
+				try {
+					pool.run("digraph sleep {}".getBytes(UTF_8), new ByteArrayOutputStream());
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			busy.start();
+			Thread.sleep(200);
+
+			final long start = System.currentTimeMillis();
+			assertThat(pool.run("digraph b {}".getBytes(UTF_8), new ByteArrayOutputStream())).isNull();
+			assertThat(System.currentTimeMillis() - start).isLessThan(1000L);
+			busy.join();
+		} finally {
+			OptionFlags.getInstance().setTimeoutMs(timeoutMs);
+		}
+	}
+
+	//
+	// Test DSL
+	//
+
+	private static DotProcessPool pool() {
+		final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		final String[] cmd = { java, "-cp", System.getProperty("java.class.path"), StubDot.class.getName() };
+		System.setProperty("PLANTUML_DOT_POOL", "1");
+		try {
+			return DotProcessPool.getInstance(cmd);
+		} finally {
+			System.clearProperty("PLANTUML_DOT_POOL");
+		}
+	}
+
+	private static String render(DotProcessPool pool, String graph) throws Exception {
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		assertThat(pool.run(graph.getBytes(UTF_8), os)).isEqualTo(ProcessState.TERMINATED_OK());
+		return new String(os.toByteArray(), UTF_8);
+	}
+
+	/**
+	 * Stands for dot: reads graphs from stdin and answers each of them with a
+	 * fake SVG image. Like dot, it does not answer anything after a syntax error.
+	 */
+	public static class StubDot {
+
+		public static void main(String[] args) throws Exception {
+			final Reader in = new InputStreamReader(System.in, UTF_8);
+			final PrintStream out = new PrintStream(System.out, true, "UTF-8");
+			final StringBuilder graph = new StringBuilder();
+			boolean lost = false;
+			int depth = 0;
+			int c;
+			while ((c = in.read()) != -1) {
+				graph.append((char) c);
+				if (c == '{')
+					depth++;
+				if (c != '}' || --depth > 0)
+					continue;
+
+				final String text = graph.toString().trim();
+				graph.setLength(0);
+				if (lost)
+					continue;
+
+				if (text.contains("crash"))
+					System.exit(1);
+
+				if (text.contains("sleep"))
+					Thread.sleep(Long.MAX_VALUE);
+
+				if (text.contains("!")) {
+					out.print("Error: <stdin>: syntax error in line 1 near '!'\n");
+					lost = true;
+				} else {
+					out.print("<svg><!-- " + text + " --></svg>\n");
+				}
+				out.flush();
+			}
+		}
+	}
+
+}
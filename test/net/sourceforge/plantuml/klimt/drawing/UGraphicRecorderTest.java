@@ -0,0 +1,74 @@
+package net.sourceforge.plantuml.klimt.drawing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.klimt.UTranslate;
+import net.sourceforge.plantuml.klimt.color.ColorMapper;
+import net.sourceforge.plantuml.klimt.color.HColors;
+import net.sourceforge.plantuml.klimt.font.StringBounder;
+import net.sourceforge.plantuml.klimt.geom.MinMax;
+import net.sourceforge.plantuml.klimt.shape.UDrawable;
+import net.sourceforge.plantuml.klimt.shape.UEllipse;
+import net.sourceforge.plantuml.klimt.shape.ULine;
+import net.sourceforge.plantuml.klimt.shape.URectangle;
+
+class UGraphicRecorderTest {
+
+	private static final UDrawable DRAWING = new UDrawable() {
+		public void drawU(UGraphic ug) {
+			ug.apply(HColors.RED).draw(URectangle.build(30, 20));
+			ug = ug.apply(new UTranslate(50, 10));
+			ug.apply(HColors.BLUE.bg()).draw(UEllipse.build(10, 15));
+			ug.apply(UTranslate.dy(-5)).draw(ULine.hline(40));
+		}
+	};
+
+	private static UGraphicRecorder record(StringBounder stringBounder, UTranslate origin) {
+		final UGraphicRecorder recorder = UGraphicRecorder.create(stringBounder, HColors.WHITE, ColorMapper.IDENTITY,
+				origin, Collections.singletonList("SVG"));
+		DRAWING.drawU(recorder);
+		return recorder;
+	}
+
+	private static void assertSame(MinMax actual, MinMax expected) {
+		assertThat(actual.getMinX()).isEqualTo(expected.getMinX());
+		assertThat(actual.getMinY()).isEqualTo(expected.getMinY());
+		assertThat(actual.getMaxX()).isEqualTo(expected.getMaxX());
+		assertThat(actual.getMaxY()).isEqualTo(expected.getMaxY());
+	}
+
+	@Test
+	void extents_are_the_ones_of_a_dry_run() {
+		final StringBounder stringBounder = FileFormat.PNG.getDefaultStringBounder();
+		final LimitFinder limitFinder = LimitFinder.create(stringBounder, true);
+		DRAWING.drawU(limitFinder);
+
+		final UGraphicRecorder recorder = record(stringBounder, new UTranslate(7, 3));
+		assertThat(recorder.size()).isEqualTo(3);
+		assertSame(recorder.getMinMax(), limitFinder.getMinMax());
+	}
+
+	@Test
+	void replay_draws_at_the_same_place() {
+		final StringBounder stringBounder = FileFormat.PNG.getDefaultStringBounder();
+		final LimitFinder limitFinder = LimitFinder.create(stringBounder, false);
+		DRAWING.drawU(limitFinder.apply(new UTranslate(7, 3)));
+
+		final LimitFinder replayed = LimitFinder.create(stringBounder, false);
+		record(stringBounder, new UTranslate(7, 3)).replay(replayed);
+		assertSame(replayed.getMinMax(), limitFinder.getMinMax());
+	}
+
+	@Test
+	void answers_properties_of_the_back_end() {
+		final UGraphicRecorder recorder = record(FileFormat.SVG.getDefaultStringBounder(), UTranslate.none());
+		assertThat(recorder.matchesProperty("svg")).isTrue();
+		assertThat(recorder.matchesProperty("SPECIALTXT")).isFalse();
+	}
+
+}
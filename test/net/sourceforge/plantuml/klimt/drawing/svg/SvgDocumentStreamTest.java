@@ -0,0 +1,60 @@
+package net.sourceforge.plantuml.klimt.drawing.svg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class SvgDocumentStreamTest {
+
+	@ParameterizedTest
+	@ValueSource(strings = { "", "Hello World", "a & b < c > d \"e\" 'f'", "été 中文 😀", "line1\nline2\r\nline3\ttab",
+			"]]>", "a]]>b]]]>c", "é]]>\u0001", "\nfirst newline", " \nnbsp", "-", "a--b---", "del\u007f" })
+	void same_output_as_dom(String text) throws Exception {
+		assertEquals(render(new SvgDocumentDom(), text), render(new SvgDocumentStream(), text));
+	}
+
+	private static String render(SvgDocument document, String text) throws Exception {
+		final SvgElement root = document.getRoot();
+		root.setAttribute("xmlns", "http://www.w3.org/2000/svg");
+		root.setAttribute("xmlns:xlink", "http://www.w3.org/1999/xlink");
+		root.setAttribute("version", "1.1");
+
+		final SvgElement defs = document.createElement("defs");
+		root.appendChild(defs);
+		final SvgElement g = document.createElement("g");
+		root.appendChild(g);
+
+		// Same moves as SvgGraphics: created under the root, then put in defs
+		final SvgElement style = document.createElement("style");
+		root.appendChild(style);
+		style.setAttribute("type", "text/css");
+		style.appendCData(text);
+		defs.appendChild(style);
+
+		final SvgElement link = document.createElement("a");
+		link.setAttribute("xlink:title", text);
+		link.setAttribute("href", text);
+		final SvgElement elt = document.createElement("text");
+		elt.setAttribute("x", "10");
+		elt.setTextContent(text);
+		link.appendChild(elt);
+		link.appendChild(document.createElement("rect"));
+		g.appendChild(link);
+		g.appendComment(text);
+
+		final SvgElement background = document.createElement("rect");
+		background.setAttribute("width", "100");
+		g.insertFirst(background);
+
+		root.setAttribute("viewBox", "0 0 100 100");
+
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		document.write(baos);
+		return new String(baos.toByteArray(), StandardCharsets.ISO_8859_1);
+	}
+
+}
@@ -0,0 +1,36 @@
+package net.sourceforge.plantuml.klimt.font;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Font;
+import java.awt.geom.Rectangle2D;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.klimt.geom.XDimension2D;
+
+class FontMetricsCacheTest {
+
+	@ParameterizedTest
+	@ValueSource(strings = { "", "A", "Hello World", "class Foo<T> extends Bar { int x; }", "été 中文",
+			"tab\there" })
+	void same_dimension_as_font_metrics(String text) {
+		final FontMetricsCache cache = new FontMetricsCache(FileFormat.gg.getFontRenderContext(), true);
+		for (String family : new String[] { "SansSerif", "Serif", "Monospaced" })
+			for (int style = 0; style < 4; style++)
+				for (int size = 8; size < 20; size += 3) {
+					final Font font = new Font(family, style, size);
+					final Rectangle2D expected = FileFormat.gg.getFontMetrics(font).getStringBounds(text, FileFormat.gg);
+
+					// First call computes, second call hits the cache
+					for (int i = 0; i < 2; i++) {
+						final XDimension2D dim = cache.getDimension(font, text);
+						assertEquals(expected.getWidth(), dim.getWidth());
+						assertEquals(expected.getHeight(), dim.getHeight());
+					}
+				}
+	}
+
+}
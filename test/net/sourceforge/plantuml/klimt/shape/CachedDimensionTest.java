@@ -0,0 +1,57 @@
+package net.sourceforge.plantuml.klimt.shape;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.klimt.drawing.UGraphic;
+import net.sourceforge.plantuml.klimt.font.StringBounder;
+import net.sourceforge.plantuml.klimt.geom.HorizontalAlignment;
+import net.sourceforge.plantuml.klimt.geom.XDimension2D;
+
+class CachedDimensionTest {
+
+	static class CountingBlock extends AbstractTextBlock {
+		private int count;
+
+		public XDimension2D calculateDimension(StringBounder stringBounder) {
+			count++;
+			return new XDimension2D(10, 20);
+		}
+
+		public void drawU(UGraphic ug) {
+		}
+	}
+
+	@Test
+	void composite_measures_children_once_per_string_bounder() {
+		final CountingBlock child = new CountingBlock();
+		final TextBlock block = TextBlockUtils.withMargin(
+				TextBlockUtils.mergeTB(child, new CountingBlock(), HorizontalAlignment.LEFT), 5, 3);
+
+		final StringBounder stringBounder = FileFormat.PNG.getDefaultStringBounder();
+		for (int i = 0; i < 10; i++) {
+			final XDimension2D dim = block.calculateDimension(stringBounder);
+			assertThat(dim.getWidth()).isEqualTo(20);
+			assertThat(dim.getHeight()).isEqualTo(46);
+		}
+		assertThat(child.count).isEqualTo(1);
+
+		block.calculateDimension(FileFormat.PNG.getDefaultStringBounder());
+		assertThat(child.count).isEqualTo(2);
+	}
+
+	@Test
+	void get_only_matches_the_same_string_bounder() {
+		final CachedDimension cache = new CachedDimension();
+		final StringBounder first = FileFormat.PNG.getDefaultStringBounder();
+		final XDimension2D dim = new XDimension2D(1, 2);
+
+		assertThat(cache.get(first)).isNull();
+		assertThat(cache.put(first, dim)).isSameAs(dim);
+		assertThat(cache.get(first)).isSameAs(dim);
+		assertThat(cache.get(FileFormat.PNG.getDefaultStringBounder())).isNull();
+	}
+
+}
@@ -0,0 +1,69 @@
+package net.sourceforge.plantuml.klimt.sprite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.plantuml.klimt.color.ColorMapper;
+import net.sourceforge.plantuml.klimt.color.HColor;
+import net.sourceforge.plantuml.klimt.color.HColorGradient;
+import net.sourceforge.plantuml.klimt.color.HColors;
+import net.sourceforge.plantuml.klimt.shape.UImage;
+
+class SpriteImageCacheTest {
+
+	private static SpriteMonochrome monochrome() {
+		final SpriteMonochrome sprite = new SpriteMonochrome(5, 3, 16);
+		for (int x = 0; x < 5; x++)
+			for (int y = 0; y < 3; y++)
+				sprite.setGray(x, y, (x * 3 + y) % 8);
+		return sprite;
+	}
+
+	@Test
+	void same_colors_reuse_the_image() {
+		final SpriteMonochrome sprite = monochrome();
+		final HColor back = HColors.WHITE.withDark(HColors.BLACK);
+		final UImage image = sprite.toUImage(ColorMapper.IDENTITY, back, HColors.RED);
+
+		assertThat(sprite.toUImage(ColorMapper.IDENTITY, back, HColors.RED)).isSameAs(image);
+		assertThat(sprite.toUImage(ColorMapper.IDENTITY, HColors.WHITE, HColors.RED)).isSameAs(image);
+		assertThat(sprite.toUImage(ColorMapper.IDENTITY, back, HColors.BLUE)).isNotSameAs(image);
+		assertThat(sprite.toUImage(ColorMapper.DARK_MODE, back, HColors.RED)).isNotSameAs(image);
+		assertThat(monochrome().toUImage(ColorMapper.IDENTITY, back, HColors.RED)).isNotSameAs(image);
+	}
+
+	@Test
+	void monochrome_pixels() {
+		final SpriteMonochrome sprite = monochrome();
+		final BufferedImage image = sprite.toUImage(ColorMapper.IDENTITY, HColors.WHITE, HColors.RED).getImage(1);
+		final HColorGradient gradient = HColors.gradient(HColors.WHITE, HColors.RED, '\0');
+
+		// maximum gray level is 7
+		final double maxCoef = 7.0 / 15;
+		for (int x = 0; x < 5; x++)
+			for (int y = 0; y < 3; y++) {
+				final double coef = sprite.getGray(x, y) / 15.0;
+				final int alpha = coef > maxCoef / 4 ? 255 : (int) (255 * (coef * 4 / maxCoef));
+				assertThat(image.getRGB(x, y)).isEqualTo(gradient.getColor(ColorMapper.IDENTITY, coef, alpha).getRGB());
+			}
+	}
+
+	@Test
+	void color_pixels() {
+		final SpriteColor sprite = new SpriteColor(2, 2);
+		sprite.setGray(0, 0, 0);
+		sprite.setGray(1, 0, 15);
+		sprite.setColor(0, 1, 0x123456);
+		sprite.setColor(1, 1, 0x7F654321);
+		final BufferedImage image = sprite.toUImage(ColorMapper.IDENTITY, HColors.WHITE, HColors.BLACK).getImage(1);
+
+		assertThat(image.getRGB(0, 0)).isEqualTo(0xFFFFFFFF);
+		assertThat(image.getRGB(1, 0)).isEqualTo(0xFF000000);
+		assertThat(image.getRGB(0, 1)).isEqualTo(0xFF123456);
+		assertThat(image.getRGB(1, 1)).isEqualTo(0xFF654321);
+	}
+
+}
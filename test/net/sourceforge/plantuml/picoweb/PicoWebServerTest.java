@@ -34,6 +34,8 @@ public class PicoWebServerTest {
 		test_GET_svg();
 		test_POST_render();
 		test_unknown_path();
+		test_keep_alive_pipelining();
+		test_GET_etag();
 	}
 
 	//
@@ -227,6 +229,45 @@ public class PicoWebServerTest {
 		assert response.getHeaderField("Location").equals("/plantuml/png/oqbDJyrBuGh8ISmh2VNrKGZ8JCuFJqqAJYqgIotY0aefG5G00000");
 	}
 
+	private static void test_keep_alive_pipelining() throws Exception {
+		final String path = "/txt/" + getDefaultTranscoder().encode("A -> B");
+		final String request = "GET " + path + " HTTP/1.1\r\n\r\n";
+		final String lastRequest = "GET " + path + " HTTP/1.1\r\nConnection: close\r\n\r\n";
+
+		try (Socket socket = socketConnection()) {
+			socket.getOutputStream().write((request + request + lastRequest).getBytes(UTF_8));
+			final String responses = readStreamAsString(socket.getInputStream());
+			assert responses.split("HTTP/1.1 200 OK", -1).length == 4;
+			assert responses.contains("Connection: close");
+		}
+	}
+
+	private static void test_GET_etag() throws Exception {
+		final String path = "/png/" + getDefaultTranscoder().encode("A -> C");
+		HttpURLConnection response;
+
+		response = httpGet(path);
+		assert response.getResponseCode() == 200;
+		final String etag = response.getHeaderField("ETag");
+		assert etag != null && etag.startsWith("\"") && etag.endsWith("PNG\"");
+		readStreamAsImage(response.getInputStream());
+
+		// Second hit is served from the cache with the same etag
+		response = httpGet(path);
+		assert response.getResponseCode() == 200;
+		assert response.getHeaderField("ETag").equals(etag);
+		assert readStreamAsImage(response.getInputStream()) != null;
+
+		response = httpGet(path);
+		response.setRequestProperty("If-None-Match", etag);
+		assert response.getResponseCode() == 304;
+
+		response = httpGet("/svg/" + getDefaultTranscoder().encode("A -> C"));
+		response.setRequestProperty("If-None-Match", etag);
+		assert response.getResponseCode() == 200;
+		assert response.getHeaderField("ETag").equals(etag) == false;
+	}
+
 	//
 	// Test DSL
 	//
@@ -0,0 +1,112 @@
+package net.sourceforge.plantuml.png;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Adler32;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+class PngEncoderTest {
+
+	private static BufferedImage image(int width, int height, int type, boolean antialiasing) {
+		final BufferedImage image = new BufferedImage(width, height, type);
+		final Graphics2D g2d = image.createGraphics();
+		if (antialiasing)
+			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g2d.setColor(new Color(0xFEFECE));
+		g2d.fillRoundRect(2, 2, width - 4, height / 2, 10, 10);
+		g2d.setColor(new Color(0x80A80036, true));
+		g2d.drawOval(5, 5, width - 10, height - 10);
+		g2d.setColor(Color.BLACK);
+		g2d.drawString("Hello", 10, height / 2);
+		g2d.dispose();
+		return image;
+	}
+
+	private static byte[] encode(BufferedImage image, int level, String metadata) throws IOException {
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		new PngEncoder(level).write(image, os, metadata, 96, null);
+		return os.toByteArray();
+	}
+
+	private static void assertSamePixels(BufferedImage expected, byte[] png) throws IOException {
+		final BufferedImage actual = ImageIO.read(new ByteArrayInputStream(png));
+		assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+		assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++)
+			for (int x = 0; x < expected.getWidth(); x++)
+				assertThat(actual.getRGB(x, y)).isEqualTo(expected.getRGB(x, y));
+	}
+
+	private static int colorType(byte[] png) {
+		return png[8 + 4 + 4 + 9];
+	}
+
+	@Test
+	void palette_when_few_colors() throws IOException {
+		final BufferedImage image = image(60, 40, BufferedImage.TYPE_INT_ARGB, false);
+		final byte[] png = encode(image, -1, "metadata");
+
+		assertThat(colorType(png)).isEqualTo(3);
+		assertSamePixels(image, png);
+	}
+
+	@Test
+	void true_colors_when_many_colors() throws IOException {
+		final BufferedImage rgb = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < 40; x++)
+			for (int y = 0; y < 30; y++)
+				rgb.setRGB(x, y, x * 0x10000 + y * 0x100 + x * y);
+		final byte[] png = encode(rgb, 9, null);
+		assertThat(colorType(png)).isEqualTo(2);
+		assertSamePixels(rgb, png);
+
+		final BufferedImage argb = image(200, 120, BufferedImage.TYPE_INT_ARGB, true);
+		for (int level = 0; level <= 9; level++)
+			assertSamePixels(argb, encode(argb, level, null));
+	}
+
+	@Test
+	void large_image_is_deflated_in_stripes() throws IOException {
+		final BufferedImage image = image(1500, 1200, BufferedImage.TYPE_INT_ARGB, true);
+		final byte[] png = encode(image, 1, "metadata");
+
+		assertSamePixels(image, png);
+		assertThat(encode(image, 1, "metadata")).isEqualTo(png);
+	}
+
+	@Test
+	void metadata_is_readable() throws IOException {
+		final String metadata = "@startuml\nAlice -> Bob : héllo →\n@enduml";
+		final byte[] png = encode(image(30, 20, BufferedImage.TYPE_INT_RGB, false), -1, metadata);
+
+		assertThat(new MetadataTag(new ByteArrayInputStream(png), "plantuml").getData()).isEqualTo(metadata);
+	}
+
+	@Test
+	void adler32_combine() {
+		final byte[] data = new byte[100_000];
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) (i * 31 + i / 7);
+
+		final Adler32 all = new Adler32();
+		all.update(data);
+		final Adler32 first = new Adler32();
+		first.update(data, 0, 70_001);
+		final Adler32 second = new Adler32();
+		second.update(data, 70_001, data.length - 70_001);
+
+		assertThat(PngEncoder.adler32Combine(first.getValue(), second.getValue(), data.length - 70_001))
+				.isEqualTo(all.getValue());
+	}
+
+}
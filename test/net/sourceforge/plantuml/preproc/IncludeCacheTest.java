@@ -0,0 +1,72 @@
+package net.sourceforge.plantuml.preproc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.sourceforge.plantuml.SourceStringReader;
+import net.sourceforge.plantuml.security.SFile;
+import net.sourceforge.plantuml.text.StringLocated;
+
+class IncludeCacheTest {
+
+	private static List<String> preprocess(Path dir, String source) {
+		final List<String> result = new ArrayList<>();
+		final SourceStringReader reader = new SourceStringReader(source, new SFile(dir.toFile().getAbsolutePath()));
+		for (StringLocated line : reader.getBlocks().get(0).getData())
+			if (line.getString().isEmpty() == false)
+				result.add(line.getString());
+
+		return result;
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(UTF_8));
+	}
+
+	@Test
+	void changed_file_is_read_again(@TempDir Path dir) throws IOException {
+		write(dir.resolve("lib.iuml"), "class A\n");
+		final String source = "@startuml\n!include lib.iuml\n@enduml\n";
+
+		assertThat(preprocess(dir, source)).containsExactly("@startuml", "class A", "@enduml");
+		assertThat(preprocess(dir, source)).containsExactly("@startuml", "class A", "@enduml");
+
+		write(dir.resolve("lib.iuml"), "class Changed\n");
+		assertThat(preprocess(dir, source)).containsExactly("@startuml", "class Changed", "@enduml");
+	}
+
+	@Test
+	void includesub_and_blocks(@TempDir Path dir) throws IOException {
+		write(dir.resolve("subs.iuml"), "" +
+				"!startsub ONE\n" +
+				"class One\n" +
+				"!endsub\n" +
+				"!startsub TWO\n" +
+				"class Two\n" +
+				"!endsub\n");
+		write(dir.resolve("blocks.puml"), "" +
+				"@startuml\n" +
+				"class Block0\n" +
+				"@enduml\n" +
+				"@startuml\n" +
+				"class Block1\n" +
+				"@enduml\n");
+
+		for (int i = 0; i < 2; i++) {
+			assertThat(preprocess(dir, "@startuml\n!includesub subs.iuml!TWO\n!includesub subs.iuml!ONE\n@enduml\n"))
+					.containsExactly("@startuml", "class Two", "class One", "@enduml");
+			assertThat(preprocess(dir, "@startuml\n!include blocks.puml!1\n@enduml\n"))
+					.containsExactly("@startuml", "class Block1", "@enduml");
+		}
+	}
+
+}
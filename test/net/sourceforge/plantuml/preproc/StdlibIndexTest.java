@@ -0,0 +1,80 @@
+package net.sourceforge.plantuml.preproc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StdlibIndexTest {
+
+	private static String read(InputStream is) throws IOException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[7];
+		int len;
+		while ((len = is.read(buffer)) != -1)
+			baos.write(buffer, 0, len);
+		return new String(baos.toByteArray(), UTF_8);
+	}
+
+	@Test
+	void entries_are_read_back(@TempDir Path dir) throws IOException {
+		final File file = StdlibIndex.getFile(dir.toFile(), "folder");
+		StdlibIndex.build(file, "VERSION=1\n", writer -> {
+			writer.add("Common", "!define A 1\n");
+			writer.add("sub/Entry", "sprite $s [2x2/16] {\n\u00e9t\u00e9\n}\n");
+			writer.add("common", "ignored\n");
+		});
+
+		final StdlibIndex index = StdlibIndex.open(file, "VERSION=1\n");
+		assertThat(index.size()).isEqualTo(2);
+		assertThat(read(index.getInputStream("common"))).isEqualTo("!define A 1\n");
+		assertThat(read(index.getInputStream("SUB/entry"))).isEqualTo("sprite $s [2x2/16] {\n\u00e9t\u00e9\n}\n");
+		assertThat(index.getInputStream("missing")).isNull();
+	}
+
+	@Test
+	void other_header_is_not_used(@TempDir Path dir) throws IOException {
+		final File file = StdlibIndex.getFile(dir.toFile(), "folder");
+		assertThat(StdlibIndex.open(file, "VERSION=1\n")).isNull();
+
+		StdlibIndex.build(file, "VERSION=1\n", writer -> writer.add("a", "b\n"));
+		assertThat(StdlibIndex.open(file, "VERSION=2\n")).isNull();
+		assertThat(dir.toFile().list()).containsExactly(file.getName());
+	}
+
+	@Test
+	void damaged_file_is_not_used(@TempDir Path dir) throws IOException {
+		final File file = StdlibIndex.getFile(dir.toFile(), "folder");
+		StdlibIndex.build(file, "VERSION=1\n", writer -> {
+			writer.add("a", "b\n");
+			writer.add("c", "d\n");
+		});
+		final byte[] data = Files.readAllBytes(file.toPath());
+
+		for (int len = 0; len < data.length; len++) {
+			Files.write(file.toPath(), Arrays.copyOf(data, len));
+			assertThat(StdlibIndex.open(file, "VERSION=1\n")).isNull();
+		}
+
+		for (int i = 4; i < data.length; i++) {
+			final byte[] damaged = data.clone();
+			damaged[i] = (byte) 0xFF;
+			Files.write(file.toPath(), damaged);
+			final StdlibIndex index = StdlibIndex.open(file, "VERSION=1\n");
+			if (index != null)
+				for (String entry : new String[] { "a", "c" })
+					if (index.getInputStream(entry) != null)
+						read(index.getInputStream(entry));
+		}
+	}
+
+}
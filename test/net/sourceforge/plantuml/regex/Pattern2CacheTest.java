@@ -0,0 +1,70 @@
+package net.sourceforge.plantuml.regex;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class Pattern2CacheTest {
+
+	private static Pattern2 compile(String regex) {
+		return new Pattern2(Pattern.compile(regex));
+	}
+
+	@Test
+	void size_stays_bounded() {
+		final Pattern2Cache cache = new Pattern2Cache(16);
+		for (int i = 0; i < 1000; i++)
+			cache.put("a" + i, compile("a" + i));
+
+		assertTrue(cache.size() <= 16);
+	}
+
+	@Test
+	void first_put_wins() {
+		final Pattern2Cache cache = new Pattern2Cache(16);
+		final Pattern2 first = compile("x");
+		assertSame(first, cache.put("x", first));
+		assertSame(first, cache.put("x", compile("x")));
+		assertSame(first, cache.get("x"));
+	}
+
+	@Test
+	void recently_used_entries_are_kept() {
+		final Pattern2Cache cache = new Pattern2Cache(4);
+		for (int i = 0; i < 4; i++)
+			cache.put("a" + i, compile("a" + i));
+
+		// a0 is used, so the hand skips it and evicts a1
+		assertNotNull(cache.get("a0"));
+		cache.put("b", compile("b"));
+		assertNotNull(cache.get("a0"));
+		assertNull(cache.get("a1"));
+		assertNotNull(cache.get("b"));
+	}
+
+	@Test
+	void concurrent_access() throws InterruptedException {
+		final Pattern2Cache cache = new Pattern2Cache(32);
+		final Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					final String key = "k" + (i % 100);
+					if (cache.get(key) == null)
+						cache.put(key, compile(key));
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+
+		assertTrue(cache.size() <= 32 + threads.length);
+	}
+
+}
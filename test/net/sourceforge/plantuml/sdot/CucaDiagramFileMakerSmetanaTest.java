@@ -0,0 +1,55 @@
+package net.sourceforge.plantuml.sdot;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
+import smetana.core.Globals;
+
+class CucaDiagramFileMakerSmetanaTest {
+
+	private static String svg(String body) throws IOException {
+		final String source = "@startuml\n!pragma layout smetana\n" + body + "@enduml\n";
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		new SourceStringReader(source).outputImage(os, new FileFormatOption(FileFormat.SVG));
+		return new String(os.toByteArray(), UTF_8);
+	}
+
+	@Test
+	void layout_does_not_depend_on_previous_ones() throws IOException {
+		final String small = "class A\nclass B\nA --> B : ab\nB --> A\n";
+		final StringBuilder big = new StringBuilder();
+		for (int i = 0; i < 30; i++)
+			big.append("class C" + i + "\nC" + i + " --> C" + (i * 7 % 30) + " : r" + i + "\n");
+
+		final String first = svg(small);
+		svg(big.toString());
+		assertThat(svg(small)).isEqualTo(first);
+	}
+
+	@Test
+	void instance_is_reused_unless_nested() {
+		final Globals first = Globals.open();
+		final Globals nested = Globals.open();
+		assertThat(nested).isNotSameAs(first);
+		Globals.close(nested);
+		Globals.close(first);
+
+		final Globals second = Globals.open();
+		try {
+			assertThat(second).isSameAs(first);
+			assertThat(second.ctr).isEqualTo(1);
+			assertThat(second.Root).isNull();
+		} finally {
+			Globals.close(second);
+		}
+	}
+
+}
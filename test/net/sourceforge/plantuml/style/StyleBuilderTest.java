@@ -0,0 +1,138 @@
+package net.sourceforge.plantuml.style;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.EnumMap;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.plantuml.skin.SkinParam;
+import net.sourceforge.plantuml.skin.UmlDiagramType;
+
+class StyleBuilderTest {
+
+	//
+	// Test Cases
+	//
+
+	@Test
+	void test_merged_style_is_computed_once() {
+		final StyleBuilder builder = builder();
+		final StyleSignatureBasic signature = StyleSignatureBasic.of(SName.root, SName.element, SName.classDiagram);
+
+		assertThat(builder.getMergedStyle(signature)).isSameAs(builder.getMergedStyle(signature));
+		assertThat(builder.getMergedStyleSpecial(signature, 1)).isSameAs(builder.getMergedStyleSpecial(signature, 1));
+	}
+
+	@Test
+	void test_load_drops_merged_styles() {
+		final StyleBuilder builder = builder();
+		final StyleSignatureBasic signature = StyleSignatureBasic.of(SName.root, SName.element, SName.classDiagram);
+		assertThat(color(builder, signature)).isEqualTo("red");
+		assertThat(colorSpecial(builder, signature)).isEqualTo("red");
+
+		builder.loadInternal(new StyleSignatureBasic("classDiagram"), style("classDiagram", "green"));
+
+		assertThat(color(builder, signature)).isEqualTo("green");
+		assertThat(colorSpecial(builder, signature)).isEqualTo("green");
+	}
+
+	@Test
+	void test_style_needs_all_its_names() {
+		final StyleBuilder builder = builder();
+		final StyleSignatureBasic both = new StyleSignatureBasic("element").add("classDiagram");
+		builder.loadInternal(both, style(both, "green"));
+		final StyleSignatureBasic rare = new StyleSignatureBasic("element").add("note");
+		builder.loadInternal(rare, style(rare, "blue"));
+
+		assertThat(color(builder, StyleSignatureBasic.of(SName.root, SName.element))).isEqualTo("red");
+		assertThat(color(builder, StyleSignatureBasic.of(SName.root, SName.classDiagram))).isEqualTo("black");
+		assertThat(color(builder, StyleSignatureBasic.of(SName.root, SName.element, SName.classDiagram)))
+				.isEqualTo("green");
+		assertThat(color(builder, StyleSignatureBasic.of(SName.root, SName.element, SName.note))).isEqualTo("blue");
+		assertThat(colorSpecial(builder, StyleSignatureBasic.of(SName.root, SName.element, SName.note)))
+				.isEqualTo("blue");
+		assertThat(color(builder, StyleSignatureBasic.of(SName.root, SName.note))).isEqualTo("black");
+	}
+
+	@Test
+	void test_mute_changes_only_the_new_builder() {
+		final StyleBuilder builder = builder();
+		final StyleSignatureBasic classDiagram = StyleSignatureBasic.of(SName.root, SName.element,
+				SName.classDiagram, SName.class_);
+		final StyleSignatureBasic sequence = StyleSignatureBasic.of(SName.root, SName.element,
+				SName.sequenceDiagram, SName.participant);
+		assertThat(color(builder, classDiagram)).isEqualTo("red");
+		assertThat(color(builder, sequence)).isEqualTo("red");
+
+		final StyleBuilder muted = builder.muteStyle(style("element", "blue"));
+		final StyleBuilder muted2 = muted.muteStyle(style("classDiagram", "green"));
+
+		assertThat(color(builder, classDiagram)).isEqualTo("red");
+		assertThat(color(muted, classDiagram)).isEqualTo("blue");
+		assertThat(color(muted, sequence)).isEqualTo("blue");
+		assertThat(color(muted2, classDiagram)).isEqualTo("green");
+		assertThat(color(muted2, sequence)).isEqualTo("blue");
+		assertThat(color(muted, classDiagram)).isEqualTo("blue");
+	}
+
+	@Test
+	void test_load_after_mute_does_not_change_the_original() {
+		final StyleBuilder builder = builder();
+		final StyleSignatureBasic classDiagram = StyleSignatureBasic.of(SName.root, SName.element,
+				SName.classDiagram, SName.class_);
+
+		final StyleBuilder muted = builder.muteStyle(style("element", "blue"));
+		muted.loadInternal(new StyleSignatureBasic("classDiagram"), style("classDiagram", "green"));
+		builder.loadInternal(new StyleSignatureBasic("element"), style("element", "yellow"));
+
+		assertThat(color(muted, classDiagram)).isEqualTo("green");
+		assertThat(color(builder, classDiagram)).isEqualTo("yellow");
+	}
+
+	@Test
+	void test_copies_have_their_own_merged_styles() {
+		final StyleBuilder builder = builder();
+		final StyleSignatureBasic signature = StyleSignatureBasic.of(SName.root, SName.element, SName.classDiagram);
+
+		final StyleBuilder copy1 = builder.copyFor(SkinParam.create(UmlDiagramType.CLASS));
+		final StyleBuilder copy2 = builder.copyFor(SkinParam.create(UmlDiagramType.CLASS));
+
+		assertThat(copy1.getMergedStyle(signature)).isSameAs(copy1.getMergedStyle(signature));
+		assertThat(copy1.getMergedStyle(signature)).isNotSameAs(copy2.getMergedStyle(signature));
+		assertThat(color(copy2, signature)).isEqualTo("red");
+	}
+
+	//
+	// Test DSL
+	//
+
+	private static StyleBuilder builder() {
+		final StyleBuilder result = new StyleBuilder(SkinParam.create(UmlDiagramType.CLASS));
+		result.loadInternal(new StyleSignatureBasic("root"), style("root", "black"));
+		result.loadInternal(new StyleSignatureBasic("element"), style("element", "red"));
+		return result;
+	}
+
+	// Later styles have a higher priority, as with the counter of StyleBuilder
+	private static int priority;
+
+	private static Style style(String name, String color) {
+		return style(new StyleSignatureBasic(name), color);
+	}
+
+	private static Style style(StyleSignatureBasic signature, String color) {
+		final EnumMap<PName, Value> map = new EnumMap<PName, Value>(PName.class);
+		map.put(PName.FontColor, ValueImpl.regular(color, ++priority));
+		return new Style(signature, map);
+	}
+
+	private static String color(StyleBuilder builder, StyleSignatureBasic signature) {
+		return builder.getMergedStyle(signature).value(PName.FontColor).asString();
+	}
+
+	private static String colorSpecial(StyleBuilder builder, StyleSignatureBasic signature) {
+		return builder.getMergedStyleSpecial(signature, 1).value(PName.FontColor).asString();
+	}
+
+}
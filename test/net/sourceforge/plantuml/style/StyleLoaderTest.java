@@ -0,0 +1,50 @@
+package net.sourceforge.plantuml.style;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.sourceforge.plantuml.skin.SkinParam;
+import net.sourceforge.plantuml.skin.UmlDiagramType;
+
+class StyleLoaderTest {
+
+	//
+	// Test Cases
+	//
+
+	@Test
+	void test_local_skin_is_parsed_again_when_changed(@TempDir Path dir) throws Exception {
+		final File file = dir.resolve("local.skin").toFile();
+
+		write(file, "red");
+		assertThat(color(file)).isEqualTo("red");
+		assertThat(color(file)).isEqualTo("red");
+
+		write(file, "green");
+		assertThat(color(file)).isEqualTo("green");
+	}
+
+	//
+	// Test DSL
+	//
+
+	private static void write(File file, String color) throws Exception {
+		final long lastModified = file.lastModified();
+		Files.write(file.toPath(), ("root {\n  FontColor " + color + "\n}\n").getBytes(UTF_8));
+		file.setLastModified(lastModified + 2000);
+	}
+
+	private static String color(File file) throws Exception {
+		final StyleBuilder builder = new StyleLoader(SkinParam.create(UmlDiagramType.CLASS))
+				.loadSkin(file.getAbsolutePath());
+		return builder.getMergedStyle(StyleSignatureBasic.of(SName.root)).value(PName.FontColor).asString();
+	}
+
+}
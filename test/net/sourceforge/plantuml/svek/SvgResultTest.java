@@ -0,0 +1,61 @@
+package net.sourceforge.plantuml.svek;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.plantuml.klimt.geom.XPoint2D;
+
+class SvgResultTest {
+
+	private static final String SVG = "" +
+			"<svg width=\"100pt\" height=\"50pt\">\n" +
+			"<g><title>node1</title>\n" +
+			"<polygon fill=\"#000010\" stroke=\"#000011\" points=\"10,-20 30,-40\"/>\n" +
+			"</g>\n" +
+			"<g><title>a&#45;&gt;b</title>\n" +
+			"<path fill=\"none\" stroke=\"#000020\" d=\"M1,-2C3,-4 5,-6 7,-8\"/>\n" +
+			"<polygon fill=\"#000020\" stroke=\"#000020\" points=\"7,-8 9,-9 8,-7\"/>\n" +
+			"</g>\n" +
+			"<path style=\"fill:none;stroke:#000030;\" d=\"M0,0C1,1 2,2 3,3\"/>\n" +
+			"</svg>\n";
+
+	private final SvgResult svgResult = new SvgResult(SVG, new YDelta(50));
+
+	@Test
+	void colors_and_titles_are_found_like_indexOf() {
+		assertThat(svgResult.getIndexFromColor(0x10)).isEqualTo(SVG.indexOf("fill=\"#000010\""));
+		assertThat(svgResult.getIndexFromColor(0x11)).isEqualTo(SVG.indexOf("stroke=\"#000011\""));
+		assertThat(svgResult.getIndexFromColor(0x20)).isEqualTo(SVG.indexOf("stroke=\"#000020\""));
+		assertThat(svgResult.getIndexFromColor(0x30)).isEqualTo(SVG.indexOf(";stroke:#000030;"));
+		assertThat(svgResult.getIndexFromColor(0x40)).isEqualTo(-1);
+		assertThat(svgResult.getIndexFromTitle("node1")).isEqualTo(SVG.indexOf("<title>node1</title>"));
+		assertThat(svgResult.getIndexFromTitle("node2")).isEqualTo(-1);
+	}
+
+	@Test
+	void substring_is_relative_to_its_start() {
+		final int start = SVG.indexOf("<path");
+		final SvgResult end = svgResult.substring(start);
+
+		assertThat(end.getIndexFromColor(0x10)).isEqualTo(-1);
+		assertThat(end.getIndexFromColor(0x20)).isEqualTo(SVG.indexOf("stroke=\"#000020\"") - start);
+		assertThat(end.getSvg()).isEqualTo(SVG.substring(start));
+		assertThat(end.extractList(SvgResult.POINTS_EQUALS)).containsExactly(new XPoint2D(7, 42),
+				new XPoint2D(9, 41), new XPoint2D(8, 43));
+	}
+
+	@Test
+	void path_view() {
+		final int idx = svgResult.indexOf(SvgResult.D_EQUALS, svgResult.getIndexFromColor(0x20));
+		final int end = svgResult.indexOf("\"", idx + 3);
+		final SvgResult path = svgResult.substring(idx + 3, end);
+
+		assertThat(path.getSvg()).isEqualTo("M1,-2C3,-4 5,-6 7,-8");
+		assertThat(path.isPathConsistent()).isTrue();
+		assertThat(path.indexOf("points", 0)).isEqualTo(-1);
+		assertThat(path.toDotPath().getStartPoint()).isEqualTo(new XPoint2D(1, 48));
+		assertThat(path.toDotPath().getEndPoint()).isEqualTo(new XPoint2D(7, 42));
+	}
+
+}
@@ -0,0 +1,91 @@
+package net.sourceforge.plantuml.tim;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.plantuml.SourceStringReader;
+import net.sourceforge.plantuml.text.StringLocated;
+
+/**
+ * Checks that expressions shared through the compiled expression cache still
+ * read the current value of variables.
+ */
+class CompiledExpressionTest {
+
+	private static List<String> preprocess(String source) {
+		final List<String> result = new ArrayList<>();
+		for (StringLocated line : new SourceStringReader(source).getBlocks().get(0).getData())
+			if (line.getString().isEmpty() == false)
+				result.add(line.getString());
+
+		return result;
+	}
+
+	@Test
+	void while_condition_is_evaluated_at_each_iteration() {
+		final List<String> lines = preprocess("" +
+				"@startuml\n" +
+				"!$i = 0\n" +
+				"!while $i < 3\n" +
+				"!$i = $i + 1\n" +
+				"!$label = $i * 10\n" +
+				"a -> b : $i $label\n" +
+				"!endwhile\n" +
+				"@enduml\n");
+
+		assertThat(lines).containsExactly("@startuml", "a -> b : 1 10", "a -> b : 2 20", "a -> b : 3 30", "@enduml");
+	}
+
+	@Test
+	void function_body_uses_its_arguments() {
+		final List<String> lines = preprocess("" +
+				"@startuml\n" +
+				"!function $twice($a, $b = 1)\n" +
+				"!return $a * 2 + $b\n" +
+				"!endfunction\n" +
+				"!$k = 0\n" +
+				"!while $k < 3\n" +
+				"!$k = $k + 1\n" +
+				"!$r1 = $twice($k)\n" +
+				"!$r2 = $twice($k, $k)\n" +
+				"x -> y : $r1 $r2\n" +
+				"!endwhile\n" +
+				"@enduml\n");
+
+		assertThat(lines).containsExactly("@startuml", "x -> y : 3 3", "x -> y : 5 6", "x -> y : 7 9", "@enduml");
+	}
+
+	@Test
+	void same_expression_in_two_diagrams() {
+		final String template = "" +
+				"@startuml\n" +
+				"!$v = %s\n" +
+				"!$w = $v + 1\n" +
+				"title $w\n" +
+				"@enduml\n";
+
+		assertThat(preprocess(String.format(template, "1"))).contains("title 2");
+		assertThat(preprocess(String.format(template, "41"))).contains("title 42");
+	}
+
+	@Test
+	void variables_are_read_before_functions_are_called() {
+		final List<String> lines = preprocess("" +
+				"@startuml\n" +
+				"!$v = 1\n" +
+				"!function $bump()\n" +
+				"!global $v = 100\n" +
+				"!return 0\n" +
+				"!endfunction\n" +
+				"!$r = $bump() + $v\n" +
+				"title $r\n" +
+				"@enduml\n");
+
+		assertThat(lines).contains("title 1");
+	}
+
+}
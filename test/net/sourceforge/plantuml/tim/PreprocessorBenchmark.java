@@ -0,0 +1,84 @@
+package net.sourceforge.plantuml.tim;
+
+import java.util.Locale;
+
+import net.sourceforge.plantuml.SourceStringReader;
+import net.sourceforge.plantuml.tim.expression.CompiledExpressionCache;
+
+/**
+ * Measures the preprocessing of macro heavy diagrams, using the C4 and AWS
+ * libraries of the stdlib. This is not a unit test: run it with the stdlib on
+ * the classpath, for example
+ * 
+ * <pre>
+ * java -cp build/classes/java/main:build/classes/java/test:build/resources/main:. \
+ *      net.sourceforge.plantuml.tim.PreprocessorBenchmark 50
+ * </pre>
+ */
+public class PreprocessorBenchmark {
+
+	private static String c4() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("@startuml\n");
+		sb.append("!include <C4/C4_Container>\n");
+		sb.append("!$i = 0\n");
+		sb.append("!while $i < 40\n");
+		sb.append("!$i = $i + 1\n");
+		sb.append("Container(c$i, \"Service \" + $i, \"Java\", \"Does things\")\n");
+		sb.append("ContainerDb(db$i, \"Database\", \"SQL\", \"Stores things\")\n");
+		sb.append("Rel(c$i, db$i, \"Reads/Writes\", \"JDBC\")\n");
+		sb.append("!endwhile\n");
+		sb.append("SHOW_LEGEND()\n");
+		sb.append("@enduml\n");
+		return sb.toString();
+	}
+
+	private static String aws() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("@startuml\n");
+		sb.append("!include <awslib14/AWSCommon>\n");
+		sb.append("!include <awslib14/Compute/EC2>\n");
+		sb.append("!include <awslib14/Database/RDS>\n");
+		sb.append("!include <awslib14/Storage/SimpleStorageService>\n");
+		sb.append("!$i = 0\n");
+		sb.append("!while $i < 40\n");
+		sb.append("!$i = $i + 1\n");
+		sb.append("EC2(web$i, \"Web \" + $i, \"\")\n");
+		sb.append("RDS(db$i, \"DB\", \"\")\n");
+		sb.append("SimpleStorageService(s3$i, \"Bucket\", \"\")\n");
+		sb.append("web$i --> db$i\n");
+		sb.append("web$i --> s3$i\n");
+		sb.append("!endwhile\n");
+		sb.append("@enduml\n");
+		return sb.toString();
+	}
+
+	private static long run(String source) {
+		final long start = System.nanoTime();
+		new SourceStringReader(source).getBlocks().get(0).getData();
+		return System.nanoTime() - start;
+	}
+
+	private static void bench(String name, String source, int iterations) {
+		for (int i = 0; i < Math.max(5, iterations / 5); i++)
+			run(source);
+
+		long total = 0;
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < iterations; i++) {
+			final long duration = run(source);
+			total += duration;
+			best = Math.min(best, duration);
+		}
+		System.out.println(String.format(Locale.US, "%-4s mean=%.2f ms best=%.2f ms", name,
+				total / 1e6 / iterations, best / 1e6));
+	}
+
+	public static void main(String[] args) {
+		final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		bench("C4", c4(), iterations);
+		bench("AWS", aws(), iterations);
+		System.out.println(CompiledExpressionCache.getInstance().getStatistics());
+	}
+
+}